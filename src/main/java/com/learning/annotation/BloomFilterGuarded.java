@@ -0,0 +1,31 @@
+package com.learning.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自定义注解：布隆过滤器拦截
+ * 
+ * 面试重点知识点：
+ * 1. 缓存穿透：查询一定不存在的数据，请求每次都穿过缓存打到数据库
+ * 2. 布隆过滤器判定"一定不存在"时直接返回null，不访问缓存和数据库
+ * 3. SpEL表达式提取方法参数
+ * 
+ * @author 学习笔记
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BloomFilterGuarded {
+
+    /**
+     * 布隆过滤器名称，参见BloomFilterService中的常量
+     */
+    String value();
+
+    /**
+     * 被检查的key，SpEL表达式，如"#id"
+     */
+    String key();
+}
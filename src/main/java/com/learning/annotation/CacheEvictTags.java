@@ -0,0 +1,27 @@
+package com.learning.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自定义注解：按标签清除缓存条目
+ *
+ * 面试重点知识点：
+ * 1. 写操作声明它影响了哪些标签，带这些标签的条目在所有缓存中被清除
+ * 2. 方法正常返回后才清除，处于事务中时推迟到事务提交之后，回滚不会误清缓存
+ *
+ * 表达式中可以使用#result引用方法返回值。
+ *
+ * @author 学习笔记
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheEvictTags {
+
+    /**
+     * 标签，SpEL表达式，如"'user:' + #result.userId"
+     */
+    String[] value();
+}
@@ -0,0 +1,34 @@
+package com.learning.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自定义注解：为@Cacheable写入的缓存条目打标签
+ *
+ * 面试重点知识点：
+ * 1. 派生数据(统计、分页列表)依赖多条源数据，无法用单个key表达依赖关系
+ * 2. 条目写入时登记标签，源数据变化时按标签精确清除依赖它的条目，而不是allEntries清空整个缓存
+ * 3. SpEL表达式计算标签，可以引用方法参数与#result
+ *
+ * 与@Cacheable一起使用，只对cacheNames中的缓存生效；标签在缓存写入时才计算，因此#result为方法返回值。
+ * 表达式结果可以是单个值，也可以是集合或数组(每个元素一个标签)，null元素忽略。
+ *
+ * @author 学习笔记
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheTags {
+
+    /**
+     * 需要登记标签的缓存名称
+     */
+    String[] cacheNames();
+
+    /**
+     * 标签，SpEL表达式，如"'user:' + #userId"
+     */
+    String[] tags();
+}
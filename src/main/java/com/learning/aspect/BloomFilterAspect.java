@@ -0,0 +1,65 @@
+package com.learning.aspect;
+
+import com.learning.annotation.BloomFilterGuarded;
+import com.learning.service.BloomFilterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 布隆过滤器切面
+ * 
+ * 面试重点知识点：
+ * 1. 切面顺序：@Order保证在缓存拦截器之前执行，被拦截的请求不会访问缓存和数据库；
+ *    但不能排在ExposeInvocationInterceptor(HIGHEST_PRECEDENCE + 1)之前，否则通知无法取得当前调用
+ * 2. SpEL表达式的解析与缓存
+ * 3. MethodBasedEvaluationContext获取方法参数名
+ * 
+ * @author 学习笔记
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+@Slf4j
+public class BloomFilterAspect {
+
+    private final BloomFilterService bloomFilterService;
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    /**
+     * 环绕通知：过滤器判定不存在时直接返回null
+     */
+    @Around("@annotation(com.learning.annotation.BloomFilterGuarded)")
+    public Object guard(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        // 注解从方法签名读取，不依赖切点参数绑定
+        BloomFilterGuarded guarded = AnnotationUtils.findAnnotation(signature.getMethod(), BloomFilterGuarded.class);
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+                joinPoint.getTarget(), signature.getMethod(), joinPoint.getArgs(), parameterNameDiscoverer);
+        Object key = expressionCache.computeIfAbsent(guarded.key(), parser::parseExpression).getValue(context);
+
+        if (!bloomFilterService.mightContain(guarded.value(), key)) {
+            log.debug("布隆过滤器拦截 - {}: {}, key: {}", guarded.value(), signature.toShortString(), key);
+            return null;
+        }
+        return joinPoint.proceed();
+    }
+}
@@ -0,0 +1,115 @@
+package com.learning.aspect;
+
+import com.learning.annotation.CacheEvictTags;
+import com.learning.annotation.CacheTags;
+import com.learning.cache.TaggingCache;
+import com.learning.service.CacheTagService;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存标签切面
+ *
+ * 面试重点知识点：
+ * 1. 切面顺序：@Order保证在缓存拦截器与事务拦截器之外执行；
+ *    但不能排在ExposeInvocationInterceptor(HIGHEST_PRECEDENCE + 1)之前，否则通知无法取得当前调用
+ * 2. @CacheTags：方法执行期间把标签计算方式绑定到当前线程，由TaggingCache在写入时登记
+ * 3. @CacheEvictTags：方法正常返回后计算标签并清除，事务由外层开启时推迟到提交之后
+ *
+ * @author 学习笔记
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class CacheTagAspect {
+
+    private final CacheTagService cacheTagService;
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.learning.annotation.CacheTags)")
+    public Object bindTags(ProceedingJoinPoint joinPoint) throws Throwable {
+        CacheTags cacheTags = annotation(joinPoint, CacheTags.class);
+        MethodBasedEvaluationContext context = evaluationContext(joinPoint);
+        TaggingCache.Binding binding = new TaggingCache.Binding(Set.of(cacheTags.cacheNames()), result -> {
+            context.setVariable("result", result);
+            return evaluate(cacheTags.tags(), context);
+        });
+        TaggingCache.Binding previous = TaggingCache.bind(binding);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            TaggingCache.restore(previous);
+        }
+    }
+
+    @Around("@annotation(com.learning.annotation.CacheEvictTags)")
+    public Object evictTags(ProceedingJoinPoint joinPoint) throws Throwable {
+        CacheEvictTags evictTags = annotation(joinPoint, CacheEvictTags.class);
+        Object result = joinPoint.proceed();
+        MethodBasedEvaluationContext context = evaluationContext(joinPoint);
+        context.setVariable("result", result);
+        cacheTagService.evictTags(evaluate(evictTags.value(), context));
+        return result;
+    }
+
+    /**
+     * 注解从方法签名读取，不依赖切点参数绑定
+     */
+    private static <A extends Annotation> A annotation(ProceedingJoinPoint joinPoint, Class<A> type) {
+        return AnnotationUtils.findAnnotation(((MethodSignature) joinPoint.getSignature()).getMethod(), type);
+    }
+
+    private MethodBasedEvaluationContext evaluationContext(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        return new MethodBasedEvaluationContext(
+                joinPoint.getTarget(), signature.getMethod(), joinPoint.getArgs(), parameterNameDiscoverer);
+    }
+
+    /**
+     * 计算标签表达式，集合与数组展开为多个标签
+     */
+    private Set<String> evaluate(String[] expressions, MethodBasedEvaluationContext context) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (String expression : expressions) {
+            Object value = expressionCache.computeIfAbsent(expression, parser::parseExpression).getValue(context);
+            if (value instanceof Collection<?> collection) {
+                collection.forEach(element -> addTag(tags, element));
+            } else if (value instanceof Object[] array) {
+                for (Object element : array) {
+                    addTag(tags, element);
+                }
+            } else {
+                addTag(tags, value);
+            }
+        }
+        return tags;
+    }
+
+    private static void addTag(Set<String> tags, Object value) {
+        if (value != null) {
+            tags.add(value.toString());
+        }
+    }
+}
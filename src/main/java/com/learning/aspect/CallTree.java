@@ -0,0 +1,137 @@
+package com.learning.aspect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单个请求的调用树
+ *
+ * 面试重点知识点：
+ * 1. 线程封闭：一次请求的Controller → Service → Repository调用都在同一线程，每个线程复用一棵树，无需加锁
+ * 2. 对象复用：节点存放在预分配的并行数组中，进入/退出只写数组元素，请求结束后重置下标即可复用
+ * 3. 自身耗时 = 总耗时 - 直接子节点的总耗时，用来定位真正慢的那一层
+ * 4. 节点按进入顺序分配下标，数组本身就是先序遍历结果，父节点下标即可还原树形结构
+ *
+ * 只有慢请求才通过toTrace复制为不可变对象；节点数超过上限时后续调用不再记录，只计数。
+ * 异步线程中的调用不会挂到发起请求的树上，而是各自形成一棵树。
+ *
+ * @author 学习笔记
+ */
+public final class CallTree {
+
+    private final String[] layers;
+    private final String[] methodNames;
+    private final int[] parents;
+    private final long[] startNanos;
+    private final long[] totalNanos;
+    private final long[] childNanos;
+    private final boolean[] successes;
+    private int size;
+    private int current = -1;
+    private int droppedDepth;
+    private int droppedSpans;
+    private long startEpochMillis;
+
+    CallTree(int maxSpans) {
+        if (maxSpans < 1) {
+            throw new IllegalArgumentException("maxSpans must be positive: " + maxSpans);
+        }
+        layers = new String[maxSpans];
+        methodNames = new String[maxSpans];
+        parents = new int[maxSpans];
+        startNanos = new long[maxSpans];
+        totalNanos = new long[maxSpans];
+        childNanos = new long[maxSpans];
+        successes = new boolean[maxSpans];
+    }
+
+    /**
+     * 进入一个方法
+     *
+     * @return 节点下标，超过节点上限时返回-1
+     */
+    int enter(String layer, String methodName, long now) {
+        if (size == 0) {
+            startEpochMillis = System.currentTimeMillis();
+        }
+        if (droppedDepth > 0 || size == layers.length) {
+            droppedDepth++;
+            droppedSpans++;
+            return -1;
+        }
+        int node = size++;
+        layers[node] = layer;
+        methodNames[node] = methodName;
+        parents[node] = current;
+        startNanos[node] = now;
+        childNanos[node] = 0;
+        current = node;
+        return node;
+    }
+
+    /**
+     * 退出一个方法
+     *
+     * @return 根节点退出，即整棵树已完成时返回true
+     */
+    boolean exit(int node, long now, boolean success) {
+        if (node < 0) {
+            droppedDepth--;
+            return false;
+        }
+        long total = now - startNanos[node];
+        totalNanos[node] = total;
+        successes[node] = success;
+        current = parents[node];
+        if (current >= 0) {
+            childNanos[current] += total;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 根节点的总耗时
+     */
+    long rootNanos() {
+        return size > 0 ? totalNanos[0] : 0;
+    }
+
+    /**
+     * 复制为不可变的调用记录
+     */
+    Trace toTrace() {
+        List<Span> spans = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            spans.add(new Span(parents[i], layers[i], methodNames[i], startNanos[i] - startNanos[0],
+                    totalNanos[i], Math.max(0, totalNanos[i] - childNanos[i]), successes[i]));
+        }
+        return new Trace(startEpochMillis, rootNanos(), List.copyOf(spans), droppedSpans);
+    }
+
+    /**
+     * 重置以便下一个请求复用，只清除字符串引用避免持有
+     */
+    void reset() {
+        Arrays.fill(layers, 0, size, null);
+        Arrays.fill(methodNames, 0, size, null);
+        size = 0;
+        current = -1;
+        droppedDepth = 0;
+        droppedSpans = 0;
+    }
+
+    /**
+     * 一次完成的请求，spans按先序排列，第一个为根节点
+     */
+    public record Trace(long timestamp, long totalNanos, List<Span> spans, int droppedSpans) {
+    }
+
+    /**
+     * 调用树中的一个节点，parent为父节点在spans中的下标，根节点为-1
+     */
+    public record Span(int parent, String layer, String methodName, long startOffsetNanos,
+                       long totalNanos, long selfNanos, boolean success) {
+    }
+}
@@ -1,14 +1,29 @@
 package com.learning.aspect;
 
+import com.learning.config.AppConfig;
+import com.learning.metrics.AdaptiveSampler;
+import com.learning.metrics.LatencyHistogram;
+import com.learning.metrics.RingBuffer;
+import com.learning.metrics.RollingMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 性能监控切面
@@ -19,6 +34,16 @@ import java.util.concurrent.atomic.AtomicLong;
  * 3. 切点表达式的编写
  * 4. 环绕通知的使用
  * 5. 性能数据的收集和分析
+ * 6. 纳秒计时 + 无锁直方图：亚毫秒的Repository调用不再被取整为0，可以看到p99/p999长尾
+ * 7. 滚动窗口：最近1/5/15分钟的吞吐、错误率与百分位，不被启动以来的累计值稀释
+ * 8. 低开销记录：统计对象按Method缓存，不再每次拼接key；计数使用LongAdder分段累加，避免CAS热点；
+ *    内存改为当前线程的分配字节数(ThreadMXBean)，不再调用Runtime读取整个堆
+ * 9. 采样：快速且成功的调用按层级比例(高QPS时自适应降低)采样，采样到的调用按采样间隔计入次数；
+ *    慢调用与异常始终记录，统计中的调用次数、成功率与百分位仍是无偏估计
+ * 10. 请求调用树：同一线程内嵌套的Controller → Service → Repository调用组成一棵树，
+ *    记录每个节点的总耗时与自身耗时，慢请求放入有界环形缓冲区；调用树不受采样影响
+ * 
+ * 除Spring AOP为每次调用创建的连接点对象外，记录路径本身不分配对象。
  * 
  * @author 学习笔记
  */
@@ -27,9 +52,31 @@ import java.util.concurrent.atomic.AtomicLong;
 @Slf4j
 public class PerformanceAspect {
 
-    // 性能统计数据
+    private static final long SLOW_CALL_NANOS = 1_000_000_000L; // 1秒
+    private static final long MEMORY_ALERT_BYTES = 10 * 1024 * 1024; // 10MB
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = allocationTrackingBean();
+
+    // 性能统计数据，key为"层级:方法签名"，供查询使用
     private final ConcurrentHashMap<String, MethodPerformance> performanceMap = new ConcurrentHashMap<>();
-    private final AtomicLong totalCalls = new AtomicLong(0);
+    // 记录路径按Method查找，避免每次调用拼接字符串
+    private final ConcurrentHashMap<Method, MethodPerformance> performanceByMethod = new ConcurrentHashMap<>();
+    private final LongAdder totalCalls = new LongAdder();
+    private final AppConfig.Performance.Sampling sampling;
+    private final long slowThresholdNanos;
+    // 每个线程复用一棵调用树，慢请求复制后放入环形缓冲区
+    private final ThreadLocal<CallTree> callTrees;
+    private final RingBuffer<CallTree.Trace> slowTraces;
+    private final long slowTraceNanos;
+
+    public PerformanceAspect(AppConfig appConfig) {
+        this.sampling = appConfig.getPerformance().getSampling();
+        this.slowThresholdNanos = sampling.isEnabled() ? sampling.getSlowThreshold().toNanos() : 0;
+        AppConfig.Performance.Traces traces = appConfig.getPerformance().getTraces();
+        int maxSpans = traces.getMaxSpans();
+        this.callTrees = traces.isEnabled() ? ThreadLocal.withInitial(() -> new CallTree(maxSpans)) : null;
+        this.slowTraces = new RingBuffer<>(traces.getCapacity());
+        this.slowTraceNanos = traces.getSlowThreshold().toNanos();
+    }
 
     /**
      * 定义切点 - 所有Service层的方法
@@ -80,71 +127,135 @@ public class PerformanceAspect {
      * 面试重点：性能监控的实现
      */
     private Object monitorPerformance(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
-        String methodName = joinPoint.getSignature().toShortString();
-        String key = layer + ":" + methodName;
-        
-        long startTime = System.currentTimeMillis();
-        long startMemory = getUsedMemory();
+        MethodPerformance performance = performanceOf(joinPoint, layer);
+        CallTree tree = callTrees != null ? callTrees.get() : null;
+        long startTime = System.nanoTime();
+        int span = tree != null ? tree.enter(performance.getLayer(), performance.getMethodName(), startTime) : -1;
+        // 未采样的调用不读取内存分配，只保留计时用于判断是否为慢调用
+        int weight = performance.sample(startTime);
+        long startAllocated = weight > 0 ? allocatedBytes() : 0;
         
         try {
             // 执行目标方法
             Object result = joinPoint.proceed();
             
             // 记录成功执行的性能数据
-            recordPerformance(key, methodName, layer, startTime, startMemory, true, null);
+            long endTime = System.nanoTime();
+            completeSpan(tree, span, endTime, true);
+            recordPerformance(performance, startTime, endTime, weight, startAllocated, true, null);
             
             return result;
         } catch (Throwable throwable) {
             // 记录异常执行的性能数据
-            recordPerformance(key, methodName, layer, startTime, startMemory, false, throwable);
+            long endTime = System.nanoTime();
+            completeSpan(tree, span, endTime, false);
+            recordPerformance(performance, startTime, endTime, weight, startAllocated, false, throwable);
             throw throwable;
         }
     }
 
+    /**
+     * 查找方法的统计对象，key只在第一次调用时计算
+     */
+    private MethodPerformance performanceOf(ProceedingJoinPoint joinPoint, String layer) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodPerformance performance = performanceByMethod.get(method);
+        if (performance == null) {
+            String methodName = joinPoint.getSignature().toShortString();
+            performance = performanceByMethod.computeIfAbsent(method, m -> performanceMap.computeIfAbsent(
+                layer + ":" + methodName, k -> new MethodPerformance(methodName, layer, samplerFor(layer))));
+        }
+        return performance;
+    }
+
+    /**
+     * 每个方法一个采样器，自适应按方法各自的QPS调整
+     */
+    private AdaptiveSampler samplerFor(String layer) {
+        if (!sampling.isEnabled()) {
+            return AdaptiveSampler.always();
+        }
+        double rate = sampling.getLayerRates().getOrDefault(layer.toLowerCase(Locale.ROOT), 1.0);
+        int baseInterval = AdaptiveSampler.intervalOf(rate);
+        return new AdaptiveSampler(baseInterval,
+            sampling.isAdaptive() ? sampling.getTargetSamplesPerSecond() : 0,
+            Math.max(baseInterval, sampling.getMaxInterval()));
+    }
+
+    /**
+     * 结束调用树中的节点，根节点结束时慢请求复制进环形缓冲区，树重置后留给下一个请求
+     */
+    private void completeSpan(CallTree tree, int span, long endTime, boolean success) {
+        if (tree == null || !tree.exit(span, endTime, success)) {
+            return;
+        }
+        try {
+            if (tree.rootNanos() >= slowTraceNanos) {
+                slowTraces.add(tree.toTrace());
+            }
+        } finally {
+            tree.reset();
+        }
+    }
+
     /**
      * 记录性能数据
      * 面试重点：性能数据的收集
      */
-    private void recordPerformance(String key, String methodName, String layer, 
-                                 long startTime, long startMemory, boolean success, Throwable throwable) {
-        long endTime = System.currentTimeMillis();
-        long endMemory = getUsedMemory();
-        
-        long executionTime = endTime - startTime;
-        long memoryUsed = endMemory - startMemory;
-        
-        // 更新性能统计
-        MethodPerformance performance = performanceMap.computeIfAbsent(key, 
-            k -> new MethodPerformance(methodName, layer));
+    private void recordPerformance(MethodPerformance performance, long startTime, long endTime, int weight,
+                                   long startAllocated, boolean success, Throwable throwable) {
+        long executionNanos = endTime - startTime;
+        boolean alwaysRecorded = !success || executionNanos >= slowThresholdNanos;
+        if (weight == 0 && !alwaysRecorded) {
+            return;
+        }
         
-        performance.recordExecution(executionTime, memoryUsed, success);
-        totalCalls.incrementAndGet();
+        // 慢调用与异常的采样概率为1，按1次计入；其余采样按采样间隔计入，保证次数的期望不变
+        long count = alwaysRecorded ? 1 : weight;
+        long allocated = weight > 0 ? allocatedBytes() - startAllocated : MethodPerformance.UNKNOWN_MEMORY;
+        performance.recordExecution(executionNanos, allocated, success, count);
+        totalCalls.add(count);
         
-        // 记录日志
-        if (success) {
-            log.debug("方法执行完成 - {}: {}, 执行时间: {}ms, 内存使用: {}KB", 
-                     layer, methodName, executionTime, memoryUsed / 1024);
-        } else {
+        // 记录日志，先判断级别，避免可变参数数组与装箱
+        if (!success) {
             log.error("方法执行异常 - {}: {}, 执行时间: {}ms, 异常: {}", 
-                     layer, methodName, executionTime, throwable.getMessage());
+                     performance.getLayer(), performance.getMethodName(), executionNanos / 1_000_000, throwable.getMessage());
+        } else if (log.isDebugEnabled()) {
+            log.debug("方法执行完成 - {}: {}, 执行时间: {}ms, 分配内存: {}KB", 
+                     performance.getLayer(), performance.getMethodName(), executionNanos / 1_000_000, Math.max(allocated, 0) / 1024);
         }
         
         // 性能告警
-        if (executionTime > 1000) { // 超过1秒
-            log.warn("性能告警 - {}: {} 执行时间过长: {}ms", layer, methodName, executionTime);
+        if (executionNanos > SLOW_CALL_NANOS) {
+            log.warn("性能告警 - {}: {} 执行时间过长: {}ms", 
+                     performance.getLayer(), performance.getMethodName(), executionNanos / 1_000_000);
         }
         
-        if (memoryUsed > 10 * 1024 * 1024) { // 超过10MB
-            log.warn("内存告警 - {}: {} 内存使用过多: {}KB", layer, methodName, memoryUsed / 1024);
+        if (allocated > MEMORY_ALERT_BYTES) {
+            log.warn("内存告警 - {}: {} 分配内存过多: {}KB", 
+                     performance.getLayer(), performance.getMethodName(), allocated / 1024);
         }
     }
 
     /**
-     * 获取当前使用的内存
+     * 当前线程累计分配的字节数，JVM不支持时返回0
+     * 面试重点：只读取本线程的TLAB分配计数，不受其他线程与GC影响，也不需要遍历堆
      */
-    private long getUsedMemory() {
-        Runtime runtime = Runtime.getRuntime();
-        return runtime.totalMemory() - runtime.freeMemory();
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN != null ? THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationTrackingBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            log.warn("当前JVM不支持线程内存分配统计：{}", e.getMessage());
+        }
+        return null;
     }
 
     /**
@@ -156,88 +267,176 @@ public class PerformanceAspect {
     }
 
     /**
-     * 获取总调用次数
+     * 采样配置
+     */
+    public AppConfig.Performance.Sampling getSampling() {
+        return sampling;
+    }
+
+    /**
+     * 最近的慢请求调用树，最新的在前
+     */
+    public List<CallTree.Trace> getSlowTraces(int limit) {
+        return slowTraces.latest(limit);
+    }
+
+    /**
+     * 慢请求调用树的保留条数
+     */
+    public int getSlowTraceCapacity() {
+        return slowTraces.capacity();
+    }
+
+    /**
+     * 获取总调用次数，开启采样时为按权重还原的估计值
      */
     public long getTotalCalls() {
-        return totalCalls.get();
+        return totalCalls.sum();
     }
 
     /**
      * 清除性能统计
      */
     public void clearStatistics() {
+        performanceByMethod.clear();
         performanceMap.clear();
-        totalCalls.set(0);
+        totalCalls.reset();
+        slowTraces.clear();
     }
 
     /**
      * 方法性能统计类
+     * 面试重点：耗时以纳秒记录在直方图中，对外以毫秒(小数)展示
+     * 
+     * 每个方法一个默认精度的直方图，内存固定约18KB，与调用次数无关。
+     * 滚动窗口按15秒分桶，保留15分钟，每个有调用的桶约2KB。
+     * 调用次数与耗时总和取自直方图，计数器使用LongAdder/LongAccumulator，高并发下不在同一个变量上自旋。
+     * 内存指标为调用期间当前线程分配的字节数。
+     * 开启采样时每条记录带有权重(代表的调用次数)，次数、总耗时与内存为估计值，失败次数是精确值；
+     * 内存只在采样到的调用上读取，未采样的慢调用与异常不计入内存统计。
      */
     public static class MethodPerformance {
+        private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+        /**
+         * 对外提供的滚动窗口
+         */
+        public static final Map<String, Duration> WINDOWS = windows();
+
+        /**
+         * 本次调用未读取内存分配
+         */
+        public static final long UNKNOWN_MEMORY = -1;
+
         private final String methodName;
         private final String layer;
-        private final AtomicLong callCount = new AtomicLong(0);
-        private final AtomicLong successCount = new AtomicLong(0);
-        private final AtomicLong failureCount = new AtomicLong(0);
-        private final AtomicLong totalExecutionTime = new AtomicLong(0);
-        private final AtomicLong totalMemoryUsed = new AtomicLong(0);
-        private final AtomicLong maxExecutionTime = new AtomicLong(0);
-        private final AtomicLong minExecutionTime = new AtomicLong(Long.MAX_VALUE);
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder totalMemoryUsed = new LongAdder();
+        private final LongAdder memoryMeasuredCount = new LongAdder();
+        private final LongAdder sampledCount = new LongAdder();
+        private final LongAccumulator minExecutionNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final RollingMetrics rolling = new RollingMetrics(Duration.ofSeconds(15), 60);
+        private final AdaptiveSampler sampler;
 
         public MethodPerformance(String methodName, String layer) {
+            this(methodName, layer, AdaptiveSampler.always());
+        }
+
+        public MethodPerformance(String methodName, String layer, AdaptiveSampler sampler) {
             this.methodName = methodName;
             this.layer = layer;
+            this.sampler = sampler;
         }
 
-        public void recordExecution(long executionTime, long memoryUsed, boolean success) {
-            callCount.incrementAndGet();
-            
-            if (success) {
-                successCount.incrementAndGet();
-            } else {
-                failureCount.incrementAndGet();
-            }
-            
-            totalExecutionTime.addAndGet(executionTime);
-            totalMemoryUsed.addAndGet(memoryUsed);
-            
-            // 更新最大执行时间
-            long currentMax = maxExecutionTime.get();
-            while (executionTime > currentMax && !maxExecutionTime.compareAndSet(currentMax, executionTime)) {
-                currentMax = maxExecutionTime.get();
+        /**
+         * 决定本次调用是否采样，返回代表的调用次数，0表示不采样
+         */
+        public int sample(long now) {
+            return sampler.sample(now);
+        }
+
+        public void recordExecution(long executionNanos, long memoryUsed, boolean success) {
+            recordExecution(executionNanos, memoryUsed, success, 1);
+        }
+
+        /**
+         * 记录一次代表count次调用的执行
+         */
+        public void recordExecution(long executionNanos, long memoryUsed, boolean success, long count) {
+            if (!success) {
+                failureCount.add(count);
             }
             
-            // 更新最小执行时间
-            long currentMin = minExecutionTime.get();
-            while (executionTime < currentMin && !minExecutionTime.compareAndSet(currentMin, executionTime)) {
-                currentMin = minExecutionTime.get();
+            // 调用次数、最大值与总和由直方图记录
+            latency.record(executionNanos, count);
+            rolling.record(executionNanos, success, count);
+            if (memoryUsed != UNKNOWN_MEMORY) {
+                totalMemoryUsed.add(memoryUsed * count);
+                memoryMeasuredCount.add(count);
             }
+            minExecutionNanos.accumulate(executionNanos);
+            sampledCount.increment();
+        }
+
+        /**
+         * 延迟直方图(纳秒)，不作为JSON属性输出
+         */
+        public LatencyHistogram latencyHistogram() {
+            return latency;
+        }
+
+        /**
+         * 最近一段时间的汇总，不作为JSON属性输出
+         */
+        public RollingMetrics.Snapshot window(Duration window) {
+            return rolling.snapshot(window);
         }
 
-        // Getters
+        // Getters，耗时单位为毫秒
         public String getMethodName() { return methodName; }
         public String getLayer() { return layer; }
-        public long getCallCount() { return callCount.get(); }
-        public long getSuccessCount() { return successCount.get(); }
-        public long getFailureCount() { return failureCount.get(); }
-        public long getTotalExecutionTime() { return totalExecutionTime.get(); }
-        public long getTotalMemoryUsed() { return totalMemoryUsed.get(); }
-        public long getMaxExecutionTime() { return maxExecutionTime.get(); }
-        public long getMinExecutionTime() { return minExecutionTime.get() == Long.MAX_VALUE ? 0 : minExecutionTime.get(); }
+        public long getCallCount() { return latency.getCount(); }
+        public long getSuccessCount() { return Math.max(0, latency.getCount() - failureCount.sum()); }
+        public long getFailureCount() { return failureCount.sum(); }
+        public long getSampledCount() { return sampledCount.sum(); }
+        public int getSamplingInterval() { return sampler.getInterval(); }
+        public double getTotalExecutionTime() { return latency.getTotal() / NANOS_PER_MILLI; }
+        public long getTotalMemoryUsed() { return totalMemoryUsed.sum(); }
+        public double getMaxExecutionTime() { return latency.getMax() / NANOS_PER_MILLI; }
+        public double getMinExecutionTime() {
+            long min = minExecutionNanos.get();
+            return min == Long.MAX_VALUE ? 0 : min / NANOS_PER_MILLI;
+        }
+        public double getP50ExecutionTime() { return percentile(50); }
+        public double getP90ExecutionTime() { return percentile(90); }
+        public double getP99ExecutionTime() { return percentile(99); }
+        public double getP999ExecutionTime() { return percentile(99.9); }
         
         public double getAverageExecutionTime() {
-            long calls = callCount.get();
-            return calls > 0 ? (double) totalExecutionTime.get() / calls : 0;
+            return latency.getMean() / NANOS_PER_MILLI;
         }
         
         public double getSuccessRate() {
-            long calls = callCount.get();
-            return calls > 0 ? (double) successCount.get() / calls * 100 : 0;
+            long calls = getCallCount();
+            return calls > 0 ? (double) getSuccessCount() / calls * 100 : 0;
         }
         
         public double getAverageMemoryUsed() {
-            long calls = callCount.get();
-            return calls > 0 ? (double) totalMemoryUsed.get() / calls : 0;
+            long measured = memoryMeasuredCount.sum();
+            return measured > 0 ? (double) totalMemoryUsed.sum() / measured : 0;
+        }
+
+        private double percentile(double percentile) {
+            return latency.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+        }
+
+        private static Map<String, Duration> windows() {
+            Map<String, Duration> windows = new LinkedHashMap<>();
+            windows.put("1m", Duration.ofMinutes(1));
+            windows.put("5m", Duration.ofMinutes(5));
+            windows.put("15m", Duration.ofMinutes(15));
+            return Collections.unmodifiableMap(windows);
         }
     }
 }
@@ -0,0 +1,136 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 失效广播通道的公共实现：按刷新周期批量、去重后发送
+ * 
+ * 面试重点知识点：
+ * 1. 写多的场景下逐条广播会放大消息量，按周期合并后消息数与写入量无关
+ * 2. 同一周期内缓存被清空时，该缓存的单key失效可以丢弃
+ * 3. 消息携带节点ID，接收方忽略自己发出的消息
+ * 
+ * @author 学习笔记
+ */
+@Slf4j
+public abstract class AbstractCacheInvalidationBus implements CacheInvalidationBus, AutoCloseable {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<InvalidationBatch>> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+    private Map<String, Set<Object>> pendingEvicted = new HashMap<>();
+    private Map<String, Long> pendingCleared = new HashMap<>();
+
+    protected AbstractCacheInvalidationBus(Duration flushInterval) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publishEvict(String cacheName, Object key) {
+        lock.lock();
+        try {
+            if (!pendingCleared.containsKey(cacheName)) {
+                pendingEvicted.computeIfAbsent(cacheName, name -> new HashSet<>()).add(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void publishClear(String cacheName, long generation) {
+        lock.lock();
+        try {
+            pendingEvicted.remove(cacheName);
+            pendingCleared.merge(cacheName, generation, Math::max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationBatch> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 发送当前周期积累的失效消息
+     */
+    public void flush() {
+        InvalidationBatch batch;
+        lock.lock();
+        try {
+            if (pendingEvicted.isEmpty() && pendingCleared.isEmpty()) {
+                return;
+            }
+            batch = new InvalidationBatch(nodeId, pendingEvicted, pendingCleared);
+            pendingEvicted = new HashMap<>();
+            pendingCleared = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+        send(batch);
+    }
+
+    /**
+     * 收到消息后分发给订阅者
+     */
+    protected void receive(InvalidationBatch batch) {
+        if (nodeId.equals(batch.nodeId())) {
+            return;
+        }
+        for (Consumer<InvalidationBatch> listener : listeners) {
+            try {
+                listener.accept(batch);
+            } catch (RuntimeException e) {
+                log.warn("处理缓存失效消息失败，来源节点：{}，异常：{}", batch.nodeId(), e.getMessage());
+            }
+        }
+    }
+
+    protected abstract void send(InvalidationBatch batch);
+
+    protected ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("发送缓存失效消息失败：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 支持批量读写的缓存
+ * 
+ * 面试重点知识点：
+ * 1. 逐条读写Redis时每个key一次网络往返，批量读用MGET、批量写用Pipeline，N次往返合并为1次
+ * 2. 装饰链中每一层都转发批量操作，最底层的Redis缓存执行批量命令
+ * 
+ * @author 学习笔记
+ */
+public interface BatchCache extends Cache {
+
+    /**
+     * 批量写入缓存
+     */
+    void putAll(Map<?, ?> entries);
+
+    /**
+     * 批量读取缓存，只返回命中的key，按传入顺序排列
+     * 面试重点：命中null值(空结果)的key同样返回，包装值为null
+     */
+    Map<Object, ValueWrapper> getAll(Collection<?> keys);
+
+    /**
+     * 对任意缓存批量写入，不支持批量的缓存退化为逐条写入
+     */
+    static void putAll(Cache cache, Map<?, ?> entries) {
+        if (cache instanceof BatchCache batchCache) {
+            batchCache.putAll(entries);
+        } else {
+            entries.forEach(cache::put);
+        }
+    }
+
+    /**
+     * 对任意缓存批量读取，不支持批量的缓存退化为逐条读取
+     */
+    static Map<Object, ValueWrapper> getAll(Cache cache, Collection<?> keys) {
+        if (cache instanceof BatchCache batchCache) {
+            return batchCache.getAll(keys);
+        }
+        Map<Object, ValueWrapper> found = new LinkedHashMap<>();
+        for (Object key : keys) {
+            ValueWrapper wrapper = cache.get(key);
+            if (wrapper != null) {
+                found.put(key, wrapper);
+            }
+        }
+        return found;
+    }
+}
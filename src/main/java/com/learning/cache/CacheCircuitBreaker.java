@@ -0,0 +1,185 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 缓存熔断器
+ * 
+ * 面试重点知识点：
+ * 1. 三种状态：CLOSED正常访问，OPEN直接降级，HALF_OPEN放行少量试探请求
+ * 2. 基于计数的滑动窗口统计失败率与慢调用比例，达到阈值即打开熔断
+ * 3. 打开一段时间后进入半开状态，试探请求全部结束后根据结果决定关闭还是重新打开
+ * 4. 熔断期间请求不再等待Redis超时，延迟有上界
+ * 
+ * 所有缓存共享同一个Redis，因此共享一个熔断器。
+ * 
+ * @author 学习笔记
+ */
+@Slf4j
+public class CacheCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallThresholdNanos;
+    private final double slowCallRateThreshold;
+    private final long waitInOpenNanos;
+    private final int halfOpenTrialCalls;
+    private final LongSupplier ticker;
+
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int position;
+    private int recorded;
+    private int failureCount;
+    private int slowCount;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private final AtomicInteger trialPermits = new AtomicInteger();
+    private int trialResults;
+    private int trialFailures;
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder openCount = new LongAdder();
+
+    public CacheCircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                               Duration slowCallThreshold, double slowCallRateThreshold,
+                               Duration waitInOpenState, int halfOpenTrialCalls) {
+        this(windowSize, minimumCalls, failureRateThreshold, slowCallThreshold, slowCallRateThreshold,
+                waitInOpenState, halfOpenTrialCalls, System::nanoTime);
+    }
+
+    CacheCircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                        Duration slowCallThreshold, double slowCallRateThreshold,
+                        Duration waitInOpenState, int halfOpenTrialCalls, LongSupplier ticker) {
+        if (windowSize <= 0 || minimumCalls <= 0 || halfOpenTrialCalls <= 0) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenTrialCalls must be positive");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdNanos = slowCallThreshold.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.waitInOpenNanos = waitInOpenState.toNanos();
+        this.halfOpenTrialCalls = halfOpenTrialCalls;
+        this.ticker = ticker;
+        this.failures = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+    }
+
+    /**
+     * 请求访问Redis的许可
+     * 面试重点：OPEN超时后切换到HALF_OPEN，只有拿到试探许可的请求才访问Redis
+     */
+    public boolean tryAcquire() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            synchronized (this) {
+                if (state == State.OPEN && ticker.getAsLong() - openedAt >= waitInOpenNanos) {
+                    transitionTo(State.HALF_OPEN);
+                }
+            }
+        }
+        if (state == State.HALF_OPEN && trialPermits.getAndDecrement() > 0) {
+            return true;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    public void onSuccess(long durationNanos) {
+        record(false, durationNanos >= slowCallThresholdNanos);
+    }
+
+    public void onError(long durationNanos) {
+        record(true, durationNanos >= slowCallThresholdNanos);
+    }
+
+    public State getState() { return state; }
+    public long getRejectedCount() { return rejectedCount.sum(); }
+    public long getOpenCount() { return openCount.sum(); }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0.0 : (double) failureCount / recorded;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0.0 : (double) slowCount / recorded;
+    }
+
+    /**
+     * 记录一次调用结果，慢调用在半开状态下也视为失败
+     */
+    private synchronized void record(boolean failure, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            trialResults++;
+            if (failure || slow) {
+                trialFailures++;
+            }
+            if (trialResults >= halfOpenTrialCalls) {
+                boolean healthy = (double) trialFailures / trialResults < failureRateThreshold;
+                transitionTo(healthy ? State.CLOSED : State.OPEN);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+        if (recorded == windowSize) {
+            failureCount -= failures[position] ? 1 : 0;
+            slowCount -= slowCalls[position] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failures[position] = failure;
+        slowCalls[position] = slow;
+        failureCount += failure ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        position = (position + 1) % windowSize;
+
+        if (recorded >= minimumCalls
+                && ((double) failureCount / recorded >= failureRateThreshold
+                || (double) slowCount / recorded >= slowCallRateThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        log.warn("缓存熔断器状态变更：{} -> {}，失败率：{}，慢调用比例：{}", state, next,
+                recorded == 0 ? 0.0 : (double) failureCount / recorded,
+                recorded == 0 ? 0.0 : (double) slowCount / recorded);
+        state = next;
+        switch (next) {
+            case OPEN -> {
+                openedAt = ticker.getAsLong();
+                openCount.increment();
+            }
+            case HALF_OPEN -> {
+                trialResults = 0;
+                trialFailures = 0;
+                trialPermits.set(halfOpenTrialCalls);
+            }
+            case CLOSED -> {
+                position = 0;
+                recorded = 0;
+                failureCount = 0;
+                slowCount = 0;
+            }
+        }
+    }
+}
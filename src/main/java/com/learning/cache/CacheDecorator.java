@@ -0,0 +1,109 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 缓存装饰器基类
+ * 
+ * 面试重点知识点：
+ * 1. 装饰器模式在缓存体系中的应用
+ * 2. Spring Cache接口的契约
+ * 3. 多层缓存能力的组合方式
+ * 
+ * 子类只需覆盖关心的方法，其余操作全部委托给下一层缓存。
+ * 
+ * @author 学习笔记
+ */
+public abstract class CacheDecorator implements BatchCache {
+
+    protected final Cache delegate;
+
+    protected CacheDecorator(Cache delegate) {
+        Assert.notNull(delegate, "Delegate cache must not be null");
+        this.delegate = delegate;
+    }
+
+    /**
+     * 获取被装饰的下一层缓存
+     */
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        BatchCache.putAll(delegate, entries);
+    }
+
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        return BatchCache.getAll(delegate, keys);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    /**
+     * 沿装饰链查找指定类型的缓存层
+     * 面试重点：装饰链的遍历
+     */
+    public static <T extends Cache> T unwrap(Cache cache, Class<T> type) {
+        Cache current = cache;
+        while (current != null) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+            current = current instanceof CacheDecorator decorator ? decorator.getDelegate() : null;
+        }
+        return null;
+    }
+}
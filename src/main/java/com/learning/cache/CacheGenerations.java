@@ -0,0 +1,105 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * 缓存代数(Generation)计数器
+ * 
+ * 面试重点知识点：
+ * 1. 版本化命名空间：key中带上缓存的当前代数，"清空缓存"变成一次原子INCR，复杂度O(1)
+ * 2. 旧代数的key不再被访问，依靠TTL自然过期，不需要SCAN + DEL
+ * 3. 代数存放在Redis中供多节点共享，本地缓存一份并按间隔刷新，避免每次读写都访问Redis
+ * 
+ * 计数器首次创建时以当前毫秒时间为初值，即使计数器key丢失也不会回退到旧代数。
+ * 
+ * @author 学习笔记
+ */
+@Slf4j
+public class CacheGenerations {
+
+    private static final String KEY_PREFIX = "cache:generation:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final long refreshIntervalNanos;
+    private final LongSupplier ticker;
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+
+    public CacheGenerations(StringRedisTemplate redisTemplate, Duration refreshInterval) {
+        this(redisTemplate, refreshInterval, System::nanoTime);
+    }
+
+    CacheGenerations(StringRedisTemplate redisTemplate, Duration refreshInterval, LongSupplier ticker) {
+        this.redisTemplate = redisTemplate;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * 获取缓存当前代数
+     * 面试重点：超过刷新间隔时只有一个线程去Redis读取，其余线程继续使用本地值
+     */
+    public long current(String cacheName) {
+        Generation generation = generations.computeIfAbsent(cacheName, name -> new Generation());
+        long now = ticker.getAsLong();
+        if (now - generation.lastRefresh >= refreshIntervalNanos && generation.refreshing.compareAndSet(false, true)) {
+            try {
+                generation.advanceTo(readRemote(cacheName));
+            } catch (DataAccessException e) {
+                log.debug("读取缓存[{}]代数失败，继续使用本地值：{}", cacheName, e.getMessage());
+            } finally {
+                generation.lastRefresh = now;
+                generation.refreshing.set(false);
+            }
+        }
+        return generation.value;
+    }
+
+    /**
+     * 代数加一，使该缓存的全部旧条目失效
+     */
+    public long bump(String cacheName) {
+        String key = KEY_PREFIX + cacheName;
+        redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+        Long next = redisTemplate.opsForValue().increment(key);
+        return advance(cacheName, next != null ? next : 0L);
+    }
+
+    /**
+     * 接收其他来源得知的代数，只会前进不会后退
+     */
+    public long advance(String cacheName, long observed) {
+        Generation generation = generations.computeIfAbsent(cacheName, name -> new Generation());
+        generation.advanceTo(observed);
+        return generation.value;
+    }
+
+    private long readRemote(String cacheName) {
+        String key = KEY_PREFIX + cacheName;
+        String value = redisTemplate.opsForValue().get(key);
+        if (value == null) {
+            redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+            value = redisTemplate.opsForValue().get(key);
+        }
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    private final class Generation {
+        private volatile long value;
+        private volatile long lastRefresh = ticker.getAsLong() - refreshIntervalNanos;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private synchronized void advanceTo(long observed) {
+            if (observed > value) {
+                value = observed;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.learning.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效广播通道
+ * 
+ * 面试重点知识点：
+ * 1. 多级缓存的一致性：某个节点更新数据后，其他节点的本地缓存仍持有旧值
+ * 2. 通过消息广播通知所有节点清除本地缓存，共享的Redis缓存不需要广播
+ * 3. 批量与去重：一个刷新周期内对同一key的多次失效只发送一次
+ * 
+ * @author 学习笔记
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * 发布单个key的失效消息
+     */
+    void publishEvict(String cacheName, Object key);
+
+    /**
+     * 发布整个缓存的清空消息，generation为清空后的缓存代数，未使用代数时为0
+     */
+    void publishClear(String cacheName, long generation);
+
+    /**
+     * 订阅其他节点发出的失效消息，本节点发出的消息不会回调
+     */
+    void subscribe(Consumer<InvalidationBatch> listener);
+
+    String getNodeId();
+}
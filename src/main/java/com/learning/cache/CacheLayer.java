@@ -0,0 +1,23 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * 缓存层定义
+ * 
+ * 面试重点知识点：
+ * 1. 函数式接口的使用
+ * 2. 按缓存名称选择性地叠加缓存能力
+ * 
+ * 对不需要该能力的缓存，直接返回原缓存即可。
+ * 
+ * @author 学习笔记
+ */
+@FunctionalInterface
+public interface CacheLayer {
+
+    /**
+     * 为缓存叠加一层能力
+     */
+    Cache decorate(Cache cache);
+}
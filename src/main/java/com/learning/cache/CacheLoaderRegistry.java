@@ -0,0 +1,70 @@
+package com.learning.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 缓存加载器注册表
+ * 
+ * 面试重点知识点：
+ * 1. 缓存层与数据源解耦：缓存层只知道"按key加载"，具体如何加载由业务服务注册
+ * 2. 后台刷新、批量预热等场景需要脱离原始方法调用独立回源
+ * 3. 批量加载器一次查询多个key(IN查询)，避免N+1次数据库访问
+ * 
+ * @author 学习笔记
+ */
+@Component
+public class CacheLoaderRegistry {
+
+    private final Map<String, Function<Object, Object>> loaders = new ConcurrentHashMap<>();
+    private final Map<String, Function<Collection<Object>, Map<Object, Object>>> batchLoaders = new ConcurrentHashMap<>();
+
+    /**
+     * 注册缓存加载器，加载器直接访问数据源，不能再经过缓存
+     */
+    public void register(String cacheName, Function<Object, Object> loader) {
+        loaders.put(cacheName, loader);
+    }
+
+    /**
+     * 注册批量加载器，返回值中不包含数据源里不存在的key
+     */
+    public void registerBatch(String cacheName, Function<Collection<Object>, Map<Object, Object>> batchLoader) {
+        batchLoaders.put(cacheName, batchLoader);
+    }
+
+    public Function<Object, Object> getLoader(String cacheName) {
+        return loaders.get(cacheName);
+    }
+
+    public boolean hasLoader(String cacheName) {
+        return batchLoaders.containsKey(cacheName) || loaders.containsKey(cacheName);
+    }
+
+    /**
+     * 批量加载，没有批量加载器时退化为逐个加载
+     */
+    public Map<Object, Object> loadAll(String cacheName, Collection<Object> keys) {
+        Function<Collection<Object>, Map<Object, Object>> batchLoader = batchLoaders.get(cacheName);
+        if (batchLoader != null) {
+            return batchLoader.apply(keys);
+        }
+        Function<Object, Object> loader = loaders.get(cacheName);
+        if (loader == null) {
+            throw new IllegalArgumentException("No cache loader registered for cache: " + cacheName);
+        }
+        Map<Object, Object> result = new LinkedHashMap<>();
+        for (Object key : keys) {
+            Object value = loader.apply(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,113 @@
+package com.learning.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 缓存标签索引
+ *
+ * 面试重点知识点：
+ * 1. 反向索引：每个标签对应一个Redis Set，成员是"缓存名称 + key"，多节点共享
+ * 2. 先登记再写缓存：登记失败时不写缓存，不会出现无法按标签清除的条目
+ * 3. SPOP取出并删除成员：清除与并发登记互不丢失，不需要SMEMBERS + DEL两步
+ * 4. 索引Set带TTL(长于缓存条目的TTL)，条目自然过期后残留的成员随之过期
+ *
+ * 只支持String、Long、Integer类型的key，成员格式为"缓存名称|类型|key"。
+ *
+ * @author 学习笔记
+ */
+public class CacheTagIndex {
+
+    private static final String KEY_PREFIX = "cache:tag:";
+    private static final int POP_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration indexTtl;
+
+    public CacheTagIndex(StringRedisTemplate redisTemplate, Duration indexTtl) {
+        this.redisTemplate = redisTemplate;
+        this.indexTtl = indexTtl;
+    }
+
+    /**
+     * 登记条目的标签，Redis异常向上抛出
+     */
+    public void register(String cacheName, Object key, Collection<String> tags) {
+        String member = encode(cacheName, key);
+        for (String tag : tags) {
+            String indexKey = KEY_PREFIX + tag;
+            redisTemplate.opsForSet().add(indexKey, member);
+            redisTemplate.expire(indexKey, indexTtl);
+        }
+    }
+
+    /**
+     * 取出并删除标签下登记的全部条目
+     */
+    public List<TaggedKey> drain(String tag) {
+        String indexKey = KEY_PREFIX + tag;
+        List<TaggedKey> keys = new ArrayList<>();
+        while (true) {
+            List<String> members = redisTemplate.opsForSet().pop(indexKey, POP_BATCH_SIZE);
+            if (members == null || members.isEmpty()) {
+                return keys;
+            }
+            for (String member : members) {
+                TaggedKey key = decode(member);
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+            if (members.size() < POP_BATCH_SIZE) {
+                return keys;
+            }
+        }
+    }
+
+    public static boolean supportsKey(Object key) {
+        return key instanceof String || key instanceof Long || key instanceof Integer;
+    }
+
+    static String encode(String cacheName, Object key) {
+        char type;
+        if (key instanceof String) {
+            type = 'S';
+        } else if (key instanceof Long) {
+            type = 'L';
+        } else if (key instanceof Integer) {
+            type = 'I';
+        } else {
+            throw new IllegalArgumentException("Unsupported tagged cache key type: " + key.getClass().getName());
+        }
+        return cacheName + '|' + type + '|' + key;
+    }
+
+    static TaggedKey decode(String member) {
+        int first = member.indexOf('|');
+        if (first < 0 || member.length() < first + 3 || member.charAt(first + 2) != '|') {
+            return null;
+        }
+        String cacheName = member.substring(0, first);
+        String value = member.substring(first + 3);
+        try {
+            return switch (member.charAt(first + 1)) {
+                case 'S' -> new TaggedKey(cacheName, value);
+                case 'L' -> new TaggedKey(cacheName, Long.parseLong(value));
+                case 'I' -> new TaggedKey(cacheName, Integer.parseInt(value));
+                default -> null;
+            };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 标签下登记的一个缓存条目
+     */
+    public record TaggedKey(String cacheName, Object key) {
+    }
+}
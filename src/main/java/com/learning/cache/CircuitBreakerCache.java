@@ -0,0 +1,259 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 带熔断降级的Redis缓存
+ * 
+ * 面试重点知识点：
+ * 1. 熔断器关闭时正常访问Redis并统计耗时与异常，异常继续抛出交给CacheErrorHandler按未命中处理
+ * 2. 熔断器打开时不访问Redis，读写落到有界的本地降级缓存
+ * 3. 熔断期间(或Redis写失败时)的写入与清除操作记录下来，恢复后补偿清除这些key，避免Redis中残留旧数据
+ * 4. 恢复后清空降级缓存，其内容没有经过跨节点失效广播
+ * 
+ * @author 学习笔记
+ */
+@Slf4j
+public class CircuitBreakerCache extends CacheDecorator {
+
+    private final CacheCircuitBreaker circuitBreaker;
+    private final LocalCache fallback;
+    private final int maxPendingEvictions;
+    private final Set<Object> pendingEvictions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingClear = new AtomicBoolean();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private volatile boolean degraded;
+
+    public CircuitBreakerCache(Cache delegate, CacheCircuitBreaker circuitBreaker, LocalCache fallback,
+                               int maxPendingEvictions) {
+        super(delegate);
+        this.circuitBreaker = circuitBreaker;
+        this.fallback = fallback;
+        this.maxPendingEvictions = maxPendingEvictions;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        if (!circuitBreaker.tryAcquire()) {
+            degraded = true;
+            return fromFallback(key);
+        }
+        return call(() -> delegate.get(key));
+    }
+
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        if (!circuitBreaker.tryAcquire()) {
+            degraded = true;
+            Map<Object, ValueWrapper> found = new LinkedHashMap<>();
+            for (Object key : keys) {
+                ValueWrapper wrapper = fromFallback(key);
+                if (wrapper != null) {
+                    found.put(key, wrapper);
+                }
+            }
+            return found;
+        }
+        return call(() -> BatchCache.getAll(delegate, keys));
+    }
+
+    /**
+     * sync模式：读取、回源、写入分开执行，Redis失败时直接回源，避免CacheErrorHandler触发二次回源
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached;
+        try {
+            cached = get(key);
+        } catch (RuntimeException e) {
+            cached = null;
+        }
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        try {
+            put(key, value);
+        } catch (RuntimeException e) {
+            log.debug("缓存[{}]写入失败，key：{}，异常：{}", getName(), key, e.getMessage());
+        }
+        return value;
+    }
+
+    /**
+     * 降级或失败的写入：Redis中可能还是写入前的旧值，恢复后需要补偿清除
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (!circuitBreaker.tryAcquire()) {
+            degraded = true;
+            fallback.put(key, value != null ? value : NullValue.INSTANCE);
+            addPendingEviction(key);
+            return;
+        }
+        try {
+            call(() -> {
+                delegate.put(key, value);
+                return null;
+            });
+        } catch (RuntimeException | Error e) {
+            addPendingEviction(key);
+            throw e;
+        }
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        if (!circuitBreaker.tryAcquire()) {
+            degraded = true;
+            entries.forEach((key, value) -> {
+                fallback.put(key, value != null ? value : NullValue.INSTANCE);
+                addPendingEviction(key);
+            });
+            return;
+        }
+        try {
+            call(() -> {
+                BatchCache.putAll(delegate, entries);
+                return null;
+            });
+        } catch (RuntimeException | Error e) {
+            entries.keySet().forEach(this::addPendingEviction);
+            throw e;
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        fallback.evict(key);
+        if (!circuitBreaker.tryAcquire()) {
+            degraded = true;
+            addPendingEviction(key);
+            return;
+        }
+        try {
+            call(() -> {
+                delegate.evict(key);
+                return null;
+            });
+        } catch (RuntimeException | Error e) {
+            addPendingEviction(key);
+            throw e;
+        }
+    }
+
+    @Override
+    public void clear() {
+        fallback.clear();
+        if (!circuitBreaker.tryAcquire()) {
+            degraded = true;
+            pendingClear.set(true);
+            return;
+        }
+        try {
+            call(() -> {
+                delegate.clear();
+                return null;
+            });
+        } catch (RuntimeException | Error e) {
+            pendingClear.set(true);
+            throw e;
+        }
+    }
+
+    public LocalCache getFallback() { return fallback; }
+    public int getPendingEvictionCount() { return pendingEvictions.size(); }
+    public boolean isPendingClear() { return pendingClear.get(); }
+
+    /**
+     * 访问Redis并记录结果，成功后执行积压的补偿清除
+     * 面试重点：在finally中记录结果，Error也计为失败，否则半开状态的试探名额永远不会结束
+     */
+    private <T> T call(Supplier<T> operation) {
+        long start = System.nanoTime();
+        boolean success = false;
+        T result;
+        try {
+            result = operation.get();
+            success = true;
+        } finally {
+            if (success) {
+                circuitBreaker.onSuccess(System.nanoTime() - start);
+            } else {
+                circuitBreaker.onError(System.nanoTime() - start);
+            }
+        }
+        if (circuitBreaker.getState() == CacheCircuitBreaker.State.CLOSED) {
+            recover();
+        }
+        return result;
+    }
+
+    private ValueWrapper fromFallback(Object key) {
+        Object value = fallback.get(key);
+        if (value == null) {
+            return null;
+        }
+        return new SimpleValueWrapper(value == NullValue.INSTANCE ? null : value);
+    }
+
+    private void addPendingEviction(Object key) {
+        if (pendingEvictions.size() >= maxPendingEvictions) {
+            pendingClear.set(true);
+            pendingEvictions.clear();
+        } else {
+            pendingEvictions.add(key);
+        }
+    }
+
+    /**
+     * 恢复：补偿熔断期间的清除操作并清空降级缓存
+     * 面试重点：积压清除过多时退化为整体清空(版本化命名空间下只是一次INCR)
+     */
+    private void recover() {
+        if (!degraded && !pendingClear.get() && pendingEvictions.isEmpty()) {
+            return;
+        }
+        if (!replaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (degraded) {
+                degraded = false;
+                fallback.clear();
+            }
+            if (pendingClear.getAndSet(false)) {
+                pendingEvictions.clear();
+                delegate.clear();
+            }
+            for (Object key : pendingEvictions) {
+                delegate.evict(key);
+                pendingEvictions.remove(key);
+            }
+            log.info("缓存[{}]已从熔断中恢复，补偿清除已完成", getName());
+        } catch (RuntimeException e) {
+            pendingClear.set(true);
+            log.warn("缓存[{}]补偿清除失败，稍后重试：{}", getName(), e.getMessage());
+        } finally {
+            replaying.set(false);
+        }
+    }
+}
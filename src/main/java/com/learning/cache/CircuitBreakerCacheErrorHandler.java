@@ -0,0 +1,52 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存异常处理器
+ * 
+ * 面试重点知识点：
+ * 1. 默认的SimpleCacheErrorHandler直接抛出异常，Redis故障会导致业务请求失败
+ * 2. 读异常按未命中处理，继续执行业务方法；写、清除异常只记录日志
+ * 3. 配合CircuitBreakerCache：熔断器统计失败次数，错误处理器保证请求不失败
+ * 
+ * @author 学习笔记
+ */
+@Slf4j
+public class CircuitBreakerCacheErrorHandler implements CacheErrorHandler {
+
+    private final LongAdder errorCount = new LongAdder();
+
+    @Override
+    public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+        record("读取", exception, cache, key);
+    }
+
+    @Override
+    public void handleCachePutError(RuntimeException exception, Cache cache, Object key, Object value) {
+        record("写入", exception, cache, key);
+    }
+
+    @Override
+    public void handleCacheEvictError(RuntimeException exception, Cache cache, Object key) {
+        record("清除", exception, cache, key);
+    }
+
+    @Override
+    public void handleCacheClearError(RuntimeException exception, Cache cache) {
+        record("清空", exception, cache, null);
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    private void record(String operation, RuntimeException exception, Cache cache, Object key) {
+        errorCount.increment();
+        log.warn("缓存[{}]{}失败，降级处理，key：{}，异常：{}", cache.getName(), operation, key, exception.getMessage());
+    }
+}
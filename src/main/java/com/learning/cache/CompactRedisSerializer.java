@@ -0,0 +1,525 @@
+package com.learning.cache;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.learning.entity.Order;
+import com.learning.entity.OrderItem;
+import com.learning.entity.User;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 紧凑二进制Redis序列化器
+ *
+ * 面试重点知识点：
+ * 1. JDK序列化写入完整类描述信息，体积大、解码慢，且要求实体实现Serializable
+ * 2. 按类型标签 + 固定字段顺序编码：字段名不进入数据，只写非空字段(存在位图)
+ * 3. 变长整数(varint + zigzag)：小数值只占1~2个字节
+ * 4. 格式版本号：字段顺序变化时升级版本，旧版本数据解码失败按缓存未命中处理
+ *
+ * User、Order、OrderItem使用专用编码，空结果哨兵只占标签加写入时间；Map、List、Set、数组、分页结果、常用标量递归编码；
+ * 其余可序列化对象退化为JDK序列化。枚举按序号编码，只能在末尾追加常量。
+ * OrderItem.order是反向引用，不参与编码。
+ *
+ * @author 学习笔记
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xC7;
+    static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte BOOLEAN_TRUE = 4;
+    private static final byte BOOLEAN_FALSE = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte LOCAL_DATE_TIME = 8;
+    private static final byte LOCAL_DATE = 9;
+    private static final byte MAP = 10;
+    private static final byte LIST = 11;
+    private static final byte SET = 12;
+    private static final byte ARRAY = 13;
+    private static final byte PAGE = 14;
+    private static final byte USER = 20;
+    private static final byte ORDER = 21;
+    private static final byte ORDER_ITEM = 22;
+    private static final byte STAMPED = 30;
+    private static final byte NEGATIVE = 31;
+    private static final byte JDK = 127;
+
+    private static final User.UserStatus[] USER_STATUSES = User.UserStatus.values();
+    private static final Order.OrderStatus[] ORDER_STATUSES = Order.OrderStatus.values();
+
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        Output out = new Output(64);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        writeValue(out, value);
+        return out.toByteArray();
+    }
+
+    /**
+     * 反序列化，兼容切换序列化器之前写入的JDK序列化数据
+     */
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jdkSerializer.deserialize(bytes);
+        }
+        if (bytes.length < 2 || bytes[1] != VERSION) {
+            throw new SerializationException("Unsupported compact format version: " + (bytes.length < 2 ? -1 : bytes[1]));
+        }
+        try {
+            return readValue(new Input(bytes, 2));
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot deserialize compact cache value", e);
+        }
+    }
+
+    private void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            out.writeString(s);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeVarLong(zigzag(l));
+        } else if (value instanceof Integer i) {
+            out.writeByte(INTEGER);
+            out.writeVarLong(zigzag(i));
+        } else if (value instanceof Boolean b) {
+            out.writeByte(b ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(d));
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte(BIG_DECIMAL);
+            writeDecimal(out, decimal);
+        } else if (value instanceof LocalDateTime time) {
+            out.writeByte(LOCAL_DATE_TIME);
+            writeDateTime(out, time);
+        } else if (value instanceof LocalDate date) {
+            out.writeByte(LOCAL_DATE);
+            out.writeVarLong(zigzag(date.toEpochDay()));
+        } else if (value instanceof User user) {
+            out.writeByte(USER);
+            writeUser(out, user);
+        } else if (value instanceof Order order) {
+            out.writeByte(ORDER);
+            writeOrder(out, order);
+        } else if (value instanceof OrderItem item) {
+            out.writeByte(ORDER_ITEM);
+            writeOrderItem(out, item);
+        } else if (value instanceof RefreshAheadCache.Stamped stamped) {
+            out.writeByte(STAMPED);
+            out.writeVarLong(stamped.writtenAt());
+            writeValue(out, stamped.value());
+        } else if (value instanceof NegativeCachingCache.Miss miss) {
+            out.writeByte(NEGATIVE);
+            out.writeVarLong(miss.cachedAt());
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            writeElements(out, list);
+        } else if (value instanceof Set<?> set) {
+            out.writeByte(SET);
+            writeElements(out, set);
+        } else if (value instanceof Object[] array) {
+            out.writeByte(ARRAY);
+            writeElements(out, Arrays.asList(array));
+        } else if (value instanceof IPage<?> page) {
+            out.writeByte(PAGE);
+            // size为-1表示不分页，按zigzag编码
+            out.writeVarLong(zigzag(page.getCurrent()));
+            out.writeVarLong(zigzag(page.getSize()));
+            out.writeVarLong(zigzag(page.getTotal()));
+            writeElements(out, page.getRecords());
+        } else if (value instanceof Serializable) {
+            out.writeByte(JDK);
+            out.writeBytes(jdkSerializer.serialize(value));
+        } else {
+            throw new SerializationException("Cannot serialize " + value.getClass().getName()
+                    + ": not supported by compact format and not Serializable");
+        }
+    }
+
+    private Object readValue(Input in) {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> in.readString();
+            case LONG -> unzigzag(in.readVarLong());
+            case INTEGER -> (int) unzigzag(in.readVarLong());
+            case BOOLEAN_TRUE -> Boolean.TRUE;
+            case BOOLEAN_FALSE -> Boolean.FALSE;
+            case DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case BIG_DECIMAL -> readDecimal(in);
+            case LOCAL_DATE_TIME -> readDateTime(in);
+            case LOCAL_DATE -> LocalDate.ofEpochDay(unzigzag(in.readVarLong()));
+            case USER -> readUser(in);
+            case ORDER -> readOrder(in);
+            case ORDER_ITEM -> readOrderItem(in);
+            case STAMPED -> {
+                long writtenAt = in.readVarLong();
+                yield new RefreshAheadCache.Stamped(readValue(in), writtenAt);
+            }
+            case NEGATIVE -> new NegativeCachingCache.Miss(in.readVarLong());
+            case MAP -> {
+                int size = in.readVarInt();
+                Map<Object, Object> map = new LinkedHashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                yield map;
+            }
+            case LIST -> readElements(in, new ArrayList<>());
+            case SET -> readElements(in, new LinkedHashSet<>());
+            case ARRAY -> readElements(in, new ArrayList<>()).toArray();
+            case PAGE -> {
+                Page<Object> page = new Page<>(unzigzag(in.readVarLong()), unzigzag(in.readVarLong()),
+                        unzigzag(in.readVarLong()));
+                yield page.setRecords(readElements(in, new ArrayList<>()));
+            }
+            case JDK -> jdkSerializer.deserialize(in.readBytes());
+            default -> throw new IllegalStateException("Unknown type tag: " + tag);
+        };
+    }
+
+    /**
+     * User：存在位图 + 非空字段，字段顺序即格式
+     */
+    private void writeUser(Output out, User user) {
+        Object[] fields = {user.getId(), user.getUsername(), user.getPassword(), user.getEmail(),
+                user.getFirstName(), user.getLastName(), user.getStatus(), user.getCreatedAt(),
+                user.getUpdatedAt(), user.getDeleted()};
+        int presence = presence(fields);
+        out.writeVarInt(presence);
+        if (has(presence, 0)) out.writeVarLong(zigzag(user.getId()));
+        if (has(presence, 1)) out.writeString(user.getUsername());
+        if (has(presence, 2)) out.writeString(user.getPassword());
+        if (has(presence, 3)) out.writeString(user.getEmail());
+        if (has(presence, 4)) out.writeString(user.getFirstName());
+        if (has(presence, 5)) out.writeString(user.getLastName());
+        if (has(presence, 6)) out.writeVarInt(user.getStatus().ordinal());
+        if (has(presence, 7)) writeDateTime(out, user.getCreatedAt());
+        if (has(presence, 8)) writeDateTime(out, user.getUpdatedAt());
+        if (has(presence, 9)) out.writeVarLong(zigzag(user.getDeleted()));
+    }
+
+    private User readUser(Input in) {
+        int presence = in.readVarInt();
+        User user = new User();
+        user.setStatus(null);
+        user.setDeleted(null);
+        if (has(presence, 0)) user.setId(unzigzag(in.readVarLong()));
+        if (has(presence, 1)) user.setUsername(in.readString());
+        if (has(presence, 2)) user.setPassword(in.readString());
+        if (has(presence, 3)) user.setEmail(in.readString());
+        if (has(presence, 4)) user.setFirstName(in.readString());
+        if (has(presence, 5)) user.setLastName(in.readString());
+        if (has(presence, 6)) user.setStatus(USER_STATUSES[in.readVarInt()]);
+        if (has(presence, 7)) user.setCreatedAt(readDateTime(in));
+        if (has(presence, 8)) user.setUpdatedAt(readDateTime(in));
+        if (has(presence, 9)) user.setDeleted((int) unzigzag(in.readVarLong()));
+        return user;
+    }
+
+    private void writeOrder(Output out, Order order) {
+        Object[] fields = {order.getId(), order.getOrderNumber(), order.getUserId(), order.getTotalAmount(),
+                order.getStatus(), order.getRemark(), order.getCreatedAt(), order.getUpdatedAt(),
+                order.getDeleted(), order.getOrderItems()};
+        int presence = presence(fields);
+        out.writeVarInt(presence);
+        if (has(presence, 0)) out.writeVarLong(zigzag(order.getId()));
+        if (has(presence, 1)) out.writeString(order.getOrderNumber());
+        if (has(presence, 2)) out.writeVarLong(zigzag(order.getUserId()));
+        if (has(presence, 3)) writeDecimal(out, order.getTotalAmount());
+        if (has(presence, 4)) out.writeVarInt(order.getStatus().ordinal());
+        if (has(presence, 5)) out.writeString(order.getRemark());
+        if (has(presence, 6)) writeDateTime(out, order.getCreatedAt());
+        if (has(presence, 7)) writeDateTime(out, order.getUpdatedAt());
+        if (has(presence, 8)) out.writeVarLong(zigzag(order.getDeleted()));
+        if (has(presence, 9)) {
+            out.writeVarInt(order.getOrderItems().size());
+            for (OrderItem item : order.getOrderItems()) {
+                writeOrderItem(out, item);
+            }
+        }
+    }
+
+    private Order readOrder(Input in) {
+        int presence = in.readVarInt();
+        Order order = new Order();
+        order.setStatus(null);
+        order.setDeleted(null);
+        if (has(presence, 0)) order.setId(unzigzag(in.readVarLong()));
+        if (has(presence, 1)) order.setOrderNumber(in.readString());
+        if (has(presence, 2)) order.setUserId(unzigzag(in.readVarLong()));
+        if (has(presence, 3)) order.setTotalAmount(readDecimal(in));
+        if (has(presence, 4)) order.setStatus(ORDER_STATUSES[in.readVarInt()]);
+        if (has(presence, 5)) order.setRemark(in.readString());
+        if (has(presence, 6)) order.setCreatedAt(readDateTime(in));
+        if (has(presence, 7)) order.setUpdatedAt(readDateTime(in));
+        if (has(presence, 8)) order.setDeleted((int) unzigzag(in.readVarLong()));
+        if (has(presence, 9)) {
+            int size = in.readVarInt();
+            List<OrderItem> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(readOrderItem(in));
+            }
+            order.setOrderItems(items);
+        }
+        return order;
+    }
+
+    private void writeOrderItem(Output out, OrderItem item) {
+        Object[] fields = {item.getId(), item.getOrderId(), item.getProductId(), item.getProductName(),
+                item.getQuantity(), item.getPrice(), item.getTotalPrice(), item.getCreatedAt(),
+                item.getUpdatedAt(), item.getDeleted()};
+        int presence = presence(fields);
+        out.writeVarInt(presence);
+        if (has(presence, 0)) out.writeVarLong(zigzag(item.getId()));
+        if (has(presence, 1)) out.writeVarLong(zigzag(item.getOrderId()));
+        if (has(presence, 2)) out.writeVarLong(zigzag(item.getProductId()));
+        if (has(presence, 3)) out.writeString(item.getProductName());
+        if (has(presence, 4)) out.writeVarLong(zigzag(item.getQuantity()));
+        if (has(presence, 5)) writeDecimal(out, item.getPrice());
+        if (has(presence, 6)) writeDecimal(out, item.getTotalPrice());
+        if (has(presence, 7)) writeDateTime(out, item.getCreatedAt());
+        if (has(presence, 8)) writeDateTime(out, item.getUpdatedAt());
+        if (has(presence, 9)) out.writeVarLong(zigzag(item.getDeleted()));
+    }
+
+    private OrderItem readOrderItem(Input in) {
+        int presence = in.readVarInt();
+        OrderItem item = new OrderItem();
+        item.setDeleted(null);
+        if (has(presence, 0)) item.setId(unzigzag(in.readVarLong()));
+        if (has(presence, 1)) item.setOrderId(unzigzag(in.readVarLong()));
+        if (has(presence, 2)) item.setProductId(unzigzag(in.readVarLong()));
+        if (has(presence, 3)) item.setProductName(in.readString());
+        if (has(presence, 4)) item.setQuantity((int) unzigzag(in.readVarLong()));
+        if (has(presence, 5)) item.setPrice(readDecimal(in));
+        if (has(presence, 6)) item.setTotalPrice(readDecimal(in));
+        if (has(presence, 7)) item.setCreatedAt(readDateTime(in));
+        if (has(presence, 8)) item.setUpdatedAt(readDateTime(in));
+        if (has(presence, 9)) item.setDeleted((int) unzigzag(in.readVarLong()));
+        return item;
+    }
+
+    private void writeElements(Output out, Collection<?> elements) {
+        out.writeVarInt(elements.size());
+        for (Object element : elements) {
+            writeValue(out, element);
+        }
+    }
+
+    private <C extends Collection<Object>> C readElements(Input in, C target) {
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            target.add(readValue(in));
+        }
+        return target;
+    }
+
+    /**
+     * BigDecimal：精度(zigzag) + 非标度值的补码字节
+     */
+    private static void writeDecimal(Output out, BigDecimal decimal) {
+        out.writeVarLong(zigzag(decimal.scale()));
+        out.writeBytes(decimal.unscaledValue().toByteArray());
+    }
+
+    private static BigDecimal readDecimal(Input in) {
+        int scale = (int) unzigzag(in.readVarLong());
+        return new BigDecimal(new BigInteger(in.readBytes()), scale);
+    }
+
+    /**
+     * LocalDateTime：按UTC换算的秒数 + 纳秒，仅用于无时区的本地时间还原
+     */
+    private static void writeDateTime(Output out, LocalDateTime time) {
+        out.writeVarLong(zigzag(time.toEpochSecond(ZoneOffset.UTC)));
+        out.writeVarInt(time.getNano());
+    }
+
+    private static LocalDateTime readDateTime(Input in) {
+        long seconds = unzigzag(in.readVarLong());
+        return LocalDateTime.ofEpochSecond(seconds, in.readVarInt(), ZoneOffset.UTC);
+    }
+
+    private static int presence(Object[] fields) {
+        int presence = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                presence |= 1 << i;
+            }
+        }
+        return presence;
+    }
+
+    private static boolean has(int presence, int field) {
+        return (presence & (1 << field)) != 0;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int capacity(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+
+    /**
+     * 可扩容的字节输出
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int position;
+
+        Output(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+    }
+
+    /**
+     * 字节输入
+     */
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalStateException("Malformed varint");
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        byte[] readBytes() {
+            int length = readVarInt();
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
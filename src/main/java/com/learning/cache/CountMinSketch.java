@@ -0,0 +1,75 @@
+package com.learning.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch频率估计
+ * 
+ * 面试重点知识点：
+ * 1. 用固定大小的计数矩阵(depth × width)估计任意key的出现次数，内存与key数量无关
+ * 2. 每行一个哈希函数，估计值取各行计数的最小值，只会高估不会低估
+ * 3. 无锁：计数器保存在AtomicLongArray中，原子自增
+ * 4. 衰减：定期将所有计数减半，让历史热点逐渐淡出
+ * 
+ * @author 学习笔记
+ */
+public class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private final AtomicLongArray table;
+    private final int width;
+    private final int mask;
+
+    public CountMinSketch(int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("width must be positive: " + width);
+        }
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = this.width - 1;
+        this.table = new AtomicLongArray(DEPTH * this.width);
+    }
+
+    /**
+     * 计数加一，返回加一后的估计值
+     */
+    public long increment(Object key) {
+        long hash = CountingBloomFilter.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, table.incrementAndGet(index(i, h1, h2)));
+        }
+        return estimate;
+    }
+
+    public long estimate(Object key) {
+        long hash = CountingBloomFilter.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, table.get(index(i, h1, h2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * 所有计数减半
+     * 面试重点：各计数器逐个原子减半，衰减期间的并发自增不会丢失
+     */
+    public void halve() {
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    public long memoryBytes() {
+        return (long) table.length() * Long.BYTES;
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * width + ((h1 + row * h2) & mask);
+    }
+}
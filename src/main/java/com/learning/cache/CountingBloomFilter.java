@@ -0,0 +1,157 @@
+package com.learning.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 计数布隆过滤器
+ * 
+ * 面试重点知识点：
+ * 1. 布隆过滤器原理：k个哈希函数映射到m个位置，判断"一定不存在"或"可能存在"
+ * 2. 计数布隆过滤器：每个位置用4位计数器代替1个bit，从而支持删除
+ * 3. 参数计算：m = -n·ln(p)/(ln2)²，k = m/n·ln2
+ * 4. 双重哈希(Kirsch-Mitzenmacher)：用两个哈希值模拟k个哈希函数
+ * 
+ * 计数器按16个一组打包在long中，通过CAS无锁更新；计数器饱和(15)后不再增减。
+ * 
+ * @author 学习笔记
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long COUNTER_MASK = 0xFL;
+
+    private final AtomicLongArray words;
+    private final int counterCount;
+    private final int hashCount;
+    private final long capacity;
+    private final double targetFalsePositiveRate;
+    private final LongAdder size = new LongAdder();
+
+    public CountingBloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        long counters = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        this.words = new AtomicLongArray(wordCount);
+        this.counterCount = wordCount * COUNTERS_PER_WORD;
+        this.hashCount = Math.max(1, (int) Math.round((double) counterCount / capacity * Math.log(2)));
+        this.capacity = capacity;
+        this.targetFalsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * 预估所需内存字节数，用于容量规划
+     */
+    public static long estimateMemoryBytes(long capacity, double falsePositiveRate) {
+        long counters = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        return (counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD * Long.BYTES;
+    }
+
+    public void add(Object key) {
+        long hash = hash64(key);
+        for (int i = 0; i < hashCount; i++) {
+            updateCounter(index(hash, i), 1);
+        }
+        size.increment();
+    }
+
+    /**
+     * 删除元素，调用方需保证该元素之前确实被添加过，否则会产生误删
+     */
+    public void remove(Object key) {
+        long hash = hash64(key);
+        for (int i = 0; i < hashCount; i++) {
+            updateCounter(index(hash, i), -1);
+        }
+        size.decrement();
+    }
+
+    public boolean mightContain(Object key) {
+        long hash = hash64(key);
+        for (int i = 0; i < hashCount; i++) {
+            if (counterAt(index(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按当前元素数量估算的误判率：(1 - e^(-kn/m))^k
+     */
+    public double expectedFalsePositiveRate() {
+        double n = Math.max(0, size.sum());
+        return Math.pow(1 - Math.exp(-hashCount * n / counterCount), hashCount);
+    }
+
+    public long size() { return Math.max(0, size.sum()); }
+    public long getCapacity() { return capacity; }
+    public int getHashCount() { return hashCount; }
+    public double getTargetFalsePositiveRate() { return targetFalsePositiveRate; }
+    public long memoryBytes() { return (long) words.length() * Long.BYTES; }
+
+    private int index(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int combined = h1 + i * h2;
+        return Math.floorMod(combined, counterCount);
+    }
+
+    private int counterAt(int index) {
+        int shift = (index % COUNTERS_PER_WORD) * 4;
+        return (int) ((words.get(index / COUNTERS_PER_WORD) >>> shift) & COUNTER_MASK);
+    }
+
+    private void updateCounter(int index, int delta) {
+        int wordIndex = index / COUNTERS_PER_WORD;
+        int shift = (index % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long word = words.get(wordIndex);
+            long counter = (word >>> shift) & COUNTER_MASK;
+            if (counter == COUNTER_MASK || (delta < 0 && counter == 0)) {
+                return;
+            }
+            long updated = (word & ~(COUNTER_MASK << shift)) | ((counter + delta) << shift);
+            if (words.compareAndSet(wordIndex, word, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 64位哈希：数值直接混淆，字符串使用FNV-1a后再混淆
+     */
+    static long hash64(Object key) {
+        long h;
+        if (key instanceof Long || key instanceof Integer || key instanceof Short) {
+            h = ((Number) key).longValue();
+        } else if (key instanceof CharSequence chars) {
+            h = 0xcbf29ce484222325L;
+            for (byte b : chars.toString().getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001b3L;
+            }
+        } else {
+            h = key.hashCode();
+        }
+        return mix64(h);
+    }
+
+    /**
+     * MurmurHash3的fmix64，保证低位也充分混淆
+     */
+    static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
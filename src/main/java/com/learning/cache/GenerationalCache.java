@@ -0,0 +1,33 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * 版本化命名空间缓存
+ * 
+ * 面试重点知识点：
+ * 1. @CacheEvict(allEntries = true)在RedisCache上是按前缀SCAN + DEL，数据量大时代价高且会清空缓存
+ * 2. key前缀带上代数后，清空缓存只需代数加一，新请求自动落到新的命名空间
+ * 
+ * 只有前缀由CacheGenerations计算的缓存才能使用该装饰器，否则清空操作不会生效。
+ * 
+ * @author 学习笔记
+ */
+public class GenerationalCache extends CacheDecorator {
+
+    private final CacheGenerations generations;
+
+    public GenerationalCache(Cache delegate, CacheGenerations generations) {
+        super(delegate);
+        this.generations = generations;
+    }
+
+    @Override
+    public void clear() {
+        generations.bump(getName());
+    }
+
+    public long getGeneration() {
+        return generations.current(getName());
+    }
+}
@@ -0,0 +1,58 @@
+package com.learning.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 热点key探测器：按缓存名称维护HotKeyTracker
+ * 
+ * 面试重点知识点：
+ * 1. 每个缓存独立统计，互不干扰
+ * 2. 统计结果可用于本地缓存常驻与TTL延长
+ * 
+ * @author 学习笔记
+ */
+public class HotKeyDetector {
+
+    private final List<String> cacheNames;
+    private final int sampleRate;
+    private final int sketchWidth;
+    private final int topK;
+    private final long minHotCount;
+    private final Map<String, HotKeyTracker> trackers = new ConcurrentHashMap<>();
+
+    public HotKeyDetector(List<String> cacheNames, int sampleRate, int sketchWidth, int topK, long minHotCount) {
+        this.cacheNames = cacheNames;
+        this.sampleRate = sampleRate;
+        this.sketchWidth = sketchWidth;
+        this.topK = topK;
+        this.minHotCount = minHotCount;
+    }
+
+    /**
+     * 为配置的缓存加上热点统计层
+     */
+    public CacheLayer layer() {
+        return cache -> cacheNames.contains(cache.getName())
+                ? new HotKeyTrackingCache(cache, getTracker(cache.getName()), sampleRate) : cache;
+    }
+
+    public HotKeyTracker getTracker(String cacheName) {
+        return trackers.computeIfAbsent(cacheName, name -> new HotKeyTracker(sketchWidth, topK, minHotCount));
+    }
+
+    public boolean isHot(String cacheName, Object key) {
+        HotKeyTracker tracker = trackers.get(cacheName);
+        return tracker != null && tracker.isHot(key);
+    }
+
+    public Map<String, HotKeyTracker> getTrackers() {
+        return Collections.unmodifiableMap(trackers);
+    }
+
+    public void decay() {
+        trackers.values().forEach(HotKeyTracker::decay);
+    }
+}
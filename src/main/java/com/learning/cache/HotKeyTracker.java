@@ -0,0 +1,126 @@
+package com.learning.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个缓存的热点key统计：Count-Min Sketch + Top-K小顶堆
+ * 
+ * 面试重点知识点：
+ * 1. Sketch负责所有key的频率估计，小顶堆只保留频率最高的K个key
+ * 2. 堆顶是K个热点中频率最低的，新key的估计值超过堆顶才需要加锁更新堆
+ * 3. 绝大多数访问只做无锁的Sketch自增
+ * 
+ * @author 学习笔记
+ */
+public class HotKeyTracker {
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final long minHotCount;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<HotKey> heap = new PriorityQueue<>(Comparator.comparingLong(HotKey::count));
+    private final Map<Object, HotKey> index = new HashMap<>();
+    private final LongAdder sampleCount = new LongAdder();
+    private volatile long threshold;
+
+    public HotKeyTracker(int sketchWidth, int capacity, long minHotCount) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.sketch = new CountMinSketch(sketchWidth);
+        this.capacity = capacity;
+        this.minHotCount = minHotCount;
+    }
+
+    /**
+     * 记录一次访问
+     */
+    public void record(Object key) {
+        sampleCount.increment();
+        long count = sketch.increment(key);
+        if (count <= threshold) {
+            return;
+        }
+        lock.lock();
+        try {
+            HotKey existing = index.remove(key);
+            if (existing != null) {
+                heap.remove(existing);
+            }
+            HotKey hotKey = new HotKey(key, count);
+            heap.add(hotKey);
+            index.put(key, hotKey);
+            if (heap.size() > capacity) {
+                index.remove(heap.poll().key());
+            }
+            threshold = heap.size() < capacity ? 0 : heap.peek().count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 估计频率达到热点门槛且不低于Top-K中最小频率
+     */
+    public boolean isHot(Object key) {
+        long count = sketch.estimate(key);
+        return count >= minHotCount && count >= threshold;
+    }
+
+    /**
+     * 按频率从高到低返回热点key
+     */
+    public List<HotKey> topKeys() {
+        List<HotKey> result;
+        lock.lock();
+        try {
+            result = new ArrayList<>(heap);
+        } finally {
+            lock.unlock();
+        }
+        result.removeIf(hotKey -> hotKey.count() < minHotCount);
+        result.sort(Comparator.comparingLong(HotKey::count).reversed());
+        return result;
+    }
+
+    /**
+     * 衰减：Sketch与堆中的计数同时减半，计数归零的key移出堆
+     */
+    public void decay() {
+        sketch.halve();
+        lock.lock();
+        try {
+            List<HotKey> decayed = new ArrayList<>(heap.size());
+            for (HotKey hotKey : heap) {
+                if (hotKey.count() > 1) {
+                    decayed.add(new HotKey(hotKey.key(), hotKey.count() >>> 1));
+                }
+            }
+            heap.clear();
+            index.clear();
+            for (HotKey hotKey : decayed) {
+                heap.add(hotKey);
+                index.put(hotKey.key(), hotKey);
+            }
+            threshold = heap.size() < capacity ? 0 : heap.peek().count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSampleCount() { return sampleCount.sum(); }
+    public long getMemoryBytes() { return sketch.memoryBytes(); }
+
+    /**
+     * 热点key及其估计频率
+     */
+    public record HotKey(Object key, long count) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按采样率记录读取key的缓存
+ * 
+ * 面试重点知识点：
+ * 1. 采样：每N次读取记录一次，热点key的相对排名不受影响，统计开销降为1/N
+ * 
+ * @author 学习笔记
+ */
+public class HotKeyTrackingCache extends CacheDecorator {
+
+    private final HotKeyTracker tracker;
+    private final int sampleRate;
+
+    public HotKeyTrackingCache(Cache delegate, HotKeyTracker tracker, int sampleRate) {
+        super(delegate);
+        this.tracker = tracker;
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        sample(key);
+        return delegate.get(key);
+    }
+
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        keys.forEach(this::sample);
+        return BatchCache.getAll(delegate, keys);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        sample(key);
+        return delegate.get(key, valueLoader);
+    }
+
+    public HotKeyTracker getTracker() {
+        return tracker;
+    }
+
+    private void sample(Object key) {
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            tracker.record(key);
+        }
+    }
+}
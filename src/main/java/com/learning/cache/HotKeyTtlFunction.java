@@ -0,0 +1,37 @@
+package com.learning.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * 热点key延长TTL
+ * 
+ * 面试重点知识点：
+ * 1. 热点key过期会引发缓存击穿，写入时识别为热点的key按倍数延长过期时间
+ * 2. 包装原有的TtlFunction，随机抖动等策略保持不变
+ * 
+ * @author 学习笔记
+ */
+public class HotKeyTtlFunction implements RedisCacheWriter.TtlFunction {
+
+    private final RedisCacheWriter.TtlFunction delegate;
+    private final Predicate<Object> hotKey;
+    private final double multiplier;
+
+    public HotKeyTtlFunction(RedisCacheWriter.TtlFunction delegate, Predicate<Object> hotKey, double multiplier) {
+        this.delegate = delegate;
+        this.hotKey = hotKey;
+        this.multiplier = multiplier;
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        Duration ttl = delegate.getTimeToLive(key, value);
+        if (ttl.isZero() || ttl.isNegative() || !hotKey.test(key)) {
+            return ttl;
+        }
+        return Duration.ofMillis((long) (ttl.toMillis() * multiplier));
+    }
+}
@@ -0,0 +1,41 @@
+package com.learning.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进程内回环失效通道
+ * 
+ * 面试重点知识点：
+ * 1. 共享同一个通道列表的多个实例相互模拟集群节点，用于测试与单机部署
+ * 
+ * @author 学习笔记
+ */
+public class InMemoryCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    private final List<InMemoryCacheInvalidationBus> channel;
+
+    public InMemoryCacheInvalidationBus(Duration flushInterval) {
+        this(flushInterval, new CopyOnWriteArrayList<>());
+    }
+
+    public InMemoryCacheInvalidationBus(Duration flushInterval, List<InMemoryCacheInvalidationBus> channel) {
+        super(flushInterval);
+        this.channel = channel;
+        channel.add(this);
+    }
+
+    @Override
+    protected void send(InvalidationBatch batch) {
+        for (InMemoryCacheInvalidationBus bus : channel) {
+            bus.receive(batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        channel.remove(this);
+    }
+}
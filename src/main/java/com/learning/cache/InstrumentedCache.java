@@ -0,0 +1,181 @@
+package com.learning.cache;
+
+import com.learning.metrics.LatencyHistogram;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带统计的缓存
+ * 
+ * 面试重点知识点：
+ * 1. 缓存监控指标：命中率、写入、清除、回源耗时、条目大小
+ * 2. LongAdder：分段累加，高并发计数无CAS竞争
+ * 3. 回源耗时的采集：sync模式直接计时加载器；非sync模式下，
+ *    CacheInterceptor在同一线程上按"get未命中 → 执行方法 → put"的顺序调用，
+ *    用ThreadLocal记录未命中时刻，在随后的put中计算耗时
+ * 4. 与Micrometer集成：指标名沿用cache.gets/cache.puts/cache.evictions
+ * 5. 采样统计条目大小：对象图估算有成本，每16次写入随机估算一次，平均值与最大值取自采样
+ * 
+ * @author 学习笔记
+ */
+public class InstrumentedCache extends CacheDecorator {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final int SIZE_SAMPLE_INTERVAL = 16;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+    private final LongAdder entryBytes = new LongAdder();
+    private final LongAdder sizedPuts = new LongAdder();
+    private final LongAccumulator maxEntryBytes = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final ThreadLocal<PendingLoad> pendingLoad = new ThreadLocal<>();
+
+    public InstrumentedCache(Cache delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null) {
+            hits.increment();
+            pendingLoad.remove();
+        } else {
+            misses.increment();
+            pendingLoad.set(new PendingLoad(key, System.nanoTime()));
+        }
+        return wrapper;
+    }
+
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Map<Object, ValueWrapper> found = BatchCache.getAll(delegate, keys);
+        hits.add(found.size());
+        misses.add(keys.size() - found.size());
+        return found;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            // 先计入未命中，加载器抛出异常时同样算一次未命中
+            misses.increment();
+            long start = System.nanoTime();
+            try {
+                return valueLoader.call();
+            } finally {
+                loadLatency.record(System.nanoTime() - start);
+            }
+        });
+        if (loaded[0]) {
+            recordPut(value);
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        PendingLoad pending = pendingLoad.get();
+        if (pending != null) {
+            pendingLoad.remove();
+            if (pending.key().equals(key)) {
+                loadLatency.record(System.nanoTime() - pending.startNanos());
+            }
+        }
+        delegate.put(key, value);
+        recordPut(value);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        BatchCache.putAll(delegate, entries);
+        entries.values().forEach(this::recordPut);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictions.increment();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        clears.increment();
+    }
+
+    /**
+     * 注册Micrometer指标
+     */
+    public void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("cache", getName());
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tags(tags).tag("result", "hit")
+                .description("缓存命中次数").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tags(tags).tag("result", "miss")
+                .description("缓存未命中次数").register(registry);
+        FunctionCounter.builder("cache.puts", puts, LongAdder::sum).tags(tags).register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tags(tags).register(registry);
+        FunctionCounter.builder("cache.clears", clears, LongAdder::sum).tags(tags).register(registry);
+        Gauge.builder("cache.entry.size", this, InstrumentedCache::getAverageEntryBytes).tags(tags)
+                .baseUnit("bytes").description("估算的平均条目大小").register(registry);
+        for (double percentile : PERCENTILES) {
+            Gauge.builder("cache.load.duration", loadLatency, h -> h.getValueAtPercentile(percentile) / 1e9)
+                    .tags(tags).tag("quantile", String.valueOf(percentile / 100))
+                    .baseUnit("seconds").description("缓存回源耗时").register(registry);
+        }
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getPutCount() { return puts.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public long getClearCount() { return clears.sum(); }
+    public long getMaxEntryBytes() { return maxEntryBytes.get(); }
+    public LatencyHistogram getLoadLatency() { return loadLatency; }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total > 0 ? (double) hitCount / total * 100 : 0;
+    }
+
+    public double getAverageEntryBytes() {
+        long sized = sizedPuts.sum();
+        return sized > 0 ? (double) entryBytes.sum() / sized : 0;
+    }
+
+    private void recordPut(Object value) {
+        puts.increment();
+        if (ThreadLocalRandom.current().nextInt(SIZE_SAMPLE_INTERVAL) != 0) {
+            return;
+        }
+        long bytes = ObjectSizeEstimator.estimate(value);
+        sizedPuts.increment();
+        entryBytes.add(bytes);
+        maxEntryBytes.accumulate(bytes);
+    }
+
+    /**
+     * 未命中时刻，用于计算非sync模式下的回源耗时
+     */
+    private record PendingLoad(Object key, long startNanos) {
+    }
+}
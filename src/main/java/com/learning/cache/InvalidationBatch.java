@@ -0,0 +1,17 @@
+package com.learning.cache;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个刷新周期内合并后的失效消息
+ * 
+ * @param nodeId  发送节点
+ * @param evicted 缓存名称 -> 失效的key集合
+ * @param cleared 缓存名称 -> 清空后的缓存代数
+ * @author 学习笔记
+ */
+public record InvalidationBatch(String nodeId,
+                                Map<String, Set<Object>> evicted,
+                                Map<String, Long> cleared) {
+}
@@ -0,0 +1,49 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Map;
+
+/**
+ * 写操作后广播失效消息的缓存
+ * 
+ * 面试重点知识点：
+ * 1. 包在本地缓存之外：本节点的put/evict/clear照常执行，同时通知其他节点清除本地副本
+ * 2. put也需要广播：其他节点的本地缓存可能持有同一key的旧值
+ * 
+ * @author 学习笔记
+ */
+public class InvalidationBroadcastingCache extends CacheDecorator {
+
+    private final CacheInvalidationBus bus;
+
+    public InvalidationBroadcastingCache(Cache delegate, CacheInvalidationBus bus) {
+        super(delegate);
+        this.bus = bus;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        bus.publishEvict(getName(), key);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        BatchCache.putAll(delegate, entries);
+        entries.keySet().forEach(key -> bus.publishEvict(getName(), key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        bus.publishEvict(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        GenerationalCache generational = unwrap(delegate, GenerationalCache.class);
+        bus.publishClear(getName(), generational != null ? generational.getGeneration() : 0L);
+    }
+}
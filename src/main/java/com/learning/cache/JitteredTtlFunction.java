@@ -0,0 +1,50 @@
+package com.learning.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带随机抖动的过期时间
+ * 
+ * 面试重点知识点：
+ * 1. 缓存雪崩：大量key在同一时刻过期，请求集中打到数据库
+ * 2. 解决方案：在基础TTL上叠加随机抖动，使过期时间分散开
+ * 3. RedisCacheWriter.TtlFunction：按条目计算TTL(Spring Data Redis 3.2+)
+ * 
+ * 实际TTL均匀分布在 [ttl × (1 - jitter), ttl × (1 + jitter)] 区间内，平均值仍为基础TTL。
+ * 
+ * @author 学习笔记
+ */
+public class JitteredTtlFunction implements RedisCacheWriter.TtlFunction {
+
+    private final Duration timeToLive;
+    private final double jitter;
+
+    public JitteredTtlFunction(Duration timeToLive, double jitter) {
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("jitter must be in [0, 1): " + jitter);
+        }
+        this.timeToLive = timeToLive;
+        this.jitter = jitter;
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        long baseMillis = timeToLive.toMillis();
+        if (jitter == 0 || baseMillis <= 0) {
+            return timeToLive;
+        }
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis(Math.max(1, (long) (baseMillis * factor)));
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+}
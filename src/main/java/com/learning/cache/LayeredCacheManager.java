@@ -0,0 +1,84 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 分层缓存管理器
+ * 
+ * 面试重点知识点：
+ * 1. CacheManager的扩展方式
+ * 2. 装饰器链的组装：先注册的层位于内侧
+ * 3. 缓存实例的懒加载与复用
+ * 
+ * @author 学习笔记
+ */
+public class LayeredCacheManager implements CacheManager {
+
+    private final CacheManager target;
+    private final List<CacheLayer> layers;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public LayeredCacheManager(CacheManager target, List<CacheLayer> layers) {
+        this.target = target;
+        this.layers = List.copyOf(layers);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(target.getCacheNames());
+        names.addAll(caches.keySet());
+        return names;
+    }
+
+    /**
+     * 查找指定缓存装饰链中的某一层
+     */
+    public <T extends Cache> T unwrap(String name, Class<T> type) {
+        Cache cache = getCache(name);
+        return cache != null ? CacheDecorator.unwrap(cache, type) : null;
+    }
+
+    /**
+     * 只在已创建的缓存中查找，不会为未知的缓存名称创建缓存
+     * 面试重点：处理外部消息时使用，避免按消息中的名称无限创建缓存
+     */
+    public <T extends Cache> T unwrapExisting(String name, Class<T> type) {
+        Cache cache = caches.get(name);
+        return cache != null ? CacheDecorator.unwrap(cache, type) : null;
+    }
+
+    /**
+     * 获取底层的缓存管理器
+     */
+    public CacheManager getTarget() {
+        return target;
+    }
+
+    private Cache createCache(String name) {
+        Cache cache = target.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        for (CacheLayer layer : layers) {
+            cache = layer.decorate(cache);
+        }
+        return cache;
+    }
+}
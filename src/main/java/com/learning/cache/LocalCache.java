@@ -0,0 +1,658 @@
+package com.learning.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * 进程内本地缓存
+ *
+ * 面试重点知识点：
+ * 1. W-TinyLFU淘汰：新条目先进入约占1%容量的LRU窗口，被挤出窗口时与主区的淘汰候选比较访问频率，
+ *    频率更高者留下；只访问一次的扫描流量(如顺序遍历ID)停留在窗口内被淘汰，不会冲掉热点数据
+ * 2. 主区为分段LRU(SLRU)：试用区(probation)中再次被访问的条目晋升到保护区(protected, 占主区80%)
+ * 3. 频率草图：Count-Min Sketch记录访问频率，每累计10倍预期条目数的访问将计数减半，让历史热点淡出
+ * 4. 按权重限制容量：权重通常是估算的条目字节数，大对象占用更多容量
+ * 5. 过期策略：写入后固定时间过期(expireAfterWrite)，读取时惰性清理
+ * 6. 热点key常驻：被固定的key不参与容量淘汰，仍按写入时间过期；常驻条目的总权重超过容量一半时常驻暂时失效，
+ *    避免大对象被固定后普通条目无处存放
+ * 7. 热启动：可挂载上次停机前的快照，未命中时从快照中按需恢复条目，写入与清除会使快照中的旧值失效；
+ *    值的反序列化在锁外进行
+ * 8. 读不加锁：命中通过ConcurrentHashMap查找，访问记录写入按线程分条的有损环形缓冲区，
+ *    写入时或缓冲区半满时再在锁内批量回放(更新频率草图与LRU顺序)；缓冲区满或抢不到锁时直接丢弃，
+ *    频率与顺序只是近似值，少量丢失不影响淘汰质量
+ *
+ * 存储的值由调用方保证非null，null值需由上层转换为占位对象。
+ *
+ * @author 学习笔记
+ */
+public class LocalCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final String name;
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final long expireAfterWriteNanos;
+    private final ToLongBiFunction<Object, Object> weigher;
+    private final LongSupplier ticker;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentHashMap<Object, Entry> data = new ConcurrentHashMap<>();
+    private final ReadBuffer readBuffer = new ReadBuffer();
+    private final Set<Object> restoring = new HashSet<>();
+    private final LinkedHashMap<Object, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Object, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Object, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final CountMinSketch sketch;
+    private final long sampleSize;
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+    private final LongAdder restoredCount = new LongAdder();
+    private volatile LocalCacheSnapshot snapshot;
+    private volatile Set<Object> pinnedKeys = Set.of();
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private long pinnedWeight;
+    private long samples;
+
+    /**
+     * 按条目数限制容量，每个条目权重为1
+     */
+    public LocalCache(String name, long maximumSize, Duration expireAfterWrite) {
+        this(name, maximumSize, maximumSize, expireAfterWrite, (key, value) -> 1, System::nanoTime);
+    }
+
+    LocalCache(String name, long maximumSize, Duration expireAfterWrite, LongSupplier ticker) {
+        this(name, maximumSize, maximumSize, expireAfterWrite, (key, value) -> 1, ticker);
+    }
+
+    /**
+     * 按估算的字节数限制容量
+     *
+     * @param expectedEntries 预期常驻条目数，用于确定频率草图的大小
+     */
+    public static LocalCache weighedByBytes(String name, long maximumBytes, long expectedEntries,
+                                            Duration expireAfterWrite) {
+        return new LocalCache(name, maximumBytes, expectedEntries, expireAfterWrite, LocalCache::estimateBytes,
+                System::nanoTime);
+    }
+
+    LocalCache(String name, long maximumWeight, long expectedEntries, Duration expireAfterWrite,
+               ToLongBiFunction<Object, Object> weigher, LongSupplier ticker) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeight);
+        }
+        if (expectedEntries <= 0) {
+            throw new IllegalArgumentException("expectedEntries must be positive: " + expectedEntries);
+        }
+        this.name = name;
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 4 / 5;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.weigher = weigher;
+        this.ticker = ticker;
+        // 每行约4倍预期条目数的计数器，衰减周期内的哈希冲突噪声远小于热点key的真实频率
+        long entries = Math.min(expectedEntries, 1 << 22);
+        this.sketch = new CountMinSketch((int) entries * 4);
+        this.sampleSize = 10 * entries;
+    }
+
+    /**
+     * 查询缓存：不加锁，访问记录进入读缓冲区，稍后在锁内更新频率与分段位置；过期条目会被顺带清理
+     */
+    public Object get(Object key) {
+        Entry entry = data.get(key);
+        afterRead(key);
+        if (entry == null) {
+            return snapshot != null ? restore(key) : null;
+        }
+        if (entry.isExpired(ticker.getAsLong())) {
+            lock.lock();
+            try {
+                if (data.get(key) == entry) {
+                    remove(key);
+                    expirationCount.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * 写入缓存：新条目进入窗口区，超出容量时由频率决定淘汰窗口候选还是主区条目
+     */
+    public void put(Object key, Object value) {
+        long weight = weigher.applyAsLong(key, value);
+        long expireAt = ticker.getAsLong() + expireAfterWriteNanos;
+        lock.lock();
+        try {
+            drainReads();
+            recordAccess(key);
+            discardSnapshot(key);
+            Entry existing = find(key);
+            if (weight > maximumWeight) {
+                // 单个条目超过总容量，不缓存，同时丢弃旧值避免读到旧数据
+                if (existing != null) {
+                    remove(key);
+                }
+                rejectionCount.increment();
+                return;
+            }
+            if (existing != null) {
+                adjustWeight(existing.segment, weight - existing.weight);
+                if (pinnedKeys.contains(key)) {
+                    pinnedWeight += weight - existing.weight;
+                }
+                existing.weight = weight;
+                existing.expireAt = expireAt;
+                existing.value = value;
+                evictFromWindow();
+                evictFromMain();
+            } else {
+                insert(key, value, weight, expireAt);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(Object key) {
+        lock.lock();
+        try {
+            drainReads();
+            discardSnapshot(key);
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            drainReads();
+            detachSnapshot();
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+            windowWeight = 0;
+            probationWeight = 0;
+            protectedWeight = 0;
+            pinnedWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long size() {
+        lock.lock();
+        try {
+            return window.size() + probation.size() + protectedSegment.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWeightedSize() {
+        lock.lock();
+        try {
+            return windowWeight + probationWeight + protectedWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按热度导出未过期的条目：保护区、试用区、窗口区依次排列，每个分段内最近访问的在前
+     */
+    public List<HotEntry> hottestEntries(int limit) {
+        List<HotEntry> hottest = new ArrayList<>();
+        lock.lock();
+        try {
+            drainReads();
+            long now = ticker.getAsLong();
+            for (LinkedHashMap<Object, Entry> segment : List.of(protectedSegment, probation, window)) {
+                List<Map.Entry<Object, Entry>> entries = new ArrayList<>(segment.entrySet());
+                for (int i = entries.size() - 1; i >= 0 && hottest.size() < limit; i--) {
+                    Entry entry = entries.get(i).getValue();
+                    if (!entry.isExpired(now)) {
+                        hottest.add(new HotEntry(entries.get(i).getKey(), entry.value, entry.expireAt - now));
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return hottest;
+    }
+
+    /**
+     * 挂载快照，此后未命中的key先尝试从快照恢复
+     */
+    public void attachSnapshot(LocalCacheSnapshot snapshot) {
+        lock.lock();
+        try {
+            detachSnapshot();
+            this.snapshot = snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 设置常驻key，常驻条目按权重计入预算，总权重超过容量的一半时不再受保护
+     */
+    public void setPinnedKeys(Set<Object> keys) {
+        Set<Object> pinned = Set.copyOf(keys);
+        lock.lock();
+        try {
+            long weight = 0;
+            for (LinkedHashMap<Object, Entry> segment : List.of(window, probation, protectedSegment)) {
+                for (Map.Entry<Object, Entry> entry : segment.entrySet()) {
+                    if (pinned.contains(entry.getKey())) {
+                        weight += entry.getValue().weight;
+                    }
+                }
+            }
+            this.pinnedKeys = pinned;
+            this.pinnedWeight = weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Set<Object> getPinnedKeys() { return pinnedKeys; }
+    public String getName() { return name; }
+    public long getMaximumWeight() { return maximumWeight; }
+    public long getEvictionCount() { return evictionCount.sum(); }
+    public long getExpirationCount() { return expirationCount.sum(); }
+    public long getRejectionCount() { return rejectionCount.sum(); }
+    public long getRestoredCount() { return restoredCount.sum(); }
+
+    /**
+     * 从快照恢复单个条目，保留快照中剩余的过期时间；快照中的条目全部取完后卸载快照。
+     * 字节在锁内取出，反序列化在锁外进行；期间该key被写入、清除或缓存被清空时放弃恢复，按未命中处理
+     */
+    private Object restore(Object key) {
+        LocalCacheSnapshot source;
+        LocalCacheSnapshot.Slice slice;
+        lock.lock();
+        try {
+            source = snapshot;
+            if (source == null || data.containsKey(key)) {
+                return null;
+            }
+            slice = source.take(key);
+            if (source.remaining() == 0) {
+                detachSnapshot();
+            }
+            if (slice == null) {
+                return null;
+            }
+            restoring.add(key);
+        } finally {
+            lock.unlock();
+        }
+
+        LocalCacheSnapshot.Restored restored = source.decode(slice);
+        long weight = restored != null ? weigher.applyAsLong(key, restored.value()) : 0;
+        lock.lock();
+        try {
+            if (!restoring.remove(key) || restored == null || data.containsKey(key)) {
+                return null;
+            }
+            if (weight <= maximumWeight) {
+                insert(key, restored.value(), weight, ticker.getAsLong() + restored.remainingNanos());
+                restoredCount.increment();
+            }
+            return restored.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discardSnapshot(Object key) {
+        restoring.remove(key);
+        if (snapshot != null) {
+            snapshot.discard(key);
+        }
+    }
+
+    private void detachSnapshot() {
+        restoring.clear();
+        if (snapshot != null) {
+            snapshot.close();
+            snapshot = null;
+        }
+    }
+
+    /**
+     * 新条目进入窗口区，随后按W-TinyLFU调整各分段
+     */
+    private void insert(Object key, Object value, long weight, long expireAt) {
+        Entry entry = new Entry(value, weight, expireAt, Segment.WINDOW);
+        window.put(key, entry);
+        data.put(key, entry);
+        windowWeight += weight;
+        if (pinnedKeys.contains(key)) {
+            pinnedWeight += weight;
+        }
+        evictFromWindow();
+        evictFromMain();
+    }
+
+    /**
+     * 窗口区超出容量时，最久未访问的条目作为候选尝试进入主区
+     */
+    private void evictFromWindow() {
+        Iterator<Map.Entry<Object, Entry>> iterator = window.entrySet().iterator();
+        while (windowWeight > windowMaximum && iterator.hasNext()) {
+            Map.Entry<Object, Entry> eldest = iterator.next();
+            if (isPinned(eldest.getKey())) {
+                continue;
+            }
+            Entry candidate = eldest.getValue();
+            iterator.remove();
+            windowWeight -= candidate.weight;
+            admit(eldest.getKey(), candidate);
+        }
+    }
+
+    /**
+     * 主区容量不足时，候选与试用区最旧的条目比较访问频率，频率低者被淘汰
+     * 面试重点：TinyLFU准入策略，只有比被替换者更常用的条目才能进入主区
+     */
+    private void admit(Object key, Entry candidate) {
+        long excess = windowWeight + probationWeight + protectedWeight + candidate.weight - maximumWeight;
+        if (excess > 0) {
+            // 先选出足以腾出空间的全部淘汰对象再一次性决定，避免删掉前几个后候选又被拒绝
+            List<Object> victims = victimsFor(excess);
+            long frequency = sketch.estimate(key);
+            if (victims == null || victims.stream().anyMatch(victim -> sketch.estimate(victim) >= frequency)) {
+                data.remove(key);
+                evictionCount.increment();
+                return;
+            }
+            victims.forEach(this::remove);
+            evictionCount.add(victims.size());
+        }
+        candidate.segment = Segment.PROBATION;
+        probation.put(key, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    /**
+     * 按试用区、保护区的LRU顺序选出合计权重不小于excess的淘汰对象
+     *
+     * @return 未固定的条目不足以腾出空间时返回null
+     */
+    private List<Object> victimsFor(long excess) {
+        List<Object> victims = new ArrayList<>();
+        long freed = 0;
+        for (LinkedHashMap<Object, Entry> segment : List.of(probation, protectedSegment)) {
+            for (Map.Entry<Object, Entry> entry : segment.entrySet()) {
+                if (freed >= excess) {
+                    return victims;
+                }
+                if (!isPinned(entry.getKey())) {
+                    victims.add(entry.getKey());
+                    freed += entry.getValue().weight;
+                }
+            }
+        }
+        return freed >= excess ? victims : null;
+    }
+
+    /**
+     * 已有条目权重变大导致超出容量时，依次从试用区、保护区、窗口区淘汰最旧的条目
+     */
+    private void evictFromMain() {
+        while (windowWeight + probationWeight + protectedWeight > maximumWeight) {
+            Object victim = eldestUnpinned(probation);
+            if (victim == null) {
+                victim = eldestUnpinned(protectedSegment);
+            }
+            if (victim == null) {
+                victim = eldestUnpinned(window);
+            }
+            if (victim == null) {
+                return;
+            }
+            remove(victim);
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * 试用区条目再次被访问时晋升到保护区，保护区超出容量则把最旧的条目降回试用区
+     */
+    private void promote(Object key, Entry entry) {
+        probation.remove(key);
+        probationWeight -= entry.weight;
+        entry.segment = Segment.PROTECTED;
+        protectedSegment.put(key, entry);
+        protectedWeight += entry.weight;
+
+        Iterator<Map.Entry<Object, Entry>> iterator = protectedSegment.entrySet().iterator();
+        while (protectedWeight > protectedMaximum && iterator.hasNext()) {
+            Map.Entry<Object, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                break;
+            }
+            Entry demoted = eldest.getValue();
+            iterator.remove();
+            protectedWeight -= demoted.weight;
+            demoted.segment = Segment.PROBATION;
+            probation.put(eldest.getKey(), demoted);
+            probationWeight += demoted.weight;
+        }
+    }
+
+    /**
+     * 记录一次读取，缓冲区需要回放且锁空闲时顺带回放；抢不到锁则留给下一次写入或读取
+     */
+    private void afterRead(Object key) {
+        if (readBuffer.offer(key) && lock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void drainReads() {
+        readBuffer.drain(this::onRead);
+    }
+
+    /**
+     * 回放一次读取：更新频率，命中时调整分段位置，试用区条目晋升到保护区
+     */
+    private void onRead(Object key) {
+        recordAccess(key);
+        Entry entry = find(key);
+        if (entry != null && entry.segment == Segment.PROBATION) {
+            promote(key, entry);
+        }
+    }
+
+    private void recordAccess(Object key) {
+        sketch.increment(key);
+        if (++samples >= sampleSize) {
+            sketch.halve();
+            samples /= 2;
+        }
+    }
+
+    /**
+     * 查找条目，同时将其移到所在分段的最近访问端
+     */
+    private Entry find(Object key) {
+        Entry entry = window.get(key);
+        if (entry == null) {
+            entry = probation.get(key);
+        }
+        if (entry == null) {
+            entry = protectedSegment.get(key);
+        }
+        return entry;
+    }
+
+    private void remove(Object key) {
+        Entry entry = window.remove(key);
+        if (entry == null) {
+            entry = probation.remove(key);
+        }
+        if (entry == null) {
+            entry = protectedSegment.remove(key);
+        }
+        if (entry != null) {
+            data.remove(key);
+            adjustWeight(entry.segment, -entry.weight);
+            if (pinnedKeys.contains(key)) {
+                pinnedWeight -= entry.weight;
+            }
+        }
+    }
+
+    private void adjustWeight(Segment segment, long delta) {
+        switch (segment) {
+            case WINDOW -> windowWeight += delta;
+            case PROBATION -> probationWeight += delta;
+            case PROTECTED -> protectedWeight += delta;
+        }
+    }
+
+    private Object eldestUnpinned(LinkedHashMap<Object, Entry> segment) {
+        for (Object key : segment.keySet()) {
+            if (!isPinned(key)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 常驻条目总权重在容量一半以内时才受保护
+     */
+    private boolean isPinned(Object key) {
+        return pinnedWeight <= maximumWeight / 2 && pinnedKeys.contains(key);
+    }
+
+    private static long estimateBytes(Object key, Object value) {
+        return ENTRY_OVERHEAD_BYTES + ObjectSizeEstimator.estimate(key) + ObjectSizeEstimator.estimate(value);
+    }
+
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    /**
+     * 导出的条目：key、值与剩余存活时间
+     */
+    public record HotEntry(Object key, Object value, long remainingNanos) {
+    }
+
+    /**
+     * 按线程分条的有损读缓冲区：每条是固定大小的环形数组，读线程CAS占位写入，
+     * 持锁线程批量取出；占位失败或已满时丢弃本次记录
+     */
+    private static final class ReadBuffer {
+
+        private static final int STRIPE_SIZE = 16;
+        private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+        private final int stripeMask;
+        private final AtomicReferenceArray<Object> slots;
+        private final AtomicLongArray writeCounts;
+        private final AtomicLongArray readCounts;
+
+        ReadBuffer() {
+            int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+            this.stripeMask = stripes - 1;
+            this.slots = new AtomicReferenceArray<>(stripes * STRIPE_SIZE);
+            this.writeCounts = new AtomicLongArray(stripes);
+            this.readCounts = new AtomicLongArray(stripes);
+        }
+
+        /**
+         * @return 所在条已半满或已满，需要回放
+         */
+        boolean offer(Object key) {
+            int stripe = (int) Thread.currentThread().getId() & stripeMask;
+            long head = readCounts.get(stripe);
+            long tail = writeCounts.get(stripe);
+            long size = tail - head;
+            if (size >= STRIPE_SIZE) {
+                return true;
+            }
+            if (writeCounts.compareAndSet(stripe, tail, tail + 1)) {
+                slots.lazySet(stripe * STRIPE_SIZE + (int) (tail & STRIPE_MASK), key);
+                size++;
+            }
+            return size >= STRIPE_SIZE / 2;
+        }
+
+        /**
+         * 只能由持锁线程调用；已占位但尚未写入的槽位留到下次回放
+         */
+        void drain(Consumer<Object> consumer) {
+            for (int stripe = 0; stripe <= stripeMask; stripe++) {
+                long head = readCounts.get(stripe);
+                long tail = writeCounts.get(stripe);
+                while (head < tail) {
+                    int index = stripe * STRIPE_SIZE + (int) (head & STRIPE_MASK);
+                    Object key = slots.get(index);
+                    if (key == null) {
+                        break;
+                    }
+                    slots.lazySet(index, null);
+                    consumer.accept(key);
+                    head++;
+                }
+                readCounts.lazySet(stripe, head);
+            }
+        }
+    }
+
+    /**
+     * 缓存条目：值、权重、过期时间点与所在分段，只在锁内修改；值与过期时间会被不加锁的读取访问
+     */
+    private static final class Entry {
+
+        private volatile Object value;
+        private long weight;
+        private volatile long expireAt;
+        private Segment segment;
+
+        Entry(Object value, long weight, long expireAt, Segment segment) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+            this.segment = segment;
+        }
+
+        boolean isExpired(long now) {
+            return now - expireAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.learning.cache;
+
+import com.learning.entity.Order;
+import com.learning.entity.OrderItem;
+import com.learning.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * 本地缓存快照(内存映射文件)
+ *
+ * 面试重点知识点：
+ * 1. 热启动：停机前把本地缓存中的热点条目写入文件，重启后按需恢复，避免发布后全部回源
+ * 2. 内存映射文件(FileChannel.map)：读写直接作用于页缓存，不经过用户态缓冲区拷贝
+ * 3. 原子替换：先写临时文件并刷盘，再原子重命名，进程中途退出也不会留下半个快照
+ * 4. 完整性校验：头部记录数据区的CRC32C，校验失败整体丢弃
+ * 5. 版本化：头部记录实体结构版本(字段名与类型的哈希 + 序列化格式版本)，实体变更后旧快照自动失效
+ * 6. 懒加载：打开时只解码key建立索引，值在第一次未命中时才反序列化，反序列化在本地缓存的锁外进行
+ * 7. 停机期间的失效：头部记录写入时的缓存代数，代数已变化(期间清空过缓存)则整体丢弃；
+ *    停机期间单个key的失效消息收不到，恢复的条目存活时间不超过上限，旧值很快过期
+ *
+ * 文件布局：[魔数 4B][文件格式版本 4B][实体结构版本 8B][写入时间 8B][条目数 4B][数据区长度 8B][CRC32C 8B][缓存代数 8B]
+ * 数据区每个条目：[过期时间(毫秒时间戳) 8B][key长度 4B][key][值长度 4B][值]
+ *
+ * 快照实例不是线程安全的，由所属的本地缓存在锁内访问；只有反序列化(decode)不涉及内部状态，可在锁外执行。
+ *
+ * @author 学习笔记
+ */
+@Slf4j
+public final class LocalCacheSnapshot implements AutoCloseable {
+
+    /**
+     * User、Order、OrderItem的结构版本，任一实体字段或序列化格式变化都会改变该值
+     */
+    public static final long SCHEMA_VERSION = schemaVersion(User.class, Order.class, OrderItem.class);
+
+    private static final int MAGIC = 0x4C435331; // "LCS1"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 52;
+
+    private final ByteBuffer data;
+    private final Map<Object, Slot> index;
+    private final RedisSerializer<Object> serializer;
+    private final long maxRestoreTtlMillis;
+
+    private LocalCacheSnapshot(ByteBuffer data, Map<Object, Slot> index, RedisSerializer<Object> serializer,
+                               long maxRestoreTtlMillis) {
+        this.data = data;
+        this.index = index;
+        this.serializer = serializer;
+        this.maxRestoreTtlMillis = maxRestoreTtlMillis;
+    }
+
+    /**
+     * 写入快照，无法序列化的条目跳过
+     *
+     * @param generation 写入时的缓存代数
+     * @return 实际写入的条目数
+     */
+    public static int write(Path file, List<LocalCache.HotEntry> entries, long schemaVersion, long generation,
+                            RedisSerializer<Object> serializer) throws IOException {
+        long now = System.currentTimeMillis();
+        List<byte[]> keys = new ArrayList<>(entries.size());
+        List<byte[]> values = new ArrayList<>(entries.size());
+        List<Long> expireAts = new ArrayList<>(entries.size());
+        long payloadLength = 0;
+        for (LocalCache.HotEntry entry : entries) {
+            try {
+                byte[] key = serializer.serialize(entry.key());
+                byte[] value = serializer.serialize(entry.value());
+                keys.add(key);
+                values.add(value);
+                expireAts.add(now + entry.remainingNanos() / 1_000_000);
+                payloadLength += 16 + key.length + value.length;
+            } catch (SerializationException e) {
+                log.debug("快照跳过无法序列化的条目，key：{}", entry.key());
+            }
+        }
+        if (HEADER_BYTES + payloadLength > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot too large: " + payloadLength + " bytes");
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + payloadLength);
+            buffer.position(HEADER_BYTES);
+            for (int i = 0; i < keys.size(); i++) {
+                buffer.putLong(expireAts.get(i));
+                buffer.putInt(keys.get(i).length);
+                buffer.put(keys.get(i));
+                buffer.putInt(values.get(i).length);
+                buffer.put(values.get(i));
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_BYTES, (int) payloadLength));
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putLong(8, schemaVersion);
+            buffer.putLong(16, now);
+            buffer.putInt(24, keys.size());
+            buffer.putLong(28, payloadLength);
+            buffer.putLong(36, crc.getValue());
+            buffer.putLong(44, generation);
+            buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return keys.size();
+    }
+
+    /**
+     * 打开快照：校验头部与CRC，只解码未过期条目的key
+     *
+     * @param generation    当前的缓存代数
+     * @param maxRestoreTtl 恢复条目的最长存活时间
+     * @return 文件不存在、版本或代数不一致、校验失败或没有未过期条目时返回null
+     */
+    public static LocalCacheSnapshot open(Path file, long schemaVersion, long generation, Duration maxRestoreTtl,
+                                          RedisSerializer<Object> serializer) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                log.warn("快照[{}]长度不足，丢弃", file);
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                log.warn("快照[{}]格式不兼容，丢弃", file);
+                return null;
+            }
+            if (buffer.getLong(8) != schemaVersion) {
+                log.info("快照[{}]的实体结构版本已变化，丢弃", file);
+                return null;
+            }
+            if (buffer.getLong(44) != generation) {
+                log.info("快照[{}]写入后缓存已被清空(代数{} -> {})，丢弃", file, buffer.getLong(44), generation);
+                return null;
+            }
+            long payloadLength = buffer.getLong(28);
+            if (payloadLength != channel.size() - HEADER_BYTES) {
+                log.warn("快照[{}]数据区长度不一致，丢弃", file);
+                return null;
+            }
+            ByteBuffer data = buffer.slice(HEADER_BYTES, (int) payloadLength);
+            CRC32C crc = new CRC32C();
+            crc.update(data.duplicate());
+            if (crc.getValue() != buffer.getLong(36)) {
+                log.warn("快照[{}]校验失败，丢弃", file);
+                return null;
+            }
+            Map<Object, Slot> index = buildIndex(data, buffer.getInt(24), serializer);
+            if (index.isEmpty()) {
+                return null;
+            }
+            log.info("加载快照[{}]，未过期条目{}个", file, index.size());
+            return new LocalCacheSnapshot(data, index, serializer, maxRestoreTtl.toMillis());
+        } catch (IOException | RuntimeException e) {
+            log.warn("快照[{}]读取失败，丢弃：{}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 取出并移除一个条目，只拷贝值的字节，剩余存活时间不超过恢复上限
+     *
+     * @return 不存在或已过期时返回null
+     */
+    public Slice take(Object key) {
+        Slot slot = index.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        long remainingMillis = Math.min(slot.expireAt() - System.currentTimeMillis(), maxRestoreTtlMillis);
+        if (remainingMillis <= 0) {
+            return null;
+        }
+        byte[] value = new byte[slot.valueLength()];
+        data.get(slot.valueOffset(), value);
+        return new Slice(value, remainingMillis * 1_000_000);
+    }
+
+    /**
+     * 反序列化取出的值，不访问映射区域与索引，可在调用方的锁外执行
+     *
+     * @return 无法反序列化时返回null
+     */
+    public Restored decode(Slice slice) {
+        try {
+            return new Restored(serializer.deserialize(slice.value()), slice.remainingNanos());
+        } catch (SerializationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 本地缓存写入或清除了该key，快照中的旧值不再有效
+     */
+    public void discard(Object key) {
+        index.remove(key);
+    }
+
+    public int remaining() {
+        return index.size();
+    }
+
+    @Override
+    public void close() {
+        // 映射区域随缓冲区对象被回收而释放
+        index.clear();
+    }
+
+    public static Path path(Path directory, String cacheName) {
+        return directory.resolve(cacheName + ".snapshot");
+    }
+
+    private static Map<Object, Slot> buildIndex(ByteBuffer data, int count, RedisSerializer<Object> serializer) {
+        long now = System.currentTimeMillis();
+        Map<Object, Slot> index = new HashMap<>(count * 2);
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            long expireAt = data.getLong(position);
+            int keyLength = data.getInt(position + 8);
+            byte[] key = new byte[keyLength];
+            data.get(position + 12, key);
+            int valueOffset = position + 16 + keyLength;
+            int valueLength = data.getInt(valueOffset - 4);
+            position = valueOffset + valueLength;
+            if (expireAt > now) {
+                index.put(serializer.deserialize(key), new Slot(valueOffset, valueLength, expireAt));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 实体结构版本：类名、字段名与字段类型的哈希，再混入序列化格式版本
+     */
+    static long schemaVersion(Class<?>... types) {
+        long hash = CompactRedisSerializer.VERSION;
+        for (Class<?> type : types) {
+            StringBuilder signature = new StringBuilder(type.getName());
+            // getDeclaredFields不保证顺序，按字段名排序后再计算
+            Arrays.stream(type.getDeclaredFields())
+                    .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                    .sorted(Comparator.comparing(Field::getName))
+                    .forEach(field -> signature.append(';').append(field.getName())
+                            .append(':').append(field.getGenericType().getTypeName()));
+            hash = hash * 31 + CountingBloomFilter.hash64(signature.toString());
+        }
+        return hash;
+    }
+
+    /**
+     * 数据区中一个条目的值位置与过期时间
+     */
+    private record Slot(int valueOffset, int valueLength, long expireAt) {
+    }
+
+    /**
+     * 从快照取出、尚未反序列化的值与剩余存活时间
+     */
+    public record Slice(byte[] value, long remainingNanos) {
+    }
+
+    /**
+     * 从快照恢复的值与剩余存活时间
+     */
+    public record Restored(Object value, long remainingNanos) {
+    }
+}
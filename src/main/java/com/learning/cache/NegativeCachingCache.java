@@ -0,0 +1,154 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 空结果缓存(Negative Caching)
+ *
+ * 面试重点知识点：
+ * 1. 缓存穿透：查询不存在的数据时每次都会打到数据库
+ * 2. 用独立的哨兵值代替null写入缓存，哨兵使用单独的短TTL
+ * 3. 数据被创建后必须精确清除对应key，否则短TTL内仍返回"不存在"
+ *
+ * 位于装饰链最外层：对内层缓存而言哨兵只是普通值，一级、二级缓存和降级缓存都能保存；
+ * 对Spring Cache而言读到哨兵等同于命中了null。
+ * Redis中的哨兵由NegativeTtlFunction按短TTL过期；本地缓存中的哨兵按写入时间在读取时判断，
+ * 过期后清除并当作未命中。
+ *
+ * @author 学习笔记
+ */
+public class NegativeCachingCache extends CacheDecorator {
+
+    private final long timeToLiveMillis;
+    private final LongSupplier clock;
+    private final LongAdder negativeHitCount = new LongAdder();
+    private final LongAdder negativePutCount = new LongAdder();
+
+    public NegativeCachingCache(Cache delegate, Duration timeToLive) {
+        this(delegate, timeToLive, System::currentTimeMillis);
+    }
+
+    NegativeCachingCache(Cache delegate, Duration timeToLive, LongSupplier clock) {
+        super(delegate);
+        if (timeToLive.isZero() || timeToLive.isNegative()) {
+            throw new IllegalArgumentException("Negative cache TTL must be positive: " + timeToLive);
+        }
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null || !(wrapper.get() instanceof Miss miss)) {
+            return wrapper;
+        }
+        if (isExpired(miss)) {
+            delegate.evict(key);
+            return null;
+        }
+        negativeHitCount.increment();
+        return new SimpleValueWrapper(null);
+    }
+
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Map<Object, ValueWrapper> found = BatchCache.getAll(delegate, keys);
+        Iterator<Map.Entry<Object, ValueWrapper>> iterator = found.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, ValueWrapper> entry = iterator.next();
+            if (!(entry.getValue().get() instanceof Miss miss)) {
+                continue;
+            }
+            if (isExpired(miss)) {
+                delegate.evict(entry.getKey());
+                iterator.remove();
+            } else {
+                negativeHitCount.increment();
+                entry.setValue(new SimpleValueWrapper(null));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = new boolean[1];
+        Callable<Object> loader = () -> {
+            loaded[0] = true;
+            return toStored(valueLoader.call());
+        };
+        Object value = delegate.get(key, loader);
+        if (value instanceof Miss miss && isExpired(miss)) {
+            delegate.evict(key);
+            value = delegate.get(key, loader);
+        }
+        if (value instanceof Miss) {
+            if (!loaded[0]) {
+                negativeHitCount.increment();
+            }
+            return null;
+        }
+        return cast(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, toStored(value));
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        Map<Object, Object> stored = new LinkedHashMap<>();
+        entries.forEach((key, value) -> stored.put(key, toStored(value)));
+        BatchCache.putAll(delegate, stored);
+    }
+
+    public Duration getTimeToLive() { return Duration.ofMillis(timeToLiveMillis); }
+    public long getNegativeHitCount() { return negativeHitCount.sum(); }
+    public long getNegativePutCount() { return negativePutCount.sum(); }
+
+    /**
+     * 判断缓存值是否为空结果哨兵，兼容RefreshAheadCache的包装
+     */
+    public static boolean isMiss(Object value) {
+        if (value instanceof RefreshAheadCache.Stamped stamped) {
+            value = stamped.value();
+        }
+        return value instanceof Miss;
+    }
+
+    private Object toStored(Object value) {
+        if (value != null) {
+            return value;
+        }
+        negativePutCount.increment();
+        return new Miss(clock.getAsLong());
+    }
+
+    private boolean isExpired(Miss miss) {
+        return clock.getAsLong() - miss.cachedAt() >= timeToLiveMillis;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+
+    /**
+     * 空结果哨兵，只记录写入时间
+     */
+    public record Miss(long cachedAt) implements Serializable {
+    }
+}
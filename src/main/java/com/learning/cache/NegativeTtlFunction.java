@@ -0,0 +1,30 @@
+package com.learning.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+
+/**
+ * 空结果哨兵使用独立的短TTL
+ *
+ * 面试重点知识点：
+ * 1. 空结果只需短暂缓存，挡住短时间内的重复穿透即可
+ * 2. 包装原有的TtlFunction，正常值的TTL策略保持不变
+ *
+ * @author 学习笔记
+ */
+public class NegativeTtlFunction implements RedisCacheWriter.TtlFunction {
+
+    private final RedisCacheWriter.TtlFunction delegate;
+    private final Duration negativeTtl;
+
+    public NegativeTtlFunction(RedisCacheWriter.TtlFunction delegate, Duration negativeTtl) {
+        this.delegate = delegate;
+        this.negativeTtl = negativeTtl;
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        return NegativeCachingCache.isMiss(value) ? negativeTtl : delegate.getTimeToLive(key, value);
+    }
+}
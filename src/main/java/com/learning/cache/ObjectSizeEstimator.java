@@ -0,0 +1,185 @@
+package com.learning.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对象内存占用估算器
+ * 
+ * 面试重点知识点：
+ * 1. Java对象内存布局：对象头(12~16字节) + 字段 + 对齐填充
+ * 2. 常见类型的内存开销：String、包装类型、集合
+ * 3. 反射遍历对象图，IdentityHashMap避免循环引用
+ * 4. 按类缓存对象形状：浅层大小(对象头 + 基本类型字段 + 引用)只算一次，之后只需读取引用字段
+ * 
+ * 作为本地缓存的权重函数时每次写入都会调用：String、包装类型等叶子值不分配IdentityHashMap，
+ * 自定义类型的字段列表与浅层大小按类缓存，不再每次遍历全部字段。
+ * 结果是按64位JVM、开启压缩指针估算的近似值，用于容量规划与权重淘汰，不追求精确。
+ * JDK内部类型不做反射(模块系统限制)，按常见实现给出经验值。
+ * 
+ * @author 学习笔记
+ */
+public final class ObjectSizeEstimator {
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int MAX_DEPTH = 8;
+    private static final Field[] NO_FIELDS = new Field[0];
+    private static final Map<Class<?>, Shape> SHAPES = new ConcurrentHashMap<>();
+
+    private ObjectSizeEstimator() {
+    }
+
+    public static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        long leaf = leafSize(value);
+        return leaf >= 0 ? leaf : estimate(value, new IdentityHashMap<>(), 0);
+    }
+
+    private static long estimate(Object value, IdentityHashMap<Object, Boolean> visited, int depth) {
+        if (value == null || depth > MAX_DEPTH || visited.put(value, Boolean.TRUE) != null) {
+            return 0;
+        }
+        long leaf = leafSize(value);
+        if (leaf >= 0) {
+            return leaf;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return 40 + estimate(decimal.unscaledValue(), visited, depth + 1);
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 48 + align(OBJECT_HEADER + (long) map.size() * 2 * REFERENCE);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += 32 + estimate(entry.getKey(), visited, depth + 1) + estimate(entry.getValue(), visited, depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 40 + align(OBJECT_HEADER + (long) collection.size() * REFERENCE);
+            for (Object element : collection) {
+                size += estimate(element, visited, depth + 1);
+            }
+            return size;
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            return estimateArray(value, visited, depth);
+        }
+        if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+            return 64;
+        }
+        return estimateFields(value, visited, depth);
+    }
+
+    /**
+     * 不包含其他对象引用的值，返回-1表示需要继续遍历
+     */
+    private static long leafSize(Object value) {
+        if (value instanceof String string) {
+            return OBJECT_HEADER + 8 + align(OBJECT_HEADER + string.length());
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return 24;
+        }
+        if (value instanceof Number && !(value instanceof BigDecimal) && !(value instanceof BigInteger)
+                || value instanceof Boolean || value instanceof Character || value instanceof Enum<?>) {
+            return 16;
+        }
+        if (value instanceof BigInteger integer) {
+            return 40 + align(OBJECT_HEADER + (integer.bitLength() / 32 + 1) * 4L);
+        }
+        if (value instanceof Temporal) {
+            return 72;
+        }
+        return -1;
+    }
+
+    private static long estimateArray(Object array, IdentityHashMap<Object, Boolean> visited, int depth) {
+        int length = Array.getLength(array);
+        Class<?> componentType = array.getClass().getComponentType();
+        if (componentType.isPrimitive()) {
+            return align(OBJECT_HEADER + (long) length * primitiveSize(componentType));
+        }
+        long size = align(OBJECT_HEADER + (long) length * REFERENCE);
+        for (int i = 0; i < length; i++) {
+            size += estimate(Array.get(array, i), visited, depth + 1);
+        }
+        return size;
+    }
+
+    private static long estimateFields(Object value, IdentityHashMap<Object, Boolean> visited, int depth) {
+        Shape shape = SHAPES.computeIfAbsent(value.getClass(), ObjectSizeEstimator::shapeOf);
+        long deep = 0;
+        for (Field field : shape.references()) {
+            try {
+                deep += estimate(field.get(value), visited, depth + 1);
+            } catch (IllegalAccessException e) {
+                deep += 16;
+            }
+        }
+        return shape.shallowBytes() + deep;
+    }
+
+    /**
+     * 计算类的浅层大小，并收集需要继续遍历的引用字段
+     */
+    private static Shape shapeOf(Class<?> type) {
+        long shallow = OBJECT_HEADER;
+        List<Field> references = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Class<?> fieldType = field.getType();
+                if (fieldType.isPrimitive()) {
+                    shallow += primitiveSize(fieldType);
+                    continue;
+                }
+                shallow += REFERENCE;
+                try {
+                    field.setAccessible(true);
+                    references.add(field);
+                } catch (RuntimeException e) {
+                    // 无法访问的字段只计入浅层的引用大小
+                }
+            }
+        }
+        return new Shape(align(shallow), references.isEmpty() ? NO_FIELDS : references.toArray(NO_FIELDS));
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * 类的对象形状：对齐后的浅层大小与引用字段
+     */
+    private record Shape(long shallowBytes, Field[] references) {
+    }
+}
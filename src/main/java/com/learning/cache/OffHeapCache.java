@@ -0,0 +1,170 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 堆外缓存层
+ *
+ * 面试重点知识点：
+ * 1. 位于堆内一级缓存与Redis之间：堆内只放最热的少量条目，更大的工作集放在堆外，既不增加GC压力也没有网络往返
+ * 2. 值以紧凑二进制格式存入堆外内存，读取时反序列化；用CPU换取堆内存与GC停顿
+ * 3. 读写路径与二级缓存一致：读先堆外后下一层，下一层命中回填堆外；写入、清除先下一层后堆外
+ *
+ * 只缓存Long/Integer类型的key(用户ID、订单ID)，其他key(如订单号)直接交给下一层。
+ * 无法序列化的值不进入堆外层。
+ *
+ * @author 学习笔记
+ */
+@Slf4j
+public class OffHeapCache extends CacheDecorator {
+
+    private final OffHeapStore store;
+    private final RedisSerializer<Object> serializer;
+
+    public OffHeapCache(Cache delegate, OffHeapStore store, RedisSerializer<Object> serializer) {
+        super(delegate);
+        this.store = store;
+        this.serializer = serializer;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        if (!(key instanceof Long || key instanceof Integer)) {
+            return delegate.get(key);
+        }
+        ValueWrapper local = read(key);
+        if (local != null) {
+            return local;
+        }
+        ValueWrapper remote = delegate.get(key);
+        if (remote != null) {
+            write(key, remote.get());
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (!(key instanceof Long || key instanceof Integer)) {
+            return delegate.get(key, valueLoader);
+        }
+        ValueWrapper local = read(key);
+        if (local != null) {
+            return (T) local.get();
+        }
+        T value = delegate.get(key, valueLoader);
+        write(key, value);
+        return value;
+    }
+
+    /**
+     * 批量读取：堆外未命中的key一次性交给下一层，命中结果回填堆外
+     */
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Map<Object, ValueWrapper> found = new LinkedHashMap<>();
+        List<Object> remoteKeys = new ArrayList<>();
+        for (Object key : keys) {
+            ValueWrapper local = key instanceof Long || key instanceof Integer ? read(key) : null;
+            if (local != null) {
+                found.put(key, local);
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return found;
+        }
+        Map<Object, ValueWrapper> remote = BatchCache.getAll(delegate, remoteKeys);
+        remote.forEach((key, wrapper) -> write(key, wrapper.get()));
+        found.putAll(remote);
+        if (found.size() == remote.size()) {
+            return found;
+        }
+        // 恢复调用方传入的key顺序
+        Map<Object, ValueWrapper> ordered = new LinkedHashMap<>();
+        for (Object key : keys) {
+            ValueWrapper wrapper = found.get(key);
+            if (wrapper != null) {
+                ordered.put(key, wrapper);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        write(key, value);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        BatchCache.putAll(delegate, entries);
+        entries.forEach(this::write);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictLocal(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        store.clear();
+    }
+
+    /**
+     * 只清除堆外副本，用于处理其他节点的失效消息
+     */
+    public void evictLocal(Object key) {
+        if (key instanceof Long || key instanceof Integer) {
+            store.remove(((Number) key).longValue());
+        }
+    }
+
+    public OffHeapStore getStore() {
+        return store;
+    }
+
+    private ValueWrapper read(Object key) {
+        byte[] bytes = store.get(((Number) key).longValue());
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return new SimpleValueWrapper(serializer.deserialize(bytes));
+        } catch (SerializationException e) {
+            log.warn("堆外缓存[{}]的值无法反序列化，按未命中处理，key：{}", getName(), key);
+            store.remove(((Number) key).longValue());
+            return null;
+        }
+    }
+
+    private void write(Object key, Object value) {
+        if (!(key instanceof Long || key instanceof Integer)) {
+            return;
+        }
+        long id = ((Number) key).longValue();
+        try {
+            store.put(id, serializer.serialize(value));
+        } catch (SerializationException e) {
+            // 不可序列化的值只保存在下一层，同时丢弃堆外的旧值
+            store.remove(id);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.learning.cache;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 堆外键值存储：long key -> 字节数组
+ *
+ * 面试重点知识点：
+ * 1. 直接内存(ByteBuffer.allocateDirect)不受GC管理，大量缓存数据放在堆外可以缩短GC停顿
+ * 2. Slab分配：内存按页(page)申请，每页切分为同一尺寸的块(chunk)，尺寸按1.25倍递增分级，
+ *    条目放入能容纳它的最小块中；释放的块挂在该级别的空闲链表上复用，没有外部碎片
+ * 3. 开放寻址索引：key与块地址保存在两个long数组中，线性探测，删除时回移后续条目(不使用墓碑)，
+ *    索引本身没有逐条目的对象，对GC几乎透明
+ * 4. CLOCK淘汰：每个块带一个访问位，命中时置位；空间不足时时钟指针扫描同级别的块，
+ *    清除访问位给第二次机会，访问位为0的块被淘汰
+ * 5. 页一旦分配给某个级别不再回收(与memcached相同)，值大小分布剧烈变化时需要重启或调大内存
+ * 6. 分段锁：按key哈希分成若干段，每段有独立的锁、页、块级别与索引，内存上限均分到各段；
+ *    不同段的读写(包括值的字节拷贝)互不阻塞。每段至少保留若干页，内存较小时自动减少段数
+ *
+ * 块布局：[flags 1B][过期时间 8B][key 8B][值长度 4B][值]，空闲块的key字段保存空闲链表的下一个地址。
+ *
+ * @author 学习笔记
+ */
+public class OffHeapStore {
+
+    private static final int HEADER_BYTES = 21;
+    private static final int FLAGS = 0;
+    private static final int EXPIRE_AT = 1;
+    private static final int KEY = 9;
+    private static final int LENGTH = 17;
+    private static final byte USED = 1;
+    private static final byte REFERENCED = 2;
+    private static final int MIN_CHUNK_BYTES = 64;
+    private static final double GROWTH_FACTOR = 1.25;
+    private static final int MIN_PAGES_PER_SEGMENT = 16;
+
+    private final int pageSize;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final int[] chunkSizes;
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+
+    /**
+     * 段数取不小于CPU核数的2的幂，内存不足以让每段分到{@value #MIN_PAGES_PER_SEGMENT}页时减半
+     */
+    public OffHeapStore(long maxMemoryBytes, int pageSize, Duration expireAfterWrite) {
+        this(maxMemoryBytes, pageSize, expireAfterWrite, System::nanoTime);
+    }
+
+    OffHeapStore(long maxMemoryBytes, int pageSize, Duration expireAfterWrite, LongSupplier ticker) {
+        this(maxMemoryBytes, pageSize, expireAfterWrite, defaultSegments(maxMemoryBytes / Math.max(1, pageSize)),
+                ticker);
+    }
+
+    OffHeapStore(long maxMemoryBytes, int pageSize, Duration expireAfterWrite, int segmentCount,
+                 LongSupplier ticker) {
+        if (pageSize < MIN_CHUNK_BYTES) {
+            throw new IllegalArgumentException("pageSize must be at least " + MIN_CHUNK_BYTES + ": " + pageSize);
+        }
+        if (maxMemoryBytes < pageSize) {
+            throw new IllegalArgumentException("maxMemoryBytes must be at least one page: " + maxMemoryBytes);
+        }
+        if (segmentCount <= 0 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("segmentCount must be a power of two: " + segmentCount);
+        }
+        long maxPages = Math.min(Integer.MAX_VALUE - 1, maxMemoryBytes / pageSize);
+        if (maxPages < segmentCount) {
+            throw new IllegalArgumentException("maxMemoryBytes must be at least one page per segment: "
+                    + maxMemoryBytes);
+        }
+        this.pageSize = pageSize;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.ticker = ticker;
+        this.chunkSizes = chunkSizes(pageSize);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment((int) (maxPages / segmentCount));
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * 读取值，命中时置访问位
+     *
+     * @return 未命中或已过期返回null
+     */
+    public byte[] get(long key) {
+        return segmentFor(key).get(key);
+    }
+
+    /**
+     * 写入值：按长度选择块级别，没有空闲块时先申请新页，所在段的内存用尽后在同级别内按CLOCK淘汰
+     *
+     * @return 条目超过最大块尺寸或该级别没有任何页可淘汰时返回false
+     */
+    public boolean put(long key, byte[] value) {
+        return segmentFor(key).put(key, slabClassFor(HEADER_BYTES + value.length), value);
+    }
+
+    public void remove(long key) {
+        segmentFor(key).remove(key);
+    }
+
+    /**
+     * 清空所有条目，已申请的页保留给后续写入
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getAllocatedBytes() {
+        long pages = 0;
+        for (Segment segment : segments) {
+            pages += segment.allocatedPages();
+        }
+        return pages * pageSize;
+    }
+
+    public long getMaxMemoryBytes() { return (long) segments[0].maxPages * segments.length * pageSize; }
+    public int getMaxValueBytes() { return chunkSizes[chunkSizes.length - 1] - HEADER_BYTES; }
+    public int getSegmentCount() { return segments.length; }
+    public long getHitCount() { return hitCount.sum(); }
+    public long getMissCount() { return missCount.sum(); }
+    public long getEvictionCount() { return evictionCount.sum(); }
+    public long getExpirationCount() { return expirationCount.sum(); }
+    public long getRejectionCount() { return rejectionCount.sum(); }
+
+    /**
+     * 用哈希的高32位选段，低位留给段内索引定位槽位，两者互不相关
+     */
+    private Segment segmentFor(long key) {
+        return segments[(int) (CountingBloomFilter.mix64(key) >>> 32) & segmentMask];
+    }
+
+    private static int defaultSegments(long maxPages) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int segments = Integer.highestOneBit(Math.max(1, processors * 2 - 1));
+        while (segments > 1 && maxPages / segments < MIN_PAGES_PER_SEGMENT) {
+            segments >>= 1;
+        }
+        return segments;
+    }
+
+    private int slabClassFor(int bytes) {
+        for (int i = 0; i < chunkSizes.length; i++) {
+            if (chunkSizes[i] >= bytes) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] chunkSizes(int pageSize) {
+        List<Integer> sizes = new ArrayList<>();
+        int size = MIN_CHUNK_BYTES;
+        while (size < pageSize) {
+            sizes.add(size);
+            size = ((int) (size * GROWTH_FACTOR) + 7) & ~7;
+        }
+        sizes.add(pageSize);
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * 地址 = (段内页号 + 1) << 32 | 页内偏移，保证有效地址不为0
+     */
+    private static long address(int pageIndex, int offset) {
+        return ((long) (pageIndex + 1) << 32) | offset;
+    }
+
+    /**
+     * 一个段：独立的锁、页、块级别与开放寻址索引，段内的所有状态只在本段的锁内访问
+     */
+    private final class Segment {
+
+        private final int maxPages;
+        private final List<ByteBuffer> pages = new ArrayList<>();
+        private final List<SlabClass> pageOwners = new ArrayList<>();
+        private final SlabClass[] slabClasses;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private long[] indexKeys;
+        private long[] indexAddresses;
+        private int indexMask;
+        private int size;
+
+        Segment(int maxPages) {
+            this.maxPages = maxPages;
+            this.slabClasses = new SlabClass[chunkSizes.length];
+            for (int i = 0; i < chunkSizes.length; i++) {
+                slabClasses[i] = new SlabClass(chunkSizes[i], pageSize / chunkSizes[i]);
+            }
+            this.indexKeys = new long[16];
+            this.indexAddresses = new long[16];
+            this.indexMask = 15;
+        }
+
+        byte[] get(long key) {
+            lock.lock();
+            try {
+                int slot = find(key);
+                if (slot < 0) {
+                    missCount.increment();
+                    return null;
+                }
+                long address = indexAddresses[slot];
+                ByteBuffer page = page(address);
+                int offset = offset(address);
+                if (page.getLong(offset + EXPIRE_AT) - ticker.getAsLong() <= 0) {
+                    removeSlot(slot);
+                    free(address);
+                    expirationCount.increment();
+                    missCount.increment();
+                    return null;
+                }
+                page.put(offset + FLAGS, (byte) (USED | REFERENCED));
+                byte[] value = new byte[page.getInt(offset + LENGTH)];
+                page.get(offset + HEADER_BYTES, value);
+                hitCount.increment();
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean put(long key, int slabClass, byte[] value) {
+            lock.lock();
+            try {
+                int slot = find(key);
+                if (slot >= 0) {
+                    long old = indexAddresses[slot];
+                    removeSlot(slot);
+                    free(old);
+                }
+                if (slabClass < 0) {
+                    rejectionCount.increment();
+                    return false;
+                }
+                long address = allocate(slabClass);
+                if (address == 0) {
+                    rejectionCount.increment();
+                    return false;
+                }
+                ByteBuffer page = page(address);
+                int offset = offset(address);
+                page.put(offset + FLAGS, USED);
+                page.putLong(offset + EXPIRE_AT, ticker.getAsLong() + expireAfterWriteNanos);
+                page.putLong(offset + KEY, key);
+                page.putInt(offset + LENGTH, value.length);
+                page.put(offset + HEADER_BYTES, value);
+                insert(key, address);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(long key) {
+            lock.lock();
+            try {
+                int slot = find(key);
+                if (slot >= 0) {
+                    long address = indexAddresses[slot];
+                    removeSlot(slot);
+                    free(address);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                for (int slot = 0; slot <= indexMask; slot++) {
+                    if (indexAddresses[slot] != 0) {
+                        free(indexAddresses[slot]);
+                    }
+                }
+                Arrays.fill(indexKeys, 0);
+                Arrays.fill(indexAddresses, 0);
+                size = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int allocatedPages() {
+            lock.lock();
+            try {
+                return pages.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long allocate(int slabClass) {
+            SlabClass slab = slabClasses[slabClass];
+            if (slab.freeHead == 0) {
+                if (pages.size() < maxPages) {
+                    addPage(slab);
+                } else {
+                    evictOne(slab);
+                }
+            }
+            long address = slab.freeHead;
+            if (address != 0) {
+                slab.freeHead = page(address).getLong(offset(address) + KEY);
+            }
+            return address;
+        }
+
+        private void addPage(SlabClass slab) {
+            ByteBuffer page = ByteBuffer.allocateDirect(pageSize);
+            pages.add(page);
+            pageOwners.add(slab);
+            int pageIndex = pages.size() - 1;
+            slab.pages.add(pageIndex);
+            for (int chunk = slab.chunksPerPage - 1; chunk >= 0; chunk--) {
+                int offset = chunk * slab.chunkSize;
+                page.put(offset + FLAGS, (byte) 0);
+                page.putLong(offset + KEY, slab.freeHead);
+                slab.freeHead = address(pageIndex, offset);
+            }
+        }
+
+        /**
+         * CLOCK：指针在本级别的块上循环，访问位为1的清零跳过，遇到访问位为0的已用块即淘汰
+         * 最多扫描两圈，第二圈时所有访问位都已被清零
+         */
+        private void evictOne(SlabClass slab) {
+            int chunks = slab.pages.size() * slab.chunksPerPage;
+            for (int step = 0; step < chunks * 2; step++) {
+                int position = slab.hand;
+                slab.hand = (slab.hand + 1) % chunks;
+                int pageIndex = slab.pages.get(position / slab.chunksPerPage);
+                int offset = (position % slab.chunksPerPage) * slab.chunkSize;
+                ByteBuffer page = pages.get(pageIndex);
+                byte flags = page.get(offset + FLAGS);
+                if ((flags & USED) == 0) {
+                    continue;
+                }
+                if ((flags & REFERENCED) != 0) {
+                    page.put(offset + FLAGS, USED);
+                    continue;
+                }
+                int slot = find(page.getLong(offset + KEY));
+                if (slot >= 0) {
+                    removeSlot(slot);
+                }
+                free(address(pageIndex, offset));
+                evictionCount.increment();
+                return;
+            }
+        }
+
+        private void free(long address) {
+            ByteBuffer page = page(address);
+            int offset = offset(address);
+            SlabClass slab = pageOwners.get((int) (address >>> 32) - 1);
+            page.put(offset + FLAGS, (byte) 0);
+            page.putLong(offset + KEY, slab.freeHead);
+            slab.freeHead = address;
+        }
+
+        private ByteBuffer page(long address) {
+            return pages.get((int) (address >>> 32) - 1);
+        }
+
+        private int find(long key) {
+            int slot = slot(key);
+            while (indexAddresses[slot] != 0) {
+                if (indexKeys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & indexMask;
+            }
+            return -1;
+        }
+
+        private void insert(long key, long address) {
+            if ((size + 1) * 4L > (indexMask + 1) * 3L) {
+                resize();
+            }
+            int slot = slot(key);
+            while (indexAddresses[slot] != 0) {
+                slot = (slot + 1) & indexMask;
+            }
+            indexKeys[slot] = key;
+            indexAddresses[slot] = address;
+            size++;
+        }
+
+        /**
+         * 线性探测的删除：把后续本应位于空位之前的条目回移，保持探测链连续
+         */
+        private void removeSlot(int slot) {
+            int hole = slot;
+            int next = (hole + 1) & indexMask;
+            while (indexAddresses[next] != 0) {
+                int home = slot(indexKeys[next]);
+                // home不在(hole, next]区间内时，该条目可以回移到空位
+                if (((next - home) & indexMask) >= ((next - hole) & indexMask)) {
+                    indexKeys[hole] = indexKeys[next];
+                    indexAddresses[hole] = indexAddresses[next];
+                    hole = next;
+                }
+                next = (next + 1) & indexMask;
+            }
+            indexKeys[hole] = 0;
+            indexAddresses[hole] = 0;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = indexKeys;
+            long[] oldAddresses = indexAddresses;
+            indexKeys = new long[oldKeys.length * 2];
+            indexAddresses = new long[oldKeys.length * 2];
+            indexMask = indexKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldAddresses[i] != 0) {
+                    int slot = slot(oldKeys[i]);
+                    while (indexAddresses[slot] != 0) {
+                        slot = (slot + 1) & indexMask;
+                    }
+                    indexKeys[slot] = oldKeys[i];
+                    indexAddresses[slot] = oldAddresses[i];
+                }
+            }
+        }
+
+        private int slot(long key) {
+            return (int) CountingBloomFilter.mix64(key) & indexMask;
+        }
+    }
+
+    /**
+     * 块级别：块尺寸、所属页与空闲链表
+     */
+    private static final class SlabClass {
+
+        private final int chunkSize;
+        private final int chunksPerPage;
+        private final List<Integer> pages = new ArrayList<>();
+        private long freeHead;
+        private int hand;
+
+        SlabClass(int chunkSize, int chunksPerPage) {
+            this.chunkSize = chunkSize;
+            this.chunksPerPage = chunksPerPage;
+        }
+    }
+}
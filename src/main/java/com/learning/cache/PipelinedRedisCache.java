@@ -0,0 +1,101 @@
+package com.learning.cache;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 支持批量读写的Redis缓存
+ * 
+ * 面试重点知识点：
+ * 1. Redis Pipeline：客户端连续发送多条命令再统一读取响应，减少网络往返
+ * 2. 管道不是事务，中途失败的命令不会回滚已执行的命令
+ * 3. 批量写入沿用缓存配置中的key前缀、序列化方式与TTL函数，与逐条put写出的数据完全一致
+ * 4. MGET一条命令读取多个key，不存在的key对应位置返回null
+ * 
+ * @author 学习笔记
+ */
+public class PipelinedRedisCache extends RedisCache implements BatchCache {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    public PipelinedRedisCache(String name, RedisCacheWriter cacheWriter,
+                               RedisCacheConfiguration cacheConfiguration,
+                               RedisConnectionFactory connectionFactory) {
+        super(name, cacheWriter, cacheConfiguration);
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * 用一次MGET读取全部key
+     */
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Map<Object, ValueWrapper> found = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return found;
+        }
+        List<Object> keyList = new ArrayList<>(keys);
+        byte[][] binaryKeys = new byte[keyList.size()][];
+        for (int i = 0; i < binaryKeys.length; i++) {
+            binaryKeys[i] = serializeCacheKey(createCacheKey(keyList.get(i)));
+        }
+        List<byte[]> values;
+        RedisConnection connection = connectionFactory.getConnection();
+        try {
+            values = connection.stringCommands().mGet(binaryKeys);
+        } finally {
+            connection.close();
+        }
+        if (values == null) {
+            return found;
+        }
+        for (int i = 0; i < keyList.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                found.put(keyList.get(i), toValueWrapper(deserializeCacheValue(value)));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 用一次管道写入全部条目，不允许缓存null时跳过null值
+     */
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        RedisCacheWriter.TtlFunction ttlFunction = getCacheConfiguration().getTtlFunction();
+        RedisConnection connection = connectionFactory.getConnection();
+        try {
+            connection.openPipeline();
+            entries.forEach((key, value) -> {
+                Object cacheValue = preProcessCacheValue(value);
+                if (cacheValue == null) {
+                    return;
+                }
+                byte[] binaryKey = serializeCacheKey(createCacheKey(key));
+                byte[] binaryValue = serializeCacheValue(cacheValue);
+                Duration ttl = ttlFunction.getTimeToLive(key, value);
+                Expiration expiration = ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl);
+                connection.stringCommands().set(binaryKey, binaryValue, expiration, SetOption.upsert());
+            });
+            connection.closePipeline();
+        } finally {
+            connection.close();
+        }
+    }
+}
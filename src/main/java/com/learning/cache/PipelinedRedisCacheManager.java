@@ -0,0 +1,37 @@
+package com.learning.cache;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.Map;
+
+/**
+ * 创建PipelinedRedisCache的缓存管理器
+ * 
+ * 面试重点知识点：
+ * 1. 通过覆盖createRedisCache扩展RedisCacheManager，其余行为保持不变
+ * 
+ * @author 学习笔记
+ */
+public class PipelinedRedisCacheManager extends RedisCacheManager {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    public PipelinedRedisCacheManager(RedisConnectionFactory connectionFactory,
+                                      RedisCacheConfiguration defaultCacheConfiguration,
+                                      Map<String, RedisCacheConfiguration> initialCacheConfigurations) {
+        super(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory),
+                defaultCacheConfiguration, initialCacheConfigurations);
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfiguration) {
+        RedisCacheConfiguration configuration = cacheConfiguration != null
+                ? cacheConfiguration : getDefaultCacheConfiguration();
+        return new PipelinedRedisCache(name, getCacheWriter(), configuration, connectionFactory);
+    }
+}
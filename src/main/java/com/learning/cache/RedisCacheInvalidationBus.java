@@ -0,0 +1,207 @@
+package com.learning.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis发布订阅的失效通道
+ * 
+ * 面试重点知识点：
+ * 1. Redis Pub/Sub是"发后即忘"，订阅断开期间的消息会丢失，本地缓存需配合较短的过期时间兜底
+ * 2. RedisMessageListenerContainer负责订阅连接的维护与断线重连
+ * 3. 启动时Redis不可用不阻塞应用启动，后台定期重试订阅
+ * 4. 消息安全：频道上任何人都能发布消息，不能使用JDK反序列化(反序列化漏洞利用链)，
+ *    消息编码为JSON，key带类型前缀(S:字符串、L:Long、I:Integer)，格式不符的消息直接丢弃
+ * 
+ * 无法编码的key类型(如多参数组合key)改为通知其他节点清空该缓存的本地副本。
+ * 
+ * @author 学习笔记
+ */
+@Slf4j
+public class RedisCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    private static final long SUBSCRIBE_RETRY_SECONDS = 10;
+    private static final int MAX_PAYLOAD_BYTES = 1024 * 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private volatile RedisMessageListenerContainer listenerContainer;
+    private volatile boolean closed;
+
+    public RedisCacheInvalidationBus(RedisConnectionFactory connectionFactory, String channel, Duration flushInterval) {
+        super(flushInterval);
+        this.connectionFactory = connectionFactory;
+        this.channel = channel;
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        getScheduler().execute(this::startListening);
+    }
+
+    @Override
+    protected void send(InvalidationBatch batch) {
+        redisTemplate.convertAndSend(channel, encode(batch));
+        log.debug("广播缓存失效消息，清除key：{}，清空缓存：{}", batch.evicted(), batch.cleared().keySet());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        super.close();
+        if (listenerContainer != null) {
+            destroyQuietly(listenerContainer);
+        }
+    }
+
+    /**
+     * 订阅失效频道，失败后销毁容器并稍后重试
+     * 面试重点：容器启动失败后不能再次start，每次重试都新建容器
+     */
+    private void startListening() {
+        if (closed) {
+            return;
+        }
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            byte[] body = message.getBody();
+            InvalidationBatch batch = body.length <= MAX_PAYLOAD_BYTES
+                    ? decode(new String(body, StandardCharsets.UTF_8)) : null;
+            if (batch != null) {
+                receive(batch);
+            } else {
+                log.warn("丢弃格式不正确的缓存失效消息，频道：{}，长度：{}", channel, body.length);
+            }
+        }, new ChannelTopic(channel));
+        try {
+            container.afterPropertiesSet();
+            container.start();
+            listenerContainer = container;
+            log.info("已订阅缓存失效频道：{}", channel);
+        } catch (RuntimeException e) {
+            destroyQuietly(container);
+            log.warn("订阅缓存失效频道失败，{}秒后重试：{}", SUBSCRIBE_RETRY_SECONDS, e.getMessage());
+            getScheduler().schedule(this::startListening, SUBSCRIBE_RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 编码为JSON：{"nodeId":"..","evicted":{"users":["L:1"]},"cleared":{"orders":42}}
+     */
+    static String encode(InvalidationBatch batch) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("nodeId", batch.nodeId());
+        ObjectNode evicted = root.putObject("evicted");
+        ObjectNode cleared = root.putObject("cleared");
+        batch.cleared().forEach(cleared::put);
+        batch.evicted().forEach((cacheName, keys) -> {
+            if (!keys.stream().allMatch(RedisCacheInvalidationBus::supportsKey)) {
+                // 代数0不会让接收方的代数前进，只清空本地副本
+                if (!cleared.has(cacheName)) {
+                    cleared.put(cacheName, 0L);
+                }
+                return;
+            }
+            ArrayNode array = evicted.putArray(cacheName);
+            keys.forEach(key -> array.add(encodeKey(key)));
+        });
+        return root.toString();
+    }
+
+    /**
+     * 解析并校验消息，格式不符时返回null
+     */
+    static InvalidationBatch decode(String payload) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(payload);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+        if (root == null || !root.path("nodeId").isTextual()
+                || !root.path("evicted").isObject() || !root.path("cleared").isObject()) {
+            return null;
+        }
+        Map<String, Set<Object>> evicted = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.get("evicted").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            if (!entry.getValue().isArray()) {
+                return null;
+            }
+            Set<Object> keys = new HashSet<>();
+            for (JsonNode key : entry.getValue()) {
+                Object decoded = key.isTextual() ? decodeKey(key.asText()) : null;
+                if (decoded == null) {
+                    return null;
+                }
+                keys.add(decoded);
+            }
+            evicted.put(entry.getKey(), keys);
+        }
+        Map<String, Long> cleared = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.get("cleared").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            if (!entry.getValue().isIntegralNumber() || !entry.getValue().canConvertToLong()) {
+                return null;
+            }
+            cleared.put(entry.getKey(), entry.getValue().longValue());
+        }
+        return new InvalidationBatch(root.get("nodeId").asText(), evicted, cleared);
+    }
+
+    private static boolean supportsKey(Object key) {
+        return key instanceof String || key instanceof Long || key instanceof Integer;
+    }
+
+    private static String encodeKey(Object key) {
+        if (key instanceof Long) {
+            return "L:" + key;
+        }
+        if (key instanceof Integer) {
+            return "I:" + key;
+        }
+        return "S:" + key;
+    }
+
+    private static Object decodeKey(String encoded) {
+        if (encoded.length() < 2 || encoded.charAt(1) != ':') {
+            return null;
+        }
+        String value = encoded.substring(2);
+        try {
+            return switch (encoded.charAt(0)) {
+                case 'S' -> value;
+                case 'L' -> Long.parseLong(value);
+                case 'I' -> Integer.parseInt(value);
+                default -> null;
+            };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void destroyQuietly(RedisMessageListenerContainer container) {
+        try {
+            container.destroy();
+        } catch (Exception e) {
+            log.debug("关闭订阅容器失败：{}", e.getMessage());
+        }
+    }
+}
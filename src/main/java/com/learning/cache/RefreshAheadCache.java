@@ -0,0 +1,181 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 提前刷新(Refresh-Ahead)缓存
+ * 
+ * 面试重点知识点：
+ * 1. 被动过期的问题：key过期后的第一个请求必须同步回源，产生延迟毛刺
+ * 2. 提前刷新：条目存活超过TTL的一定比例后，读请求仍立即返回旧值，同时异步重新加载
+ * 3. 每个key同一时刻最多一个刷新任务
+ * 4. 刷新期间发生了清除则放弃写回，避免旧数据覆盖更新
+ * 
+ * 缓存值被包装为Stamped(值 + 写入时间)，写入时间使用墙上时钟，以便多个节点共享。
+ * 刷新比例应小于 1 - TTL抖动比例，保证在最短的实际TTL之前触发刷新。
+ * 
+ * @author 学习笔记
+ */
+@Slf4j
+public class RefreshAheadCache extends CacheDecorator {
+
+    private final long refreshAfterMillis;
+    private final Function<String, Function<Object, Object>> loaderLookup;
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder refreshFailureCount = new LongAdder();
+
+    public RefreshAheadCache(Cache delegate, Duration timeToLive, double refreshAfterFraction,
+                             Function<String, Function<Object, Object>> loaderLookup, Executor executor) {
+        this(delegate, timeToLive, refreshAfterFraction, loaderLookup, executor, System::currentTimeMillis);
+    }
+
+    RefreshAheadCache(Cache delegate, Duration timeToLive, double refreshAfterFraction,
+                      Function<String, Function<Object, Object>> loaderLookup, Executor executor, LongSupplier clock) {
+        super(delegate);
+        if (refreshAfterFraction <= 0 || refreshAfterFraction >= 1) {
+            throw new IllegalArgumentException("refreshAfterFraction must be in (0, 1): " + refreshAfterFraction);
+        }
+        this.refreshAfterMillis = (long) (timeToLive.toMillis() * refreshAfterFraction);
+        this.loaderLookup = loaderLookup;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null || !(wrapper.get() instanceof Stamped stamped)) {
+            return wrapper;
+        }
+        refreshIfStale(key, stamped);
+        return new SimpleValueWrapper(stamped.value());
+    }
+
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Map<Object, ValueWrapper> found = BatchCache.getAll(delegate, keys);
+        found.replaceAll((key, wrapper) -> {
+            if (!(wrapper.get() instanceof Stamped stamped)) {
+                return wrapper;
+            }
+            refreshIfStale(key, stamped);
+            return new SimpleValueWrapper(stamped.value());
+        });
+        return found;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = delegate.get(key, () -> stamp(valueLoader.call()));
+        if (value instanceof Stamped stamped) {
+            refreshIfStale(key, stamped);
+            return cast(stamped.value());
+        }
+        return cast(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, stamp(value));
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        Map<Object, Object> stamped = new LinkedHashMap<>();
+        entries.forEach((key, value) -> stamped.put(key, stamp(value)));
+        BatchCache.putAll(delegate, stamped);
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidations.incrementAndGet();
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        invalidations.incrementAndGet();
+        delegate.clear();
+    }
+
+    public long getRefreshCount() { return refreshCount.sum(); }
+    public long getRefreshFailureCount() { return refreshFailureCount.sum(); }
+    public int getRefreshingCount() { return refreshing.size(); }
+
+    private void refreshIfStale(Object key, Stamped stamped) {
+        if (clock.getAsLong() - stamped.writtenAt() < refreshAfterMillis) {
+            return;
+        }
+        Function<Object, Object> loader = loaderLookup.apply(getName());
+        if (loader == null || !refreshing.add(key)) {
+            return;
+        }
+        long invalidationsAtStart = invalidations.get();
+        try {
+            executor.execute(() -> refresh(key, loader, invalidationsAtStart));
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.warn("缓存[{}]提前刷新任务被拒绝，key：{}", getName(), key);
+        }
+    }
+
+    private void refresh(Object key, Function<Object, Object> loader, long invalidationsAtStart) {
+        try {
+            Object value = loader.apply(key);
+            if (invalidations.get() != invalidationsAtStart) {
+                log.debug("缓存[{}]刷新期间发生清除，放弃写回，key：{}", getName(), key);
+                return;
+            }
+            if (value == null) {
+                delegate.evict(key);
+            } else {
+                delegate.put(key, stamp(value));
+            }
+            refreshCount.increment();
+        } catch (RuntimeException e) {
+            refreshFailureCount.increment();
+            log.warn("缓存[{}]提前刷新失败，key：{}，异常：{}", getName(), key, e.getMessage());
+        } finally {
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * null值保持原样交给下一层处理，不包装
+     */
+    private Object stamp(Object value) {
+        return value != null ? new Stamped(value, clock.getAsLong()) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+
+    /**
+     * 带写入时间的缓存值
+     */
+    public record Stamped(Object value, long writtenAt) implements Serializable {
+    }
+}
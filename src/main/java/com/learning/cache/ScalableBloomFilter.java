@@ -0,0 +1,123 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 可扩容的计数布隆过滤器
+ * 
+ * 面试重点知识点：
+ * 1. 普通布隆过滤器容量固定，元素超出预期后误判率迅速上升
+ * 2. 可扩容布隆过滤器(Scalable Bloom Filter)：当前分片写满后追加更大的分片，
+ *    新分片的误判率按比例收紧，使整体误判率收敛在目标值附近
+ * 3. 内存上限：达到上限后不再追加分片，以误判率上升换取内存可控
+ * 
+ * @author 学习笔记
+ */
+@Slf4j
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final String name;
+    private final long initialCapacity;
+    private final double falsePositiveRate;
+    private final long maxMemoryBytes;
+    private final List<CountingBloomFilter> stages = new CopyOnWriteArrayList<>();
+    private volatile CountingBloomFilter current;
+    private volatile boolean memoryLimitReached;
+
+    public ScalableBloomFilter(String name, long initialCapacity, double falsePositiveRate, long maxMemoryBytes) {
+        this.name = name;
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.current = new CountingBloomFilter(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO));
+        this.stages.add(current);
+    }
+
+    public void add(Object key) {
+        CountingBloomFilter stage = current;
+        if (stage.size() >= stage.getCapacity() && !memoryLimitReached) {
+            stage = grow(stage);
+        }
+        stage.add(key);
+    }
+
+    /**
+     * 删除元素
+     * 
+     * 只有恰好一个分片命中时才删除：元素真实所在的分片必然命中，
+     * 若多个分片命中则无法区分真实位置，宁可保留误判也不产生漏判。
+     */
+    public void remove(Object key) {
+        CountingBloomFilter target = null;
+        for (CountingBloomFilter stage : stages) {
+            if (stage.mightContain(key)) {
+                if (target != null) {
+                    return;
+                }
+                target = stage;
+            }
+        }
+        if (target != null) {
+            target.remove(key);
+        }
+    }
+
+    public boolean mightContain(Object key) {
+        for (CountingBloomFilter stage : stages) {
+            if (stage.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 整体误判率：1 - ∏(1 - p_i)
+     */
+    public double expectedFalsePositiveRate() {
+        double notFalsePositive = 1;
+        for (CountingBloomFilter stage : stages) {
+            notFalsePositive *= 1 - stage.expectedFalsePositiveRate();
+        }
+        return 1 - notFalsePositive;
+    }
+
+    public long memoryBytes() {
+        return stages.stream().mapToLong(CountingBloomFilter::memoryBytes).sum();
+    }
+
+    public long size() {
+        return stages.stream().mapToLong(CountingBloomFilter::size).sum();
+    }
+
+    public int stageCount() { return stages.size(); }
+    public String getName() { return name; }
+    public double getFalsePositiveRate() { return falsePositiveRate; }
+    public long getMaxMemoryBytes() { return maxMemoryBytes; }
+    public boolean isMemoryLimitReached() { return memoryLimitReached; }
+
+    private synchronized CountingBloomFilter grow(CountingBloomFilter full) {
+        if (current != full) {
+            return current;
+        }
+        int index = stages.size();
+        long capacity = initialCapacity * (long) Math.pow(GROWTH_FACTOR, index);
+        double stageRate = falsePositiveRate * (1 - TIGHTENING_RATIO) * Math.pow(TIGHTENING_RATIO, index);
+        if (memoryBytes() + CountingBloomFilter.estimateMemoryBytes(capacity, stageRate) > maxMemoryBytes) {
+            memoryLimitReached = true;
+            log.warn("布隆过滤器[{}]已达到内存上限{}字节，误判率将逐步上升", name, maxMemoryBytes);
+            return full;
+        }
+        CountingBloomFilter next = new CountingBloomFilter(capacity, stageRate);
+        stages.add(next);
+        current = next;
+        log.info("布隆过滤器[{}]扩容，分片数：{}，新分片容量：{}", name, stages.size(), capacity);
+        return next;
+    }
+}
@@ -0,0 +1,96 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单飞(Single-Flight)缓存：按key合并并发回源请求
+ * 
+ * 面试重点知识点：
+ * 1. 缓存击穿：热点key过期瞬间大量请求同时回源
+ * 2. 按key互斥：同一key只有第一个未命中的请求执行加载，其余请求等待同一个Future
+ * 3. 与RedisCache自带sync的区别：RedisCache对整个缓存加一把锁，这里只锁单个key
+ * 
+ * 配合@Cacheable(sync = true)使用，任何缓存名称都可以直接套用。
+ * 
+ * @author 学习笔记
+ */
+public class SingleFlightCache extends CacheDecorator {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    public SingleFlightCache(Cache delegate) {
+        super(delegate);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalescedCount.increment();
+            return (T) await(key, existing, valueLoader);
+        }
+
+        try {
+            Object value = load(key, valueLoader);
+            future.complete(value);
+            return (T) value;
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+            throw retrievalFailure(key, valueLoader, ex);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 获得加载权后再检查一次缓存，避免前一轮加载刚刚完成时重复回源
+     */
+    private Object load(Object key, Callable<?> valueLoader) throws Exception {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return cached.get();
+        }
+        loadCount.increment();
+        Object value = valueLoader.call();
+        delegate.put(key, value);
+        return value;
+    }
+
+    private Object await(Object key, CompletableFuture<Object> future, Callable<?> valueLoader) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw retrievalFailure(key, valueLoader, ex.getCause());
+        }
+    }
+
+    /**
+     * 内层缓存已经包装过的异常原样抛出，避免重复包装
+     */
+    private static ValueRetrievalException retrievalFailure(Object key, Callable<?> valueLoader, Throwable ex) {
+        if (ex instanceof ValueRetrievalException retrievalException) {
+            return retrievalException;
+        }
+        return new ValueRetrievalException(key, valueLoader, ex);
+    }
+
+    public long getLoadCount() { return loadCount.sum(); }
+    public long getCoalescedCount() { return coalescedCount.sum(); }
+    public int getInFlightCount() { return inFlight.size(); }
+}
@@ -0,0 +1,110 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * 标签登记缓存
+ *
+ * 面试重点知识点：
+ * 1. 线程绑定：@CacheTags切面在缓存拦截器之外把标签计算方式绑定到当前线程，缓存写入时再计算标签
+ * 2. 登记失败时放弃写入，宁可多回源一次也不留下无法精确清除的条目
+ *
+ * 当前线程没有绑定标签，或绑定的缓存名称不包含本缓存时，写入直接委托给下一层。
+ * sync = true的@Cacheable经由get(key, valueLoader)写入，同样在加载后、写入前登记，此时不经过内层的单飞合并。
+ *
+ * @author 学习笔记
+ */
+@Slf4j
+public class TaggingCache extends CacheDecorator {
+
+    private static final ThreadLocal<Binding> BINDING = new ThreadLocal<>();
+
+    private final CacheTagIndex index;
+
+    public TaggingCache(Cache delegate, CacheTagIndex index) {
+        super(delegate);
+        this.index = index;
+    }
+
+    /**
+     * 绑定标签计算方式，返回之前的绑定以便嵌套调用结束后恢复
+     */
+    public static Binding bind(Binding binding) {
+        Binding previous = BINDING.get();
+        BINDING.set(binding);
+        return previous;
+    }
+
+    public static void restore(Binding previous) {
+        if (previous == null) {
+            BINDING.remove();
+        } else {
+            BINDING.set(previous);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (register(key, value)) {
+            delegate.put(key, value);
+        }
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Binding binding = BINDING.get();
+        if (binding == null || !binding.cacheNames().contains(getName())) {
+            return delegate.get(key, valueLoader);
+        }
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            T value = (T) cached.get();
+            return value;
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * @return 是否可以写入下一层
+     */
+    private boolean register(Object key, Object value) {
+        Binding binding = BINDING.get();
+        if (binding == null || !binding.cacheNames().contains(getName())) {
+            return true;
+        }
+        if (!CacheTagIndex.supportsKey(key)) {
+            log.warn("缓存[{}]的key类型不支持标签：{}，不写入缓存", getName(), key.getClass().getName());
+            return false;
+        }
+        try {
+            Collection<String> tags = binding.tags().apply(value);
+            if (!tags.isEmpty()) {
+                index.register(getName(), key, tags);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("缓存[{}]登记标签失败，不写入缓存，key：{}，原因：{}", getName(), key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 当前线程的标签绑定：生效的缓存名称 + 根据返回值计算标签的函数
+     */
+    public record Binding(Set<String> cacheNames, Function<Object, Collection<String>> tags) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.learning.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 二级缓存：进程内L1 + 分布式L2
+ * 
+ * 面试重点知识点：
+ * 1. 多级缓存的读写路径：读先L1后L2，L2命中回填L1
+ * 2. 写入与清除的顺序：先操作L2再操作L1，避免L1被旧值回填
+ * 3. 分层命中率统计
+ * 
+ * @author 学习笔记
+ */
+public class TwoLevelCache extends CacheDecorator {
+
+    private final LocalCache localCache;
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+
+    public TwoLevelCache(Cache remoteCache, LocalCache localCache) {
+        super(remoteCache);
+        this.localCache = localCache;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object local = localCache.get(key);
+        if (local != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(fromStoreValue(local));
+        }
+        localMisses.increment();
+
+        ValueWrapper remote = delegate.get(key);
+        if (remote == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        localCache.put(key, toStoreValue(remote.get()));
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object local = localCache.get(key);
+        if (local != null) {
+            localHits.increment();
+            return (T) fromStoreValue(local);
+        }
+        localMisses.increment();
+
+        boolean[] loaded = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        if (loaded[0]) {
+            remoteMisses.increment();
+        } else {
+            remoteHits.increment();
+        }
+        localCache.put(key, toStoreValue(value));
+        return value;
+    }
+
+    /**
+     * 批量读取：L1未命中的key一次性交给L2批量读取，命中结果回填L1
+     */
+    @Override
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Map<Object, ValueWrapper> found = new LinkedHashMap<>();
+        List<Object> remoteKeys = new ArrayList<>();
+        for (Object key : keys) {
+            Object local = localCache.get(key);
+            if (local != null) {
+                localHits.increment();
+                found.put(key, new SimpleValueWrapper(fromStoreValue(local)));
+            } else {
+                localMisses.increment();
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return found;
+        }
+        Map<Object, ValueWrapper> remote = BatchCache.getAll(delegate, remoteKeys);
+        remoteHits.add(remote.size());
+        remoteMisses.add(remoteKeys.size() - remote.size());
+        remote.forEach((key, wrapper) -> localCache.put(key, toStoreValue(wrapper.get())));
+        found.putAll(remote);
+        if (found.size() == remote.size()) {
+            return found;
+        }
+        // 恢复调用方传入的key顺序
+        Map<Object, ValueWrapper> ordered = new LinkedHashMap<>();
+        for (Object key : keys) {
+            ValueWrapper wrapper = found.get(key);
+            if (wrapper != null) {
+                ordered.put(key, wrapper);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        localCache.put(key, toStoreValue(value));
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        BatchCache.putAll(delegate, entries);
+        entries.forEach((key, value) -> localCache.put(key, toStoreValue(value)));
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        localCache.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        localCache.clear();
+    }
+
+    public LocalCache getLocalCache() { return localCache; }
+    public long getLocalHitCount() { return localHits.sum(); }
+    public long getLocalMissCount() { return localMisses.sum(); }
+    public long getRemoteHitCount() { return remoteHits.sum(); }
+    public long getRemoteMissCount() { return remoteMisses.sum(); }
+
+    public double getLocalHitRate() {
+        long hits = localHits.sum();
+        long total = hits + localMisses.sum();
+        return total > 0 ? (double) hits / total * 100 : 0;
+    }
+
+    private static Object toStoreValue(Object value) {
+        return value != null ? value : NullValue.INSTANCE;
+    }
+
+    private static Object fromStoreValue(Object value) {
+        return value == NullValue.INSTANCE ? null : value;
+    }
+}
@@ -0,0 +1,265 @@
+package com.learning.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 异步回写(Write-Behind)队列
+ *
+ * 面试重点知识点：
+ * 1. 缓存同步更新，数据库写入排队后批量执行，调用方不再等待持久化
+ * 2. 按key合并：同一key在队列中只保留最新值，高频更新只落库一次
+ * 3. 有界队列 + 背压：队列满时新key最多等待offerTimeout，超时由调用方同步写入
+ * 4. 定时刷新 + 阈值刷新；关闭时刷完全部积压，保证优雅停机不丢数据
+ * 5. 刷新串行执行，同一key的新旧值不会乱序落库；写入失败的条目重新入队(不覆盖更新的值)
+ *
+ * @author 学习笔记
+ */
+@Slf4j
+public class WriteBehindQueue<K, V> implements AutoCloseable {
+
+    private final String name;
+    private final Consumer<Map<K, V>> writer;
+    private final int maxPendingKeys;
+    private final int batchSize;
+    private final int flushThreshold;
+    private final long offerTimeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LinkedHashMap<K, V> pending = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+
+    public WriteBehindQueue(String name, Consumer<Map<K, V>> writer, int maxPendingKeys, int batchSize,
+                            int flushThreshold, Duration flushInterval, Duration offerTimeout) {
+        if (maxPendingKeys <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("maxPendingKeys and batchSize must be positive");
+        }
+        this.name = name;
+        this.writer = writer;
+        this.maxPendingKeys = maxPendingKeys;
+        this.batchSize = batchSize;
+        // flushThreshold<=0 表示只按定时刷新
+        this.flushThreshold = flushThreshold > 0 ? Math.min(flushThreshold, maxPendingKeys) : Integer.MAX_VALUE;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一次写入
+     * 面试重点：已在队列中的key直接合并，不受容量限制；队列满时新key阻塞等待
+     *
+     * @return false表示队列已满且等待超时(或已关闭)，调用方需通过writeNow同步写入
+     */
+    public boolean submit(K key, V value) throws InterruptedException {
+        int size;
+        lock.lock();
+        try {
+            if (closed) {
+                rejectedCount.increment();
+                return false;
+            }
+            if (pending.containsKey(key)) {
+                pending.put(key, value);
+                submittedCount.increment();
+                coalescedCount.increment();
+                return true;
+            }
+            long remaining = offerTimeoutNanos;
+            while (pending.size() >= maxPendingKeys) {
+                if (remaining <= 0 || closed) {
+                    rejectedCount.increment();
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            pending.put(key, value);
+            submittedCount.increment();
+            size = pending.size();
+        } finally {
+            lock.unlock();
+        }
+        if (size >= flushThreshold) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    /**
+     * 同步写入单个key，与批量刷新串行执行，避免与正在落库的旧值乱序
+     */
+    public void writeNow(K key, V value) {
+        flushLock.lock();
+        try {
+            lock.lock();
+            try {
+                // 队列中的旧值已被本次写入覆盖，不再需要刷新
+                if (pending.remove(key) != null) {
+                    notFull.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+            writer.accept(Map.of(key, value));
+            writtenCount.increment();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 刷新积压的写入，每批最多batchSize个key，直到队列为空或某一批写入失败
+     *
+     * @return 本次成功写入的key数量
+     */
+    public int flush() {
+        int written = 0;
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            while (true) {
+                Map<K, V> batch = drain();
+                if (batch.isEmpty()) {
+                    return written;
+                }
+                try {
+                    writer.accept(batch);
+                } catch (RuntimeException e) {
+                    failureCount.increment();
+                    requeue(batch);
+                    log.warn("异步回写[{}]批量写入失败，{}个key重新入队：{}", name, batch.size(), e.getMessage());
+                    return written;
+                }
+                written += batch.size();
+                writtenCount.add(batch.size());
+                batchCount.increment();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() { return name; }
+    public int getMaxPendingKeys() { return maxPendingKeys; }
+    public long getSubmittedCount() { return submittedCount.sum(); }
+    public long getCoalescedCount() { return coalescedCount.sum(); }
+    public long getRejectedCount() { return rejectedCount.sum(); }
+    public long getWrittenCount() { return writtenCount.sum(); }
+    public long getBatchCount() { return batchCount.sum(); }
+    public long getFailureCount() { return failureCount.sum(); }
+
+    /**
+     * 停止接收新写入并刷完积压
+     * 面试重点：优雅停机时先停定时任务，再同步刷新剩余数据
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int written = flush();
+        int remaining = getPendingCount();
+        if (remaining > 0) {
+            log.error("异步回写[{}]关闭时仍有{}个key未能写入", name, remaining);
+        } else {
+            log.info("异步回写[{}]已关闭，停机前刷新{}个key", name, written);
+        }
+    }
+
+    private Map<K, V> drain() {
+        Map<K, V> batch = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            Iterator<Map.Entry<K, V>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                Map.Entry<K, V> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+            if (!batch.isEmpty()) {
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return batch;
+    }
+
+    /**
+     * 失败的条目重新入队；刷新期间又提交了新值的key保留新值
+     */
+    private void requeue(Map<K, V> batch) {
+        lock.lock();
+        try {
+            batch.forEach(pending::putIfAbsent);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(this::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            flushRequested.set(false);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("异步回写[{}]刷新失败：{}", name, e.getMessage());
+        }
+    }
+}
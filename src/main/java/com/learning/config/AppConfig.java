@@ -6,6 +6,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 /**
@@ -27,6 +32,7 @@ public class AppConfig {
     private Jwt jwt = new Jwt();
     private Cache cache = new Cache();
     private Async async = new Async();
+    private Performance performance = new Performance();
 
     @Data
     public static class Jwt {
@@ -37,6 +43,199 @@ public class AppConfig {
     @Data
     public static class Cache {
         private Integer defaultTtl = 3600; // 1小时
+        private Map<String, Duration> timeToLive = new LinkedHashMap<>(); // 按缓存名称配置的Redis TTL
+        private double ttlJitter = 0.1; // TTL随机抖动比例，防止缓存雪崩
+        private Local local = new Local();
+        private boolean singleFlightEnabled = true;
+        private Bloom bloom = new Bloom();
+        private RefreshAhead refreshAhead = new RefreshAhead();
+        private Generation generation = new Generation();
+        private Invalidation invalidation = new Invalidation();
+        private Warmup warmup = new Warmup();
+        private HotKey hotKey = new HotKey();
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private NegativeCache negativeCache = new NegativeCache();
+        private WriteBehind writeBehind = new WriteBehind();
+        private OffHeap offHeap = new OffHeap();
+        private Snapshot snapshot = new Snapshot();
+        private Tags tags = new Tags();
+
+        /**
+         * 进程内一级缓存配置
+         * 面试重点：多级缓存中本地缓存的容量与过期时间、W-TinyLFU按字节权重淘汰
+         */
+        @Data
+        public static class Local {
+            private boolean enabled = true;
+            private List<String> cacheNames = new ArrayList<>(List.of("userCache", "users", "orders"));
+            private long maximumWeightBytes = 64 * 1024 * 1024; // 按估算的条目字节数限制容量
+            private long expectedEntries = 10000; // 决定频率草图大小
+            private Duration expireAfterWrite = Duration.ofMinutes(5);
+        }
+
+        /**
+         * 布隆过滤器配置
+         * 面试重点：缓存穿透防护中误判率与内存占用的权衡
+         */
+        @Data
+        public static class Bloom {
+            private boolean enabled = true;
+            private long expectedInsertions = 100000;
+            private double falsePositiveRate = 0.01;
+            private long maxMemoryBytes = 16 * 1024 * 1024;
+            private int seedBatchSize = 1000;
+        }
+
+        /**
+         * 提前刷新配置
+         * 面试重点：刷新比例需小于 1 - TTL抖动比例，才能赶在条目过期前刷新
+         */
+        @Data
+        public static class RefreshAhead {
+            private boolean enabled = false;
+            private List<String> cacheNames = new ArrayList<>(List.of("users", "orders"));
+            private double refreshAfterFraction = 0.8;
+        }
+
+        /**
+         * 版本化命名空间配置
+         * 面试重点：清空缓存由SCAN + DEL变为一次INCR
+         */
+        @Data
+        public static class Generation {
+            private boolean enabled = true;
+            private List<String> cacheNames = new ArrayList<>(List.of("userCache", "users", "orders"));
+            private Duration refreshInterval = Duration.ofSeconds(1);
+        }
+
+        /**
+         * 跨节点本地缓存失效广播配置
+         * 面试重点：多节点部署下本地缓存的一致性
+         */
+        @Data
+        public static class Invalidation {
+            private boolean enabled = true;
+            private Transport transport = Transport.REDIS;
+            private String channel = "cache:invalidation";
+            private Duration flushInterval = Duration.ofMillis(100);
+
+            public enum Transport {
+                REDIS, MEMORY
+            }
+        }
+
+        /**
+         * 缓存预热配置
+         * 面试重点：批量大小、并发度与限流共同决定预热对数据库的压力
+         */
+        @Data
+        public static class Warmup {
+            private int batchSize = 500;
+            private int parallelism = 4;
+            private int maxKeysPerSecond = 5000; // 0表示不限流
+            private int maxKeys = 100000; // 单次手动预热的key数量上限
+            private boolean startupEnabled = true;
+            private Map<String, List<String>> startupKeys = new LinkedHashMap<>(); // 缓存名称 -> 启动时预热的热点key
+        }
+
+        /**
+         * 热点key探测配置
+         * 面试重点：采样率、Top-K容量与衰减周期决定统计精度和开销
+         */
+        @Data
+        public static class HotKey {
+            private boolean enabled = true;
+            private List<String> cacheNames = new ArrayList<>(List.of("userCache", "users", "orders"));
+            private int sampleRate = 10; // 每N次读取采样一次
+            private int sketchWidth = 4096;
+            private int topK = 20;
+            private long minHotCount = 10; // 采样计数达到该值才算热点
+            private Duration decayInterval = Duration.ofMinutes(1);
+            private boolean autoPin = true; // 热点key常驻本地缓存
+            private double ttlMultiplier = 2.0; // 热点key写入Redis时的TTL倍数，1表示不延长
+        }
+
+        /**
+         * Redis缓存熔断配置
+         * 面试重点：失败率/慢调用阈值、熔断时长与半开试探次数
+         */
+        @Data
+        public static class CircuitBreaker {
+            private boolean enabled = true;
+            private int slidingWindowSize = 50;
+            private int minimumCalls = 10;
+            private double failureRateThreshold = 0.5;
+            private Duration slowCallThreshold = Duration.ofMillis(200);
+            private double slowCallRateThreshold = 0.8;
+            private Duration waitInOpenState = Duration.ofSeconds(10);
+            private int halfOpenTrialCalls = 5;
+            private long fallbackMaximumSize = 1000;
+            private Duration fallbackExpireAfterWrite = Duration.ofMinutes(1);
+            private int maxPendingEvictions = 10000; // 超出后恢复时整体清空
+        }
+
+        /**
+         * 空结果缓存配置
+         * 面试重点：不存在的数据缓存为哨兵值，按缓存名称使用独立的短TTL
+         */
+        @Data
+        public static class NegativeCache {
+            private boolean enabled = true;
+            private Map<String, Duration> timeToLive = new LinkedHashMap<>(Map.of(
+                    "userCache", Duration.ofSeconds(30),
+                    "users", Duration.ofSeconds(30),
+                    "orders", Duration.ofSeconds(30))); // 缓存名称 -> 哨兵TTL，未配置的缓存不缓存空结果
+        }
+
+        /**
+         * userCache异步回写配置
+         * 面试重点：按key合并、批量刷新、有界队列与背压
+         */
+        @Data
+        public static class WriteBehind {
+            private boolean enabled = false;
+            private Duration flushInterval = Duration.ofSeconds(1);
+            private int batchSize = 100;
+            private int flushThreshold = 500; // 积压达到该数量立即刷新
+            private int maxPendingKeys = 10000;
+            private Duration offerTimeout = Duration.ofMillis(100); // 队列满时的最长等待，超时后同步写入
+        }
+
+        /**
+         * 堆外缓存层配置
+         * 面试重点：直接内存容量(-XX:MaxDirectMemorySize)、Slab页大小与过期时间
+         */
+        @Data
+        public static class OffHeap {
+            private boolean enabled = false;
+            private List<String> cacheNames = new ArrayList<>(List.of("users", "orders"));
+            private long maxMemoryBytes = 256L * 1024 * 1024; // 每个缓存的堆外内存上限
+            private int pageSizeBytes = 1024 * 1024; // 同时是单个值的最大尺寸
+            private Duration expireAfterWrite = Duration.ofMinutes(30);
+        }
+
+        /**
+         * 本地缓存快照配置
+         * 面试重点：定期与停机时写快照，重启后按需恢复，缩短发布后的预热时间
+         */
+        @Data
+        public static class Snapshot {
+            private boolean enabled = false;
+            private String directory = "cache-snapshots";
+            private Duration interval = Duration.ofMinutes(5);
+            private int maxEntries = 10000; // 每个缓存最多写入的热点条目数
+            private Duration maxRestoreTtl = Duration.ofSeconds(30); // 恢复条目的最长存活时间，停机期间的单key失效收不到
+        }
+
+        /**
+         * 缓存标签配置
+         * 面试重点：派生数据按标签精确失效，索引不可用时整体清空这些缓存
+         */
+        @Data
+        public static class Tags {
+            private List<String> cacheNames = new ArrayList<>(List.of("orderQueries"));
+            private Duration indexTtl = Duration.ofHours(1); // 需长于这些缓存的条目TTL
+        }
     }
 
     @Data
@@ -46,6 +245,39 @@ public class AppConfig {
         private Integer queueCapacity = 100;
     }
 
+    @Data
+    public static class Performance {
+        private Sampling sampling = new Sampling();
+        private Traces traces = new Traces();
+
+        /**
+         * 性能监控采样配置
+         * 面试重点：按层级固定比例采样，高QPS方法自适应降低采样率，慢调用与异常始终记录
+         */
+        @Data
+        public static class Sampling {
+            private boolean enabled = false;
+            private Map<String, Double> layerRates = new LinkedHashMap<>(Map.of(
+                    "controller", 1.0, "service", 0.5, "repository", 0.2)); // 各层级的固定采样比例，越底层调用越多、比例越低
+            private boolean adaptive = true;
+            private double targetSamplesPerSecond = 100; // 每个方法每秒期望的采样数
+            private int maxInterval = 1000; // 自适应时最多每N次调用采样一次
+            private Duration slowThreshold = Duration.ofMillis(100); // 不低于该耗时的调用始终记录
+        }
+
+        /**
+         * 请求调用树配置
+         * 面试重点：每个线程复用一棵调用树，只保留最近的慢请求
+         */
+        @Data
+        public static class Traces {
+            private boolean enabled = true;
+            private Duration slowThreshold = Duration.ofMillis(500); // 根调用不低于该耗时时保留调用树
+            private int capacity = 100; // 保留的慢请求数
+            private int maxSpans = 256; // 单个请求最多记录的节点数
+        }
+    }
+
     /**
      * 自定义线程池配置
      * 面试重点：线程池参数调优、拒绝策略
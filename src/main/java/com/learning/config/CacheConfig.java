@@ -0,0 +1,379 @@
+package com.learning.config;
+
+import com.learning.cache.CacheCircuitBreaker;
+import com.learning.cache.CacheGenerations;
+import com.learning.cache.CacheInvalidationBus;
+import com.learning.cache.CacheLayer;
+import com.learning.cache.CacheLoaderRegistry;
+import com.learning.cache.CacheTagIndex;
+import com.learning.cache.CircuitBreakerCache;
+import com.learning.cache.CircuitBreakerCacheErrorHandler;
+import com.learning.cache.CompactRedisSerializer;
+import com.learning.cache.GenerationalCache;
+import com.learning.cache.HotKeyDetector;
+import com.learning.cache.HotKeyTtlFunction;
+import com.learning.cache.InMemoryCacheInvalidationBus;
+import com.learning.cache.InstrumentedCache;
+import com.learning.cache.InvalidationBatch;
+import com.learning.cache.InvalidationBroadcastingCache;
+import com.learning.cache.JitteredTtlFunction;
+import com.learning.cache.LayeredCacheManager;
+import com.learning.cache.LocalCache;
+import com.learning.cache.LocalCacheSnapshot;
+import com.learning.cache.NegativeCachingCache;
+import com.learning.cache.NegativeTtlFunction;
+import com.learning.cache.OffHeapCache;
+import com.learning.cache.OffHeapStore;
+import com.learning.cache.PipelinedRedisCacheManager;
+import com.learning.cache.RedisCacheInvalidationBus;
+import com.learning.cache.RefreshAheadCache;
+import com.learning.cache.SingleFlightCache;
+import com.learning.cache.TaggingCache;
+import com.learning.cache.TwoLevelCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 缓存配置类
+ * 
+ * 面试重点知识点：
+ * 1. 自定义CacheManager后SpringBoot缓存自动配置的退让(@ConditionalOnMissingBean)
+ * 2. RedisCacheManager的构建方式
+ * 3. 多级缓存的组装：本地缓存 + Redis
+ * 4. 分级TTL + 随机抖动防止缓存雪崩
+ * 5. 最外层统一采集缓存指标
+ * 6. 提前刷新：热点条目在过期前异步重新加载
+ * 7. 版本化命名空间：key前缀带代数，清空缓存为O(1)
+ * 8. 失效广播：多节点之间同步清除本地缓存
+ * 9. 热点key探测：采样统计访问频率，热点key延长TTL
+ * 10. Redis熔断降级：CacheErrorHandler + 熔断器，故障期间只使用本地缓存
+ * 11. 堆外缓存层：大工作集放在直接内存中，避免GC压力与网络往返
+ * 12. 本地缓存快照：重启后从内存映射文件按需恢复热点条目
+ * 13. 缓存标签：派生数据写入时登记标签，写操作按标签精确清除
+ * 
+ * @author 学习笔记
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+@Slf4j
+public class CacheConfig implements CachingConfigurer {
+
+    /**
+     * 缓存代数计数器
+     * 面试重点：多节点通过Redis共享代数
+     */
+    @Bean
+    public CacheGenerations cacheGenerations(StringRedisTemplate stringRedisTemplate, AppConfig appConfig) {
+        return new CacheGenerations(stringRedisTemplate, appConfig.getCache().getGeneration().getRefreshInterval());
+    }
+
+    /**
+     * 缓存标签索引
+     * 面试重点：标签到缓存条目的反向索引存放在Redis中，多节点共享
+     */
+    @Bean
+    public CacheTagIndex cacheTagIndex(StringRedisTemplate stringRedisTemplate, AppConfig appConfig) {
+        return new CacheTagIndex(stringRedisTemplate, appConfig.getCache().getTags().getIndexTtl());
+    }
+
+    /**
+     * 缓存异常处理器
+     * 面试重点：Redis异常不影响业务请求
+     */
+    @Bean
+    public CircuitBreakerCacheErrorHandler circuitBreakerCacheErrorHandler() {
+        return new CircuitBreakerCacheErrorHandler();
+    }
+
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return circuitBreakerCacheErrorHandler();
+    }
+
+    /**
+     * Redis缓存熔断器，所有缓存共享
+     */
+    @Bean
+    public CacheCircuitBreaker cacheCircuitBreaker(AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.Cache.CircuitBreaker breaker = appConfig.getCache().getCircuitBreaker();
+        CacheCircuitBreaker circuitBreaker = new CacheCircuitBreaker(breaker.getSlidingWindowSize(),
+                breaker.getMinimumCalls(), breaker.getFailureRateThreshold(), breaker.getSlowCallThreshold(),
+                breaker.getSlowCallRateThreshold(), breaker.getWaitInOpenState(), breaker.getHalfOpenTrialCalls());
+        Gauge.builder("cache.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("0=CLOSED, 1=OPEN, 2=HALF_OPEN")
+                .register(meterRegistry);
+        Gauge.builder("cache.circuit.rejected", circuitBreaker, CacheCircuitBreaker::getRejectedCount)
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    /**
+     * 热点key探测器
+     * 面试重点：Count-Min Sketch + Top-K
+     */
+    @Bean
+    public HotKeyDetector hotKeyDetector(AppConfig appConfig) {
+        AppConfig.Cache.HotKey hotKey = appConfig.getCache().getHotKey();
+        return new HotKeyDetector(hotKey.getCacheNames(), hotKey.getSampleRate(), hotKey.getSketchWidth(),
+                hotKey.getTopK(), hotKey.getMinHotCount());
+    }
+
+    /**
+     * 缓存失效广播通道
+     * 面试重点：按配置选择Redis发布订阅或进程内回环实现
+     */
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(RedisConnectionFactory redisConnectionFactory,
+                                                     AppConfig appConfig) {
+        AppConfig.Cache.Invalidation invalidation = appConfig.getCache().getInvalidation();
+        if (invalidation.getTransport() == AppConfig.Cache.Invalidation.Transport.MEMORY) {
+            return new InMemoryCacheInvalidationBus(invalidation.getFlushInterval());
+        }
+        return new RedisCacheInvalidationBus(redisConnectionFactory, invalidation.getChannel(),
+                invalidation.getFlushInterval());
+    }
+
+    /**
+     * 缓存管理器
+     * 面试重点：以Redis缓存为底层，按配置逐层叠加缓存能力
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     CacheProperties cacheProperties,
+                                     AppConfig appConfig,
+                                     MeterRegistry meterRegistry,
+                                     CacheGenerations cacheGenerations,
+                                     CacheInvalidationBus cacheInvalidationBus,
+                                     HotKeyDetector hotKeyDetector,
+                                     CacheCircuitBreaker cacheCircuitBreaker,
+                                     CacheLoaderRegistry cacheLoaderRegistry,
+                                     CacheTagIndex cacheTagIndex,
+                                     @Qualifier("taskExecutor") Executor taskExecutor) {
+        AppConfig.Cache config = appConfig.getCache();
+        RedisCacheConfiguration defaults = redisCacheConfiguration(cacheProperties);
+        Duration defaultTtl = cacheProperties.getRedis().getTimeToLive();
+        if (defaultTtl != null) {
+            defaults = defaults.entryTtl(new JitteredTtlFunction(defaultTtl, config.getTtlJitter()));
+        }
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        for (Map.Entry<String, Duration> entry : config.getTimeToLive().entrySet()) {
+            perCache.put(entry.getKey(), defaults.entryTtl(new JitteredTtlFunction(entry.getValue(), config.getTtlJitter())));
+        }
+        AppConfig.Cache.Generation generation = config.getGeneration();
+        String keyPrefix = cacheProperties.getRedis().getKeyPrefix() != null ? cacheProperties.getRedis().getKeyPrefix() : "";
+        // 代数体现在key前缀中，关闭key前缀时无法使用
+        boolean generational = generation.isEnabled() && cacheProperties.getRedis().isUseKeyPrefix();
+        if (generational) {
+            for (String cacheName : generation.getCacheNames()) {
+                perCache.put(cacheName, perCache.getOrDefault(cacheName, defaults)
+                        .computePrefixWith(name -> keyPrefix + name + "::g" + cacheGenerations.current(name) + "::"));
+            }
+        }
+
+        AppConfig.Cache.HotKey hotKey = config.getHotKey();
+        if (hotKey.isEnabled() && hotKey.getTtlMultiplier() > 1.0) {
+            for (String cacheName : hotKey.getCacheNames()) {
+                RedisCacheConfiguration cacheConfig = perCache.getOrDefault(cacheName, defaults);
+                perCache.put(cacheName, cacheConfig.entryTtl(new HotKeyTtlFunction(cacheConfig.getTtlFunction(),
+                        key -> hotKeyDetector.isHot(cacheName, key), hotKey.getTtlMultiplier())));
+            }
+        }
+
+        // 空结果哨兵的短TTL最后包装，优先于热点key延长
+        AppConfig.Cache.NegativeCache negativeCache = config.getNegativeCache();
+        if (negativeCache.isEnabled()) {
+            for (Map.Entry<String, Duration> entry : negativeCache.getTimeToLive().entrySet()) {
+                RedisCacheConfiguration cacheConfig = perCache.getOrDefault(entry.getKey(), defaults);
+                perCache.put(entry.getKey(), cacheConfig.entryTtl(
+                        new NegativeTtlFunction(cacheConfig.getTtlFunction(), entry.getValue())));
+            }
+        }
+
+        RedisCacheManager redisCacheManager = new PipelinedRedisCacheManager(redisConnectionFactory, defaults, perCache);
+        redisCacheManager.afterPropertiesSet();
+
+        List<CacheLayer> layers = new ArrayList<>();
+        if (generational) {
+            layers.add(cache -> generation.getCacheNames().contains(cache.getName())
+                    ? new GenerationalCache(cache, cacheGenerations) : cache);
+        }
+        CacheInvalidationBus bus = config.getInvalidation().isEnabled() ? cacheInvalidationBus : null;
+        AppConfig.Cache.CircuitBreaker breaker = config.getCircuitBreaker();
+        if (breaker.isEnabled()) {
+            layers.add(cache -> new CircuitBreakerCache(cache, cacheCircuitBreaker,
+                    new LocalCache(cache.getName(), breaker.getFallbackMaximumSize(), breaker.getFallbackExpireAfterWrite()),
+                    breaker.getMaxPendingEvictions()));
+        }
+        layers.add(offHeapLayer(config, bus));
+        layers.add(localCacheLayer(config.getLocal(), config.getSnapshot(), bus, cacheGenerations));
+        layers.add(refreshAheadLayer(config, defaultTtl, cacheLoaderRegistry, taskExecutor));
+        if (config.isSingleFlightEnabled()) {
+            layers.add(SingleFlightCache::new);
+        }
+        layers.add(cache -> {
+            InstrumentedCache instrumented = new InstrumentedCache(cache);
+            instrumented.bindTo(meterRegistry);
+            return instrumented;
+        });
+        if (hotKey.isEnabled()) {
+            layers.add(hotKeyDetector.layer());
+        }
+        if (negativeCache.isEnabled()) {
+            layers.add(cache -> {
+                Duration ttl = negativeCache.getTimeToLive().get(cache.getName());
+                return ttl != null ? new NegativeCachingCache(cache, ttl) : cache;
+            });
+        }
+        // 标签登记在最外层，先于其他层的写入完成
+        List<String> taggedCacheNames = config.getTags().getCacheNames();
+        layers.add(cache -> taggedCacheNames.contains(cache.getName()) ? new TaggingCache(cache, cacheTagIndex) : cache);
+
+        log.info("配置缓存管理器，TTL：{}，抖动比例：{}，本地缓存：{}",
+                config.getTimeToLive(), config.getTtlJitter(), config.getLocal().getCacheNames());
+        LayeredCacheManager cacheManager = new LayeredCacheManager(redisCacheManager, layers);
+        if (bus != null) {
+            bus.subscribe(batch -> applyInvalidation(batch, cacheManager, cacheGenerations));
+        }
+        return cacheManager;
+    }
+
+    /**
+     * 处理其他节点的失效消息：先前进缓存代数，再清除本地缓存
+     * 
+     * 只处理本节点已创建的缓存：未创建的缓存没有本地副本，首次使用时会从Redis读取代数。
+     */
+    private void applyInvalidation(InvalidationBatch batch, LayeredCacheManager cacheManager,
+                                   CacheGenerations cacheGenerations) {
+        batch.cleared().forEach((cacheName, generation) -> {
+            if (cacheManager.unwrapExisting(cacheName, Cache.class) == null) {
+                return;
+            }
+            cacheGenerations.advance(cacheName, generation);
+            TwoLevelCache twoLevel = cacheManager.unwrapExisting(cacheName, TwoLevelCache.class);
+            if (twoLevel != null) {
+                twoLevel.getLocalCache().clear();
+            }
+            OffHeapCache offHeap = cacheManager.unwrapExisting(cacheName, OffHeapCache.class);
+            if (offHeap != null) {
+                offHeap.getStore().clear();
+            }
+        });
+        batch.evicted().forEach((cacheName, keys) -> {
+            TwoLevelCache twoLevel = cacheManager.unwrapExisting(cacheName, TwoLevelCache.class);
+            if (twoLevel != null) {
+                keys.forEach(twoLevel.getLocalCache()::evict);
+            }
+            OffHeapCache offHeap = cacheManager.unwrapExisting(cacheName, OffHeapCache.class);
+            if (offHeap != null) {
+                keys.forEach(offHeap::evictLocal);
+            }
+        });
+        log.debug("处理节点[{}]的缓存失效消息，清除key：{}，清空缓存：{}",
+                batch.nodeId(), batch.evicted(), batch.cleared().keySet());
+    }
+
+    /**
+     * 堆外缓存层：位于本地缓存之内，未配置本地缓存的缓存名称在这一层广播写操作
+     */
+    private CacheLayer offHeapLayer(AppConfig.Cache config, CacheInvalidationBus bus) {
+        AppConfig.Cache.OffHeap offHeap = config.getOffHeap();
+        AppConfig.Cache.Local local = config.getLocal();
+        return cache -> {
+            if (!offHeap.isEnabled() || !offHeap.getCacheNames().contains(cache.getName())) {
+                return cache;
+            }
+            OffHeapStore store = new OffHeapStore(offHeap.getMaxMemoryBytes(), offHeap.getPageSizeBytes(),
+                    offHeap.getExpireAfterWrite());
+            OffHeapCache offHeapCache = new OffHeapCache(cache, store, new CompactRedisSerializer());
+            boolean localTier = local.isEnabled() && local.getCacheNames().contains(cache.getName());
+            return bus != null && !localTier ? new InvalidationBroadcastingCache(offHeapCache, bus) : offHeapCache;
+        };
+    }
+
+    /**
+     * 本地缓存层：为配置的缓存名称加上进程内一级缓存，写操作广播给其他节点；开启快照时挂载上次的快照
+     * 面试重点：快照按当前缓存代数校验，停机期间缓存被清空过则不恢复
+     */
+    private CacheLayer localCacheLayer(AppConfig.Cache.Local local, AppConfig.Cache.Snapshot snapshot,
+                                       CacheInvalidationBus bus, CacheGenerations cacheGenerations) {
+        return cache -> {
+            if (!local.isEnabled() || !local.getCacheNames().contains(cache.getName())) {
+                return cache;
+            }
+            LocalCache localCache = LocalCache.weighedByBytes(cache.getName(), local.getMaximumWeightBytes(),
+                    local.getExpectedEntries(), local.getExpireAfterWrite());
+            if (snapshot.isEnabled()) {
+                localCache.attachSnapshot(LocalCacheSnapshot.open(
+                        LocalCacheSnapshot.path(Path.of(snapshot.getDirectory()), cache.getName()),
+                        LocalCacheSnapshot.SCHEMA_VERSION, cacheGenerations.current(cache.getName()),
+                        snapshot.getMaxRestoreTtl(), new CompactRedisSerializer()));
+            }
+            TwoLevelCache twoLevel = new TwoLevelCache(cache, localCache);
+            return bus != null ? new InvalidationBroadcastingCache(twoLevel, bus) : twoLevel;
+        };
+    }
+
+    /**
+     * 提前刷新层：位于本地缓存之外，使一级、二级缓存中的条目都带有写入时间
+     */
+    private CacheLayer refreshAheadLayer(AppConfig.Cache config, Duration defaultTtl,
+                                         CacheLoaderRegistry cacheLoaderRegistry, Executor taskExecutor) {
+        AppConfig.Cache.RefreshAhead refreshAhead = config.getRefreshAhead();
+        return cache -> {
+            if (!refreshAhead.isEnabled() || !refreshAhead.getCacheNames().contains(cache.getName())) {
+                return cache;
+            }
+            Duration ttl = config.getTimeToLive().getOrDefault(cache.getName(), defaultTtl);
+            if (ttl == null) {
+                log.warn("缓存[{}]未配置TTL，不启用提前刷新", cache.getName());
+                return cache;
+            }
+            return new RefreshAheadCache(cache, ttl, refreshAhead.getRefreshAfterFraction(),
+                    cacheLoaderRegistry::getLoader, taskExecutor);
+        };
+    }
+
+    /**
+     * Redis缓存默认配置，沿用spring.cache.redis.*属性
+     * TTL在cacheManager中统一设置为带抖动的TtlFunction
+     * 面试重点：值使用紧凑二进制序列化，实体无需实现Serializable
+     */
+    private RedisCacheConfiguration redisCacheConfiguration(CacheProperties cacheProperties) {
+        CacheProperties.Redis redis = cacheProperties.getRedis();
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new CompactRedisSerializer()));
+        if (redis.getKeyPrefix() != null) {
+            config = config.prefixCacheNameWith(redis.getKeyPrefix());
+        }
+        if (!redis.isCacheNullValues()) {
+            config = config.disableCachingNullValues();
+        }
+        if (!redis.isUseKeyPrefix()) {
+            config = config.disableKeyPrefix();
+        }
+        return config;
+    }
+}
@@ -1,12 +1,47 @@
 package com.learning.controller;
 
+import com.learning.cache.CacheCircuitBreaker;
+import com.learning.cache.CacheDecorator;
+import com.learning.cache.CircuitBreakerCache;
+import com.learning.cache.CircuitBreakerCacheErrorHandler;
+import com.learning.cache.GenerationalCache;
+import com.learning.cache.HotKeyTracker;
+import com.learning.cache.InstrumentedCache;
+import com.learning.cache.LayeredCacheManager;
+import com.learning.cache.NegativeCachingCache;
+import com.learning.cache.OffHeapCache;
+import com.learning.cache.OffHeapStore;
+import com.learning.cache.RefreshAheadCache;
+import com.learning.cache.ScalableBloomFilter;
+import com.learning.cache.SingleFlightCache;
+import com.learning.cache.TwoLevelCache;
+import com.learning.cache.WriteBehindQueue;
+import com.learning.config.AppConfig;
+import com.learning.exception.BusinessException;
+import com.learning.metrics.LatencyHistogram;
+import com.learning.service.BloomFilterService;
+import com.learning.service.CacheLoadTestService;
+import com.learning.service.CacheLoadTestService.KeyDistribution;
+import com.learning.service.CacheLoadTestService.LoadTestOptions;
+import com.learning.service.CacheLoadTestService.LoadTestReport;
+import com.learning.service.CacheLoadTestService.LoadTestTask;
+import com.learning.service.CacheLoadTestService.PhaseResult;
 import com.learning.service.CacheService;
+import com.learning.service.CacheTagService;
+import com.learning.service.CacheWarmupService;
+import com.learning.service.HotKeyService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,6 +63,15 @@ import java.util.Map;
 public class CacheController {
 
     private final CacheService cacheService;
+    private final CacheManager cacheManager;
+    private final BloomFilterService bloomFilterService;
+    private final CacheWarmupService cacheWarmupService;
+    private final CacheLoadTestService cacheLoadTestService;
+    private final CacheTagService cacheTagService;
+    private final HotKeyService hotKeyService;
+    private final AppConfig appConfig;
+    private final CacheCircuitBreaker cacheCircuitBreaker;
+    private final CircuitBreakerCacheErrorHandler circuitBreakerCacheErrorHandler;
 
     /**
      * 基础缓存操作
@@ -90,6 +134,23 @@ public class CacheController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 按标签清除缓存
+     * 面试重点：派生数据的精确失效，如tags=user:1,status:PAID
+     */
+    @DeleteMapping("/tags")
+    public ResponseEntity<Map<String, Object>> evictTags(@RequestParam List<String> tags) {
+        log.info("按标签清除缓存，标签：{}", tags);
+        int evicted = cacheTagService.evictNow(tags);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("tags", tags);
+        result.put("evicted", evicted);
+        result.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 组合缓存操作
      * 面试重点：复杂缓存操作
@@ -112,6 +173,70 @@ public class CacheController {
         return ResponseEntity.ok(user);
     }
 
+    /**
+     * 多级缓存分层统计
+     * 面试重点：L1/L2各自的命中率
+     */
+    @GetMapping("/multi-level/statistics")
+    public ResponseEntity<Map<String, Object>> getMultiLevelStatistics() {
+        log.info("获取多级缓存分层统计");
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("timestamp", System.currentTimeMillis());
+        cachesOf(TwoLevelCache.class).forEach((name, cache) -> result.put(name, tierStatistics(cache)));
+        
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 单飞合并统计
+     * 面试重点：缓存击穿防护效果的量化
+     */
+    @GetMapping("/single-flight/statistics")
+    public ResponseEntity<Map<String, Object>> getSingleFlightStatistics() {
+        log.info("获取单飞合并统计");
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("timestamp", System.currentTimeMillis());
+        cachesOf(SingleFlightCache.class).forEach((name, cache) -> result.put(name, singleFlightStatistics(cache)));
+        
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 热点key
+     * 面试重点：Count-Min Sketch + Top-K的热点探测
+     * 
+     * count为采样计数，estimatedAccesses按采样率折算为实际访问次数。
+     */
+    @GetMapping("/hot-keys")
+    public ResponseEntity<Map<String, Object>> getHotKeys() {
+        log.info("获取热点key");
+        
+        int sampleRate = Math.max(1, appConfig.getCache().getHotKey().getSampleRate());
+        Map<String, Object> result = new HashMap<>();
+        result.put("timestamp", System.currentTimeMillis());
+        result.put("sampleRate", sampleRate);
+        hotKeyService.getTrackers().forEach((name, tracker) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("sampleCount", tracker.getSampleCount());
+            stats.put("sketchMemoryBytes", tracker.getMemoryBytes());
+            stats.put("pinnedKeys", hotKeyService.getPinnedKeys(name));
+            List<Map<String, Object>> hotKeys = new ArrayList<>();
+            for (HotKeyTracker.HotKey hotKey : tracker.topKeys()) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("key", hotKey.key());
+                entry.put("count", hotKey.count());
+                entry.put("estimatedAccesses", hotKey.count() * sampleRate);
+                hotKeys.add(entry);
+            }
+            stats.put("hotKeys", hotKeys);
+            result.put(name, stats);
+        });
+        
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 缓存穿透防护测试
      * 面试重点：缓存穿透测试
@@ -148,53 +273,162 @@ public class CacheController {
     /**
      * 缓存性能测试
      * 面试重点：缓存性能测试
+     *
+     * 多线程闭环压测：count为key数量，先跑warmupSeconds秒的冷启动阶段，再跑durationSeconds秒的稳定阶段，
+     * 两个阶段分别输出吞吐、命中率与p50/p90/p99/p999延迟。
+     * 压测只读写专用的loadTestCache，异步执行，通过返回的taskId查询结果；coldStart=true时先清空loadTestCache。
      */
-    @GetMapping("/performance-test")
-    public ResponseEntity<Map<String, Object>> performanceTest(@RequestParam(defaultValue = "100") int count) {
-        log.info("缓存性能测试，测试次数：{}", count);
-        
-        long startTime = System.currentTimeMillis();
-        
-        // 测试缓存命中
-        for (int i = 1; i <= count; i++) {
-            cacheService.getUserById((long) i);
+    @PostMapping("/performance-test")
+    public ResponseEntity<Map<String, Object>> performanceTest(
+            @RequestParam(defaultValue = "100") int count,
+            @RequestParam(defaultValue = "8") int concurrency,
+            @RequestParam(defaultValue = "10") long durationSeconds,
+            @RequestParam(defaultValue = "5") long warmupSeconds,
+            @RequestParam(defaultValue = "zipfian") String distribution,
+            @RequestParam(defaultValue = "0.99") double zipfianExponent,
+            @RequestParam(defaultValue = "0.9") double readRatio,
+            @RequestParam(defaultValue = "false") boolean coldStart) {
+        log.info("缓存性能测试，key数量：{}，并发：{}，时长：{}s，分布：{}", count, concurrency, durationSeconds, distribution);
+
+        KeyDistribution keyDistribution;
+        try {
+            keyDistribution = KeyDistribution.valueOf(distribution.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("不支持的key分布：" + distribution + "，可选uniform/zipfian");
         }
-        
-        long endTime = System.currentTimeMillis();
-        long executionTime = endTime - startTime;
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("testCount", count);
-        result.put("executionTime", executionTime + "ms");
-        result.put("averageTime", (double) executionTime / count + "ms");
-        result.put("throughput", count * 1000.0 / executionTime + " requests/second");
-        
-        return ResponseEntity.ok(result);
+        LoadTestOptions options = new LoadTestOptions(concurrency, Duration.ofSeconds(durationSeconds),
+                Duration.ofSeconds(warmupSeconds), count, keyDistribution, zipfianExponent, readRatio, coldStart);
+        LoadTestTask task = cacheLoadTestService.start(options);
+
+        Map<String, Object> result = loadTestStatistics(task);
+        result.put("message", "缓存压测任务已提交");
+
+        return ResponseEntity.accepted().body(result);
+    }
+
+    /**
+     * 缓存压测结果
+     * 面试重点：异步任务的结果查询
+     */
+    @GetMapping("/performance-test/{taskId}")
+    public ResponseEntity<Map<String, Object>> getPerformanceTestResult(@PathVariable String taskId) {
+        LoadTestTask task = cacheLoadTestService.getTask(taskId);
+        if (task == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(loadTestStatistics(task));
     }
 
     /**
      * 缓存统计信息
      * 面试重点：缓存监控
+     * 
+     * 数据来自InstrumentedCache的实时计数器，同样的指标也通过Micrometer暴露在/actuator/metrics下。
      */
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getCacheStatistics() {
         log.info("获取缓存统计信息");
         
+        Map<String, InstrumentedCache> caches = cachesOf(InstrumentedCache.class);
         Map<String, Object> statistics = new HashMap<>();
         statistics.put("timestamp", System.currentTimeMillis());
-        statistics.put("cacheNames", new String[]{"userCache", "orderCache"});
-        statistics.put("totalCaches", 2);
-        statistics.put("status", "healthy");
+        statistics.put("cacheNames", List.copyOf(caches.keySet()));
+        statistics.put("totalCaches", caches.size());
+        
+        Map<String, Object> cacheStats = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("hitCount", cache.getHitCount());
+            stats.put("missCount", cache.getMissCount());
+            stats.put("hitRate", cache.getHitRate());
+            stats.put("putCount", cache.getPutCount());
+            stats.put("evictionCount", cache.getEvictionCount());
+            stats.put("clearCount", cache.getClearCount());
+            stats.put("averageEntryBytes", cache.getAverageEntryBytes());
+            stats.put("maxEntryBytes", cache.getMaxEntryBytes());
+            stats.put("loadLatency", latencyStatistics(cache.getLoadLatency()));
+            
+            TwoLevelCache twoLevel = CacheDecorator.unwrap(cache, TwoLevelCache.class);
+            if (twoLevel != null) {
+                Map<String, Object> tiers = tierStatistics(twoLevel);
+                stats.put("tiers", tiers);
+            }
+            OffHeapCache offHeap = CacheDecorator.unwrap(cache, OffHeapCache.class);
+            if (offHeap != null) {
+                stats.put("offHeap", offHeapStatistics(offHeap.getStore()));
+            }
+            SingleFlightCache singleFlight = CacheDecorator.unwrap(cache, SingleFlightCache.class);
+            if (singleFlight != null) {
+                stats.put("singleFlight", singleFlightStatistics(singleFlight));
+            }
+            CircuitBreakerCache breaker = CacheDecorator.unwrap(cache, CircuitBreakerCache.class);
+            if (breaker != null) {
+                Map<String, Object> fallbackStats = new LinkedHashMap<>();
+                fallbackStats.put("size", breaker.getFallback().size());
+                fallbackStats.put("pendingEvictionCount", breaker.getPendingEvictionCount());
+                fallbackStats.put("pendingClear", breaker.isPendingClear());
+                stats.put("fallback", fallbackStats);
+            }
+            GenerationalCache generational = CacheDecorator.unwrap(cache, GenerationalCache.class);
+            if (generational != null) {
+                stats.put("generation", generational.getGeneration());
+            }
+            RefreshAheadCache refreshAhead = CacheDecorator.unwrap(cache, RefreshAheadCache.class);
+            if (refreshAhead != null) {
+                Map<String, Object> refreshStats = new LinkedHashMap<>();
+                refreshStats.put("refreshCount", refreshAhead.getRefreshCount());
+                refreshStats.put("refreshFailureCount", refreshAhead.getRefreshFailureCount());
+                refreshStats.put("refreshingCount", refreshAhead.getRefreshingCount());
+                stats.put("refreshAhead", refreshStats);
+            }
+            cacheStats.put(name, stats);
+        });
+        cachesOf(NegativeCachingCache.class).forEach((name, cache) -> {
+            Map<String, Object> negativeStats = new LinkedHashMap<>();
+            negativeStats.put("timeToLive", cache.getTimeToLive().toString());
+            negativeStats.put("negativeHitCount", cache.getNegativeHitCount());
+            negativeStats.put("negativePutCount", cache.getNegativePutCount());
+            @SuppressWarnings("unchecked")
+            Map<String, Object> stats = (Map<String, Object>) cacheStats.computeIfAbsent(name, key -> new LinkedHashMap<>());
+            stats.put("negativeCache", negativeStats);
+        });
+        statistics.put("caches", cacheStats);
         
-        // 模拟缓存统计信息
-        Map<String, Object> userCacheStats = new HashMap<>();
-        userCacheStats.put("hitCount", 1250);
-        userCacheStats.put("missCount", 150);
-        userCacheStats.put("hitRate", "89.3%");
-        userCacheStats.put("size", 500);
-        userCacheStats.put("evictionCount", 25);
+        Map<String, Object> bloomStats = new LinkedHashMap<>();
+        for (String filterName : List.of(BloomFilterService.USER_FILTER, BloomFilterService.ORDER_FILTER)) {
+            ScalableBloomFilter filter = bloomFilterService.getFilter(filterName);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", bloomFilterService.isReady(filterName));
+            stats.put("size", filter.size());
+            stats.put("stages", filter.stageCount());
+            stats.put("expectedFalsePositiveRate", filter.expectedFalsePositiveRate());
+            stats.put("memoryBytes", filter.memoryBytes());
+            bloomStats.put(filterName, stats);
+        }
+        statistics.put("bloomFilters", bloomStats);
+        
+        Map<String, Object> breakerStats = new LinkedHashMap<>();
+        breakerStats.put("state", cacheCircuitBreaker.getState());
+        breakerStats.put("failureRate", cacheCircuitBreaker.getFailureRate());
+        breakerStats.put("slowCallRate", cacheCircuitBreaker.getSlowCallRate());
+        breakerStats.put("openCount", cacheCircuitBreaker.getOpenCount());
+        breakerStats.put("rejectedCount", cacheCircuitBreaker.getRejectedCount());
+        breakerStats.put("handledErrorCount", circuitBreakerCacheErrorHandler.getErrorCount());
+        statistics.put("circuitBreaker", breakerStats);
         
-        statistics.put("userCache", userCacheStats);
+        WriteBehindQueue<Long, Map<String, Object>> writeBehind = cacheService.getWriteBehindQueue();
+        if (writeBehind != null) {
+            Map<String, Object> writeBehindStats = new LinkedHashMap<>();
+            writeBehindStats.put("pendingCount", writeBehind.getPendingCount());
+            writeBehindStats.put("maxPendingKeys", writeBehind.getMaxPendingKeys());
+            writeBehindStats.put("submittedCount", writeBehind.getSubmittedCount());
+            writeBehindStats.put("coalescedCount", writeBehind.getCoalescedCount());
+            writeBehindStats.put("writtenCount", writeBehind.getWrittenCount());
+            writeBehindStats.put("batchCount", writeBehind.getBatchCount());
+            writeBehindStats.put("rejectedCount", writeBehind.getRejectedCount());
+            writeBehindStats.put("failureCount", writeBehind.getFailureCount());
+            statistics.put("writeBehind", writeBehindStats);
+        }
         
         return ResponseEntity.ok(statistics);
     }
@@ -202,26 +436,178 @@ public class CacheController {
     /**
      * 缓存预热
      * 面试重点：缓存预热策略
+     * 
+     * 预热key为1..count，异步执行：批量回源、Pipeline写入Redis，通过返回的taskId查询进度。
+     * count超过配置的上限时按上限预热。
      */
     @PostMapping("/warmup")
-    public ResponseEntity<Map<String, Object>> warmupCache(@RequestParam(defaultValue = "100") int count) {
-        log.info("缓存预热，预热数量：{}", count);
+    public ResponseEntity<Map<String, Object>> warmupCache(@RequestParam(defaultValue = "userCache") String cacheName,
+                                                           @RequestParam(defaultValue = "100") int count) {
+        log.info("缓存预热，缓存：{}，预热数量：{}", cacheName, count);
         
-        long startTime = System.currentTimeMillis();
-        
-        // 预热缓存
-        for (int i = 1; i <= count; i++) {
-            cacheService.getUserById((long) i);
+        if (count < 1) {
+            throw new BusinessException("count必须大于0");
+        }
+        int keyCount = Math.min(count, appConfig.getCache().getWarmup().getMaxKeys());
+        List<Object> keys = new ArrayList<>(keyCount);
+        for (long i = 1; i <= keyCount; i++) {
+            keys.add(i);
         }
+        CacheWarmupService.WarmupTask task = cacheWarmupService.warmup(cacheName, keys);
         
-        long endTime = System.currentTimeMillis();
-        long executionTime = endTime - startTime;
+        Map<String, Object> result = warmupStatistics(task);
+        result.put("message", "缓存预热任务已提交");
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("warmupCount", count);
-        result.put("executionTime", executionTime + "ms");
-        result.put("message", "缓存预热完成");
-        
-        return ResponseEntity.ok(result);
+        return ResponseEntity.accepted().body(result);
+    }
+
+    /**
+     * 缓存预热进度
+     * 面试重点：异步任务的进度查询
+     */
+    @GetMapping("/warmup/{taskId}")
+    public ResponseEntity<Map<String, Object>> getWarmupProgress(@PathVariable String taskId) {
+        CacheWarmupService.WarmupTask task = cacheWarmupService.getTask(taskId);
+        if (task == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(warmupStatistics(task));
+    }
+
+    /**
+     * 最近的缓存预热任务
+     */
+    @GetMapping("/warmup")
+    public ResponseEntity<List<Map<String, Object>>> getWarmupTasks() {
+        return ResponseEntity.ok(cacheWarmupService.getTasks().stream().map(this::warmupStatistics).toList());
+    }
+
+    /**
+     * 按装饰层类型收集缓存
+     */
+    private <T extends Cache> Map<String, T> cachesOf(Class<T> type) {
+        Map<String, T> caches = new LinkedHashMap<>();
+        if (cacheManager instanceof LayeredCacheManager layered) {
+            for (String name : layered.getCacheNames()) {
+                T cache = layered.unwrap(name, type);
+                if (cache != null) {
+                    caches.put(name, cache);
+                }
+            }
+        }
+        return caches;
+    }
+
+    private Map<String, Object> warmupStatistics(CacheWarmupService.WarmupTask task) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("taskId", task.getId());
+        stats.put("cacheName", task.getCacheName());
+        stats.put("status", task.getStatus());
+        stats.put("total", task.getTotal());
+        stats.put("written", task.getWritten());
+        stats.put("missing", task.getMissing());
+        stats.put("failed", task.getFailed());
+        stats.put("progress", String.format("%.2f%%", task.getProgress() * 100));
+        stats.put("executionTime", task.getElapsedMillis() + "ms");
+        return stats;
+    }
+
+    private Map<String, Object> tierStatistics(TwoLevelCache cache) {
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        tiers.put("localHitCount", cache.getLocalHitCount());
+        tiers.put("localMissCount", cache.getLocalMissCount());
+        tiers.put("localHitRate", cache.getLocalHitRate());
+        tiers.put("localSize", cache.getLocalCache().size());
+        tiers.put("localWeightedBytes", cache.getLocalCache().getWeightedSize());
+        tiers.put("localMaximumBytes", cache.getLocalCache().getMaximumWeight());
+        tiers.put("localEvictionCount", cache.getLocalCache().getEvictionCount());
+        tiers.put("localRejectionCount", cache.getLocalCache().getRejectionCount());
+        tiers.put("localRestoredCount", cache.getLocalCache().getRestoredCount());
+        tiers.put("remoteHitCount", cache.getRemoteHitCount());
+        tiers.put("remoteMissCount", cache.getRemoteMissCount());
+        return tiers;
+    }
+
+    private Map<String, Object> offHeapStatistics(OffHeapStore store) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", store.size());
+        stats.put("hitCount", store.getHitCount());
+        stats.put("missCount", store.getMissCount());
+        stats.put("allocatedBytes", store.getAllocatedBytes());
+        stats.put("maxMemoryBytes", store.getMaxMemoryBytes());
+        stats.put("segmentCount", store.getSegmentCount());
+        stats.put("evictionCount", store.getEvictionCount());
+        stats.put("expirationCount", store.getExpirationCount());
+        stats.put("rejectionCount", store.getRejectionCount());
+        return stats;
+    }
+
+    private Map<String, Object> singleFlightStatistics(SingleFlightCache cache) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loadCount", cache.getLoadCount());
+        stats.put("coalescedCount", cache.getCoalescedCount());
+        stats.put("inFlightCount", cache.getInFlightCount());
+        return stats;
+    }
+
+    private Map<String, Object> loadTestStatistics(LoadTestTask task) {
+        LoadTestOptions options = task.getOptions();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("taskId", task.getId());
+        result.put("status", task.getStatus());
+        result.put("executionTime", task.getElapsedMillis() + "ms");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("cacheName", CacheLoadTestService.CACHE_NAME);
+        parameters.put("keyCount", options.keyCount());
+        parameters.put("concurrency", options.concurrency());
+        parameters.put("durationSeconds", options.duration().toSeconds());
+        parameters.put("warmupSeconds", options.warmup().toSeconds());
+        parameters.put("distribution", options.distribution().name().toLowerCase());
+        if (options.distribution() == KeyDistribution.ZIPFIAN) {
+            parameters.put("zipfianExponent", options.zipfianTheta());
+        }
+        parameters.put("readRatio", options.readRatio());
+        parameters.put("coldStart", options.coldStart());
+        result.put("options", parameters);
+        if (task.getError() != null) {
+            result.put("error", task.getError());
+        }
+        LoadTestReport report = task.getReport();
+        if (report != null) {
+            if (report.cold() != null) {
+                result.put("cold", phaseStatistics(report.cold()));
+            }
+            result.put("warm", phaseStatistics(report.warm()));
+        }
+        return result;
+    }
+
+    private Map<String, Object> phaseStatistics(PhaseResult phase) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("elapsedMs", phase.elapsedNanos() / 1_000_000.0);
+        stats.put("operations", phase.operations());
+        stats.put("reads", phase.readLatency().getCount());
+        stats.put("writes", phase.writeLatency().getCount());
+        stats.put("errors", phase.errors());
+        stats.put("throughputOpsPerSec", phase.throughput());
+        stats.put("hits", phase.hits());
+        stats.put("misses", phase.misses());
+        stats.put("hitRate", phase.hitRate());
+        stats.put("latency", latencyStatistics(phase.latency()));
+        stats.put("readLatency", latencyStatistics(phase.readLatency()));
+        stats.put("writeLatency", latencyStatistics(phase.writeLatency()));
+        return stats;
+    }
+
+    private Map<String, Object> latencyStatistics(LatencyHistogram histogram) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("count", histogram.getCount());
+        latency.put("meanMs", histogram.getMean() / 1_000_000);
+        latency.put("p50Ms", histogram.getValueAtPercentile(50) / 1_000_000.0);
+        latency.put("p90Ms", histogram.getValueAtPercentile(90) / 1_000_000.0);
+        latency.put("p99Ms", histogram.getValueAtPercentile(99) / 1_000_000.0);
+        latency.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1_000_000.0);
+        latency.put("maxMs", histogram.getMax() / 1_000_000.0);
+        return latency;
     }
 }
@@ -1,12 +1,20 @@
 package com.learning.controller;
 
+import com.learning.aspect.CallTree;
 import com.learning.aspect.PerformanceAspect;
+import com.learning.config.AppConfig;
+import com.learning.exception.BusinessException;
+import com.learning.metrics.RollingMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,6 +42,8 @@ public class PerformanceController {
     /**
      * 获取性能统计信息
      * 面试重点：性能监控API
+     * 
+     * 开启采样时调用次数为按权重还原的估计值，sampledCount为实际记录的条数。
      */
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getPerformanceStatistics() {
@@ -56,7 +66,7 @@ public class PerformanceController {
                     Map<String, Object> layerData = new HashMap<>();
                     layerData.put("methodCount", 0);
                     layerData.put("totalCalls", 0L);
-                    layerData.put("totalExecutionTime", 0L);
+                    layerData.put("totalExecutionTime", 0.0);
                     layerData.put("averageExecutionTime", 0.0);
                     layerData.put("successRate", 0.0);
                     return layerData;
@@ -67,29 +77,32 @@ public class PerformanceController {
             Map<String, Object> layerData = (Map<String, Object>) layerStats.get(layer);
             layerData.put("methodCount", (Integer) layerData.get("methodCount") + 1);
             layerData.put("totalCalls", (Long) layerData.get("totalCalls") + performance.getCallCount());
-            layerData.put("totalExecutionTime", (Long) layerData.get("totalExecutionTime") + performance.getTotalExecutionTime());
+            layerData.put("totalExecutionTime", (Double) layerData.get("totalExecutionTime") + performance.getTotalExecutionTime());
         });
         
         // 计算平均值
         layerStats.forEach((layer, data) -> {
             Map<String, Object> layerData = (Map<String, Object>) data;
             long totalCalls = (Long) layerData.get("totalCalls");
-            long totalExecutionTime = (Long) layerData.get("totalExecutionTime");
+            double totalExecutionTime = (Double) layerData.get("totalExecutionTime");
             
             if (totalCalls > 0) {
-                layerData.put("averageExecutionTime", (double) totalExecutionTime / totalCalls);
+                layerData.put("averageExecutionTime", totalExecutionTime / totalCalls);
             }
         });
         
         result.put("layerStatistics", layerStats);
         result.put("methodStatistics", stats);
+        result.put("sampling", samplingStatistics(stats));
         
         return ResponseEntity.ok(result);
     }
 
     /**
      * 获取方法性能详情
-     * 面试重点：详细性能分析
+     * 面试重点：详细性能分析、长尾延迟
+     * 
+     * 耗时单位为毫秒，百分位来自纳秒精度的延迟直方图。
      */
     @GetMapping("/method/{methodName}")
     public ResponseEntity<Map<String, Object>> getMethodPerformance(@PathVariable String methodName) {
@@ -118,15 +131,24 @@ public class PerformanceController {
         result.put("averageExecutionTime", performance.getAverageExecutionTime());
         result.put("maxExecutionTime", performance.getMaxExecutionTime());
         result.put("minExecutionTime", performance.getMinExecutionTime());
+        result.put("p50ExecutionTime", performance.getP50ExecutionTime());
+        result.put("p90ExecutionTime", performance.getP90ExecutionTime());
+        result.put("p99ExecutionTime", performance.getP99ExecutionTime());
+        result.put("p999ExecutionTime", performance.getP999ExecutionTime());
         result.put("totalMemoryUsed", performance.getTotalMemoryUsed());
         result.put("averageMemoryUsed", performance.getAverageMemoryUsed());
         
+        Map<String, Object> windows = new LinkedHashMap<>();
+        PerformanceAspect.MethodPerformance.WINDOWS.forEach((label, window) ->
+            windows.put(label, windowStatistics(performance.window(window))));
+        result.put("windows", windows);
+        
         return ResponseEntity.ok(result);
     }
 
     /**
      * 获取性能排名
-     * 面试重点：性能排序分析
+     * 面试重点：性能排序分析，按p99排序找出长尾最严重的方法
      */
     @GetMapping("/ranking")
     public ResponseEntity<Map<String, Object>> getPerformanceRanking(@RequestParam(defaultValue = "executionTime") String sortBy) {
@@ -141,6 +163,14 @@ public class PerformanceController {
                 switch (sortBy) {
                     case "executionTime":
                         return Double.compare(p2.getAverageExecutionTime(), p1.getAverageExecutionTime());
+                    case "p50":
+                        return Double.compare(p2.getP50ExecutionTime(), p1.getP50ExecutionTime());
+                    case "p90":
+                        return Double.compare(p2.getP90ExecutionTime(), p1.getP90ExecutionTime());
+                    case "p99":
+                        return Double.compare(p2.getP99ExecutionTime(), p1.getP99ExecutionTime());
+                    case "p999":
+                        return Double.compare(p2.getP999ExecutionTime(), p1.getP999ExecutionTime());
                     case "callCount":
                         return Long.compare(p2.getCallCount(), p1.getCallCount());
                     case "memoryUsed":
@@ -162,6 +192,69 @@ public class PerformanceController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 获取最近时间窗口内的方法统计
+     * 面试重点：滚动窗口，最近的抖动不会被启动以来的累计值稀释
+     * 
+     * window可选1m、5m、15m，结果按p99降序，只包含窗口内有调用的方法。
+     */
+    @GetMapping("/windows")
+    public ResponseEntity<Map<String, Object>> getWindowStatistics(@RequestParam(defaultValue = "1m") String window) {
+        log.info("获取滚动窗口统计，窗口：{}", window);
+        
+        Duration duration = PerformanceAspect.MethodPerformance.WINDOWS.get(window);
+        if (duration == null) {
+            throw new BusinessException("不支持的时间窗口：" + window + "，可选" + PerformanceAspect.MethodPerformance.WINDOWS.keySet());
+        }
+        
+        List<Map<String, Object>> methods = performanceAspect.getPerformanceStatistics().values().stream()
+            .map(performance -> {
+                RollingMetrics.Snapshot snapshot = performance.window(duration);
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("methodName", performance.getMethodName());
+                stats.put("layer", performance.getLayer());
+                stats.putAll(windowStatistics(snapshot));
+                return stats;
+            })
+            .filter(stats -> (Long) stats.get("callCount") > 0)
+            .sorted(Comparator.comparingDouble((Map<String, Object> stats) -> (Double) stats.get("p99ExecutionTime")).reversed())
+            .toList();
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("timestamp", System.currentTimeMillis());
+        result.put("window", window);
+        result.put("methods", methods);
+        
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 获取最近的慢请求调用树
+     * 面试重点：从Controller到Repository逐层展开，按自身耗时定位慢在哪一层
+     * 
+     * 每个节点包含总耗时与自身耗时(毫秒)，以及相对请求开始的偏移，最新的请求在前。
+     */
+    @GetMapping("/traces")
+    public ResponseEntity<Map<String, Object>> getSlowTraces(@RequestParam(defaultValue = "20") int limit) {
+        log.info("获取慢请求调用树，数量：{}", limit);
+        
+        if (limit < 1) {
+            throw new BusinessException("limit必须大于0");
+        }
+        
+        List<Map<String, Object>> traces = performanceAspect.getSlowTraces(limit).stream()
+            .map(this::traceStatistics)
+            .toList();
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("timestamp", System.currentTimeMillis());
+        result.put("capacity", performanceAspect.getSlowTraceCapacity());
+        result.put("count", traces.size());
+        result.put("traces", traces);
+        
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 获取性能告警
      * 面试重点：性能告警机制
@@ -253,12 +346,12 @@ public class PerformanceController {
         
         // 计算总体统计
         long totalCalls = stats.values().stream().mapToLong(PerformanceAspect.MethodPerformance::getCallCount).sum();
-        long totalExecutionTime = stats.values().stream().mapToLong(PerformanceAspect.MethodPerformance::getTotalExecutionTime).sum();
+        double totalExecutionTime = stats.values().stream().mapToDouble(PerformanceAspect.MethodPerformance::getTotalExecutionTime).sum();
         long totalSuccessCount = stats.values().stream().mapToLong(PerformanceAspect.MethodPerformance::getSuccessCount).sum();
         
         result.put("totalCalls", totalCalls);
         result.put("totalExecutionTime", totalExecutionTime);
-        result.put("averageExecutionTime", totalCalls > 0 ? (double) totalExecutionTime / totalCalls : 0);
+        result.put("averageExecutionTime", totalCalls > 0 ? totalExecutionTime / totalCalls : 0);
         result.put("overallSuccessRate", totalCalls > 0 ? (double) totalSuccessCount / totalCalls * 100 : 0);
         
         // 最慢的方法
@@ -289,4 +382,68 @@ public class PerformanceController {
         
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * 采样配置与实际记录条数
+     */
+    private Map<String, Object> samplingStatistics(Map<String, PerformanceAspect.MethodPerformance> stats) {
+        AppConfig.Performance.Sampling sampling = performanceAspect.getSampling();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", sampling.isEnabled());
+        if (sampling.isEnabled()) {
+            result.put("layerRates", sampling.getLayerRates());
+            result.put("adaptive", sampling.isAdaptive());
+            result.put("targetSamplesPerSecond", sampling.getTargetSamplesPerSecond());
+            result.put("slowThreshold", sampling.getSlowThreshold().toMillis());
+        }
+        result.put("sampledCount", stats.values().stream().mapToLong(PerformanceAspect.MethodPerformance::getSampledCount).sum());
+        return result;
+    }
+
+    /**
+     * 按父节点下标把先序排列的节点还原为嵌套结构
+     */
+    private Map<String, Object> traceStatistics(CallTree.Trace trace) {
+        List<CallTree.Span> spans = trace.spans();
+        List<Map<String, Object>> nodes = new ArrayList<>(spans.size());
+        for (CallTree.Span span : spans) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("layer", span.layer());
+            node.put("methodName", span.methodName());
+            node.put("startOffset", span.startOffsetNanos() / 1_000_000.0);
+            node.put("totalTime", span.totalNanos() / 1_000_000.0);
+            node.put("selfTime", span.selfNanos() / 1_000_000.0);
+            node.put("success", span.success());
+            node.put("children", new ArrayList<Map<String, Object>>());
+            if (span.parent() >= 0) {
+                ((List<Map<String, Object>>) nodes.get(span.parent()).get("children")).add(node);
+            }
+            nodes.add(node);
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("timestamp", trace.timestamp());
+        result.put("totalTime", trace.totalNanos() / 1_000_000.0);
+        result.put("spanCount", spans.size());
+        result.put("droppedSpans", trace.droppedSpans());
+        result.put("root", nodes.isEmpty() ? null : nodes.get(0));
+        return result;
+    }
+
+    /**
+     * 滚动窗口统计，耗时单位为毫秒，吞吐单位为次/秒
+     */
+    private Map<String, Object> windowStatistics(RollingMetrics.Snapshot snapshot) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("callCount", snapshot.count());
+        stats.put("throughput", snapshot.throughput());
+        stats.put("errorRate", snapshot.errorRate());
+        stats.put("averageExecutionTime", snapshot.latency().getMean() / 1_000_000);
+        stats.put("p50ExecutionTime", snapshot.latency().getValueAtPercentile(50) / 1_000_000.0);
+        stats.put("p90ExecutionTime", snapshot.latency().getValueAtPercentile(90) / 1_000_000.0);
+        stats.put("p99ExecutionTime", snapshot.latency().getValueAtPercentile(99) / 1_000_000.0);
+        stats.put("p999ExecutionTime", snapshot.latency().getValueAtPercentile(99.9) / 1_000_000.0);
+        stats.put("maxExecutionTime", snapshot.latency().getMax() / 1_000_000.0);
+        return stats;
+    }
 }
@@ -59,6 +59,17 @@ public class UserController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 批量获取用户
+     * 面试重点：批量接口代替循环调用，一次缓存MGET + 一次数据库IN查询
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<User>> getUsersByIds(@RequestParam List<Long> ids) {
+        log.info("批量获取用户: {}个", ids.size());
+        List<User> users = userService.findByIds(ids);
+        return ResponseEntity.ok(users);
+    }
+
     /**
      * 根据ID获取用户
      * 面试重点：路径参数、空值处理
@@ -0,0 +1,101 @@
+package com.learning.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应采样器
+ *
+ * 面试重点知识点：
+ * 1. 固定比例采样：每次调用以1/N的概率被采样，采样到的调用按N次计入，总数的期望不变
+ * 2. 自适应：按方法最近一秒的QPS调整N，使采样数不超过目标值，高频方法的监控开销随之下降
+ * 3. 无锁调整：每秒只有CAS成功的一个线程重新计算N，其他线程只读volatile字段
+ * 4. 采样间隔取整数，权重也是整数，直方图按权重计数即可保持统计正确
+ *
+ * 慢调用与异常调用由调用方始终记录(权重为1)，不经过采样。
+ *
+ * @author 学习笔记
+ */
+public class AdaptiveSampler {
+
+    private static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final AdaptiveSampler ALWAYS = new AdaptiveSampler(1, 0, 1);
+
+    private final int baseInterval;
+    private final double targetSamplesPerSecond;
+    private final int maxInterval;
+    private final LongAdder calls = new LongAdder();
+    private final AtomicLong periodStart;
+    private volatile int interval;
+
+    /**
+     * @param baseInterval           固定采样间隔，即每N次调用采样一次，1表示全部采样
+     * @param targetSamplesPerSecond 自适应时每秒期望的采样数，不大于0表示不自适应
+     * @param maxInterval            自适应时采样间隔的上限
+     */
+    public AdaptiveSampler(int baseInterval, double targetSamplesPerSecond, int maxInterval) {
+        this(baseInterval, targetSamplesPerSecond, maxInterval, System.nanoTime());
+    }
+
+    AdaptiveSampler(int baseInterval, double targetSamplesPerSecond, int maxInterval, long startNanos) {
+        if (baseInterval < 1 || maxInterval < baseInterval) {
+            throw new IllegalArgumentException("Require 1 <= baseInterval <= maxInterval");
+        }
+        this.baseInterval = baseInterval;
+        this.targetSamplesPerSecond = targetSamplesPerSecond;
+        this.maxInterval = maxInterval;
+        this.interval = baseInterval;
+        this.periodStart = new AtomicLong(startNanos);
+    }
+
+    /**
+     * 全部采样、不自适应的共享实例
+     */
+    public static AdaptiveSampler always() {
+        return ALWAYS;
+    }
+
+    /**
+     * 按采样比例计算采样间隔，如0.1对应每10次采样一次
+     */
+    public static int intervalOf(double rate) {
+        if (!(rate > 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Sampling rate must be in (0, 1]: " + rate);
+        }
+        return (int) Math.round(1 / rate);
+    }
+
+    /**
+     * 决定本次调用是否采样
+     *
+     * @param now 当前纳秒时间，由调用方传入以复用计时
+     * @return 采样时返回本次调用代表的调用次数(当前采样间隔)，不采样时返回0
+     */
+    public int sample(long now) {
+        if (targetSamplesPerSecond > 0) {
+            calls.increment();
+            long start = periodStart.get();
+            if (now - start >= ADJUST_INTERVAL_NANOS && periodStart.compareAndSet(start, now)) {
+                adjust(start, now);
+            }
+        }
+        int n = interval;
+        return n == 1 || ThreadLocalRandom.current().nextInt(n) == 0 ? n : 0;
+    }
+
+    /**
+     * 当前采样间隔
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    private void adjust(long start, long now) {
+        long count = calls.sumThenReset();
+        double qps = count * 1_000_000_000.0 / (now - start);
+        long adaptive = (long) Math.ceil(qps / targetSamplesPerSecond);
+        interval = (int) Math.min(maxInterval, Math.max(baseInterval, adaptive));
+    }
+}
@@ -0,0 +1,169 @@
+package com.learning.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图
+ * 
+ * 面试重点知识点：
+ * 1. 为什么平均值不够：长尾延迟(p99/p999)才决定用户体验
+ * 2. HDR直方图思想：对数分桶 + 桶内线性细分，相对误差固定且内存有界
+ * 3. 无锁记录：AtomicLongArray计数 + LongAdder汇总，高并发下无锁竞争
+ * 
+ * 小于2^subBucketBits的值精确记录；更大的值每个2的幂区间再均分为2^subBucketBits个子桶，
+ * 相对误差不超过 1/2^subBucketBits。超过上限的值按上限记录。
+ * 
+ * @author 学习笔记
+ */
+public class LatencyHistogram {
+
+    /**
+     * 默认精度：每个2的幂区间64个子桶(相对误差约1.6%)，上限约18分钟(纳秒)
+     */
+    public static final int DEFAULT_SUB_BUCKET_BITS = 6;
+    public static final long DEFAULT_MAX_VALUE = TimeUnit.MINUTES.toNanos(18);
+
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final long maxValue;
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final LongAccumulator maxRecorded = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS, DEFAULT_MAX_VALUE);
+    }
+
+    public LatencyHistogram(int subBucketBits, long maxValue) {
+        if (subBucketBits < 1 || subBucketBits > 10) {
+            throw new IllegalArgumentException("subBucketBits must be in [1, 10]: " + subBucketBits);
+        }
+        this.subBucketBits = subBucketBits;
+        this.subBucketCount = 1 << subBucketBits;
+        this.maxValue = Math.max(maxValue, subBucketCount);
+        this.counts = new AtomicLongArray(indexOf(this.maxValue) + 1);
+    }
+
+    /**
+     * 记录一个值(通常为纳秒)
+     */
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), maxValue);
+        counts.incrementAndGet(indexOf(clamped));
+        totalCount.increment();
+        totalValue.add(clamped);
+        maxRecorded.accumulate(clamped);
+    }
+
+    /**
+     * 记录一个代表count次调用的值，用于采样后按权重还原
+     */
+    public void record(long value, long count) {
+        long clamped = Math.min(Math.max(value, 0), maxValue);
+        counts.addAndGet(indexOf(clamped), count);
+        totalCount.add(count);
+        totalValue.add(clamped * count);
+        maxRecorded.accumulate(clamped);
+    }
+
+    /**
+     * 获取百分位值
+     * 
+     * @param percentile 百分位，取值0~100，如99.9
+     * @return 该百分位所在桶的上界，不超过实际记录的最大值
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getTotal() {
+        return totalValue.sum();
+    }
+
+    public long getMax() {
+        return maxRecorded.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.sum();
+        return count > 0 ? (double) totalValue.sum() / count : 0;
+    }
+
+    /**
+     * 占用内存估算(字节)，用于确认内存有界
+     */
+    public long memoryBytes() {
+        return (long) counts.length() * Long.BYTES;
+    }
+
+    /**
+     * 将另一个直方图的数据合并进来，两者精度与上限必须一致
+     */
+    public void add(LatencyHistogram other) {
+        if (other.subBucketBits != subBucketBits || other.counts.length() != counts.length()) {
+            throw new IllegalArgumentException("Histogram layouts differ");
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.add(other.totalCount.sum());
+        totalValue.add(other.totalValue.sum());
+        maxRecorded.accumulate(other.getMax());
+    }
+
+    /**
+     * 清空数据，与并发记录之间不保证原子性
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalValue.reset();
+        maxRecorded.reset();
+    }
+
+    private int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - subBucketBits;
+        int subBucket = (int) ((value >>> shift) & (subBucketCount - 1));
+        return subBucketCount + shift * subBucketCount + subBucket;
+    }
+
+    private long highestEquivalentValue(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = (index - subBucketCount) / subBucketCount;
+        int subBucket = (index - subBucketCount) % subBucketCount;
+        int exponent = shift + subBucketBits;
+        long lowest = (1L << exponent) + ((long) subBucket << shift);
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.learning.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界环形缓冲区
+ *
+ * 面试重点知识点：
+ * 1. 内存有界：只保留最近capacity条，新数据覆盖最旧的数据，不需要淘汰逻辑
+ * 2. 无锁写入：getAndIncrement领取序号，序号取模得到槽位
+ * 3. 尽力而为：读取时槽位可能刚被覆盖，适合诊断数据，不适合要求精确的场景
+ *
+ * @author 学习笔记
+ */
+public class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(T item) {
+        long seq = sequence.getAndIncrement();
+        slots.set((int) (seq % slots.length()), item);
+    }
+
+    /**
+     * 最近写入的数据，最新的在前
+     *
+     * @param limit 最多返回的条数
+     */
+    public List<T> latest(int limit) {
+        long end = sequence.get();
+        long start = Math.max(0, end - Math.min(limit, slots.length()));
+        List<T> items = new ArrayList<>((int) (end - start));
+        for (long seq = end - 1; seq >= start; seq--) {
+            T item = slots.get((int) (seq % slots.length()));
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * 清空数据，与并发写入之间不保证原子性
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.learning.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 滚动时间窗口指标
+ *
+ * 面试重点知识点：
+ * 1. 累计统计的问题：启动以来的平均值会把几分钟前的抖动稀释掉，必须看最近一段时间
+ * 2. 环形缓冲区：时间按固定间隔分桶，桶下标 = 时间 / 间隔 % 桶数，旧桶被循环复用
+ * 3. 无锁轮转：每个桶记录自己的时间编号，发现编号过期的线程CAS换上新桶，失败说明别的线程已经换好
+ * 4. 不需要全局重置：读取时只合并编号落在窗口内的桶，过期桶自然被忽略
+ *
+ * 窗口包含当前未满的桶，吞吐按窗口实际覆盖的时长计算。每个桶使用低精度直方图(相对误差约12.5%，
+ * 上限1分钟)以限制内存，只有发生过调用的桶才会分配。轮转瞬间仍写入旧桶的少量样本会随旧桶丢弃。
+ *
+ * @author 学习笔记
+ */
+public class RollingMetrics {
+
+    private static final int BUCKET_SUB_BUCKET_BITS = 3;
+    private static final long BUCKET_MAX_VALUE = TimeUnit.MINUTES.toNanos(1);
+
+    private final long bucketNanos;
+    private final int bucketCount;
+    private final LongSupplier ticker;
+    private final long createdAt;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    /**
+     * @param bucketDuration 每个桶的时间间隔
+     * @param bucketCount    保留的桶数，决定可查询的最长窗口
+     */
+    public RollingMetrics(Duration bucketDuration, int bucketCount) {
+        this(bucketDuration, bucketCount, System::nanoTime);
+    }
+
+    RollingMetrics(Duration bucketDuration, int bucketCount, LongSupplier ticker) {
+        if (bucketDuration.isNegative() || bucketDuration.isZero() || bucketCount < 1) {
+            throw new IllegalArgumentException("bucketDuration and bucketCount must be positive");
+        }
+        this.bucketNanos = bucketDuration.toNanos();
+        this.bucketCount = bucketCount;
+        this.ticker = ticker;
+        this.createdAt = ticker.getAsLong();
+        // 多一个槽位给当前未满的桶，满窗口查询时不会被它覆盖
+        this.buckets = new AtomicReferenceArray<>(bucketCount + 1);
+    }
+
+    /**
+     * 记录一次调用
+     */
+    public void record(long latencyNanos, boolean success) {
+        Bucket bucket = currentBucket(Math.floorDiv(ticker.getAsLong(), bucketNanos));
+        bucket.latency.record(latencyNanos);
+        if (!success) {
+            bucket.errors.increment();
+        }
+    }
+
+    /**
+     * 记录一次代表count次调用的采样
+     */
+    public void record(long latencyNanos, boolean success, long count) {
+        Bucket bucket = currentBucket(Math.floorDiv(ticker.getAsLong(), bucketNanos));
+        bucket.latency.record(latencyNanos, count);
+        if (!success) {
+            bucket.errors.add(count);
+        }
+    }
+
+    /**
+     * 合并最近一段时间的桶
+     *
+     * @param window 窗口长度，超过保留的时长时按保留的时长计算
+     */
+    public Snapshot snapshot(Duration window) {
+        long now = ticker.getAsLong();
+        long epoch = Math.floorDiv(now, bucketNanos);
+        int span = (int) Math.min(bucketCount, Math.max(1, window.toNanos() / bucketNanos));
+        LatencyHistogram latency = new LatencyHistogram(BUCKET_SUB_BUCKET_BITS, BUCKET_MAX_VALUE);
+        long errors = 0;
+        for (long e = epoch - span + 1; e <= epoch; e++) {
+            Bucket bucket = buckets.get(slot(e));
+            if (bucket != null && bucket.epoch == e) {
+                latency.add(bucket.latency);
+                errors += bucket.errors.sum();
+            }
+        }
+        long windowStart = Math.max((epoch - span + 1) * bucketNanos, createdAt);
+        return new Snapshot(latency, errors, Math.max(1, now - windowStart));
+    }
+
+    private Bucket currentBucket(long epoch) {
+        int slot = slot(epoch);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            // 编号更新的桶说明本线程被延迟了，直接计入较新的桶
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) buckets.length());
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final LatencyHistogram latency = new LatencyHistogram(BUCKET_SUB_BUCKET_BITS, BUCKET_MAX_VALUE);
+        private final LongAdder errors = new LongAdder();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * 一个窗口内的汇总
+     */
+    public record Snapshot(LatencyHistogram latency, long errors, long spanNanos) {
+
+        public long count() {
+            return latency.getCount();
+        }
+
+        /**
+         * 每秒调用次数
+         */
+        public double throughput() {
+            return count() * 1_000_000_000.0 / spanNanos;
+        }
+
+        /**
+         * 错误率(百分比)
+         */
+        public double errorRate() {
+            long count = count();
+            return count > 0 ? (double) errors / count * 100 : 0;
+        }
+    }
+}
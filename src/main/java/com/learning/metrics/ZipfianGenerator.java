@@ -0,0 +1,70 @@
+package com.learning.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Zipf分布的随机数生成器
+ *
+ * 面试重点知识点：
+ * 1. 真实流量的key访问往往是长尾的：少数key承担大部分请求，均匀分布会低估缓存命中率
+ * 2. YCSB的快速采样算法：构造时预计算zeta(n)，之后每次采样O(1)，不需要逐项累加概率
+ * 3. 指数theta越大越集中，YCSB默认0.99
+ *
+ * 返回[0, itemCount)，0最热。线程安全：随机数取自ThreadLocalRandom。
+ *
+ * @author 学习笔记
+ */
+public class ZipfianGenerator {
+
+    public static final double DEFAULT_THETA = 0.99;
+
+    private final long itemCount;
+    private final double theta;
+    private final double zetaN;
+    private final double alpha;
+    private final double eta;
+    private final double halfPowTheta;
+
+    public ZipfianGenerator(long itemCount) {
+        this(itemCount, DEFAULT_THETA);
+    }
+
+    public ZipfianGenerator(long itemCount, double theta) {
+        if (itemCount < 2) {
+            throw new IllegalArgumentException("itemCount must be at least 2: " + itemCount);
+        }
+        if (theta <= 0 || theta >= 1) {
+            throw new IllegalArgumentException("theta must be in (0, 1): " + theta);
+        }
+        this.itemCount = itemCount;
+        this.theta = theta;
+        this.zetaN = zeta(itemCount, theta);
+        this.alpha = 1.0 / (1.0 - theta);
+        this.eta = (1 - Math.pow(2.0 / itemCount, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+        this.halfPowTheta = 1 + Math.pow(0.5, theta);
+    }
+
+    public long next() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < halfPowTheta) {
+            return 1;
+        }
+        long value = (long) (itemCount * Math.pow(eta * u - eta + 1, alpha));
+        return Math.min(value, itemCount - 1);
+    }
+
+    public long getItemCount() { return itemCount; }
+    public double getTheta() { return theta; }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,211 @@
+package com.learning.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.learning.cache.ScalableBloomFilter;
+import com.learning.config.AppConfig;
+import com.learning.entity.Order;
+import com.learning.entity.User;
+import com.learning.repository.OrderRepository;
+import com.learning.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 布隆过滤器服务
+ * 
+ * 面试重点知识点：
+ * 1. 缓存穿透的解决方案：布隆过滤器前置拦截
+ * 2. 启动时分批预热过滤器(基于主键的游标分页，避免深分页)
+ * 3. 数据新增/删除时同步维护过滤器：新增立即生效，删除在事务提交后生效
+ * 4. 误判率与内存占用的指标上报(Micrometer)
+ * 
+ * 预热完成前(或预热失败时)过滤器不生效，所有请求按"可能存在"放行。
+ * 
+ * @author 学习笔记
+ */
+@Service
+@Slf4j
+public class BloomFilterService {
+
+    public static final String USER_FILTER = "user";
+    public static final String ORDER_FILTER = "order";
+
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final AppConfig.Cache.Bloom config;
+    private final Map<String, ScalableBloomFilter> filters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectedCounters = new ConcurrentHashMap<>();
+    private final Set<String> readyFilters = ConcurrentHashMap.newKeySet();
+
+    public BloomFilterService(UserRepository userRepository, OrderRepository orderRepository,
+                              AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.orderRepository = orderRepository;
+        this.config = appConfig.getCache().getBloom();
+        for (String name : List.of(USER_FILTER, ORDER_FILTER)) {
+            ScalableBloomFilter filter = new ScalableBloomFilter(name, config.getExpectedInsertions(),
+                    config.getFalsePositiveRate(), config.getMaxMemoryBytes());
+            filters.put(name, filter);
+            registerMetrics(meterRegistry, filter);
+        }
+    }
+
+    /**
+     * 启动完成后从数据库预热过滤器
+     * 面试重点：预热期间放行，避免误拦截
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        seed(USER_FILTER, this::seedUsers);
+        seed(ORDER_FILTER, this::seedOrders);
+    }
+
+    private void seed(String filterName, LongSupplier seeder) {
+        long start = System.currentTimeMillis();
+        try {
+            long count = seeder.getAsLong();
+            readyFilters.add(filterName);
+            log.info("布隆过滤器[{}]预热完成，元素数：{}，耗时：{}ms", filterName, count, System.currentTimeMillis() - start);
+        } catch (DataAccessException e) {
+            log.warn("布隆过滤器[{}]预热失败，过滤器不生效：{}", filterName, e.getMessage());
+        }
+    }
+
+    /**
+     * 判断key是否可能存在
+     */
+    public boolean mightContain(String filterName, Object key) {
+        if (!config.isEnabled() || !readyFilters.contains(filterName) || key == null) {
+            return true;
+        }
+        boolean mightContain = getFilter(filterName).mightContain(key);
+        if (!mightContain) {
+            rejectedCounters.get(filterName).increment();
+        }
+        return mightContain;
+    }
+
+    public void addUser(Long userId) {
+        if (userId != null) {
+            getFilter(USER_FILTER).add(userId);
+        }
+    }
+
+    public void removeUser(Long userId) {
+        if (userId != null) {
+            afterCommit(() -> getFilter(USER_FILTER).remove(userId));
+        }
+    }
+
+    public void addOrder(String orderNumber) {
+        if (orderNumber != null) {
+            getFilter(ORDER_FILTER).add(orderNumber);
+        }
+    }
+
+    public void removeOrder(String orderNumber) {
+        if (orderNumber != null) {
+            afterCommit(() -> getFilter(ORDER_FILTER).remove(orderNumber));
+        }
+    }
+
+    public ScalableBloomFilter getFilter(String filterName) {
+        ScalableBloomFilter filter = filters.get(filterName);
+        if (filter == null) {
+            throw new IllegalArgumentException("未知的布隆过滤器：" + filterName);
+        }
+        return filter;
+    }
+
+    public boolean isReady(String filterName) {
+        return readyFilters.contains(filterName);
+    }
+
+    /**
+     * 删除操作在事务提交后执行
+     * 面试重点：事务回滚时若已删除，过滤器会产生漏判，把存在的数据误判为不存在
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private long seedUsers() {
+        long count = 0;
+        long lastId = 0;
+        while (true) {
+            List<User> batch = userRepository.selectList(new LambdaQueryWrapper<User>()
+                    .select(User::getId)
+                    .gt(User::getId, lastId)
+                    .orderByAsc(User::getId)
+                    .last("LIMIT " + config.getSeedBatchSize()));
+            batch.forEach(user -> addUser(user.getId()));
+            count += batch.size();
+            if (batch.size() < config.getSeedBatchSize()) {
+                return count;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private long seedOrders() {
+        long count = 0;
+        long lastId = 0;
+        while (true) {
+            List<Order> batch = orderRepository.selectList(new LambdaQueryWrapper<Order>()
+                    .select(Order::getId, Order::getOrderNumber)
+                    .gt(Order::getId, lastId)
+                    .orderByAsc(Order::getId)
+                    .last("LIMIT " + config.getSeedBatchSize()));
+            batch.forEach(order -> addOrder(order.getOrderNumber()));
+            count += batch.size();
+            if (batch.size() < config.getSeedBatchSize()) {
+                return count;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private void registerMetrics(MeterRegistry meterRegistry, ScalableBloomFilter filter) {
+        Gauge.builder("cache.bloom.false.positive.rate", filter, ScalableBloomFilter::expectedFalsePositiveRate)
+                .tag("filter", filter.getName())
+                .description("按当前元素数量估算的误判率")
+                .register(meterRegistry);
+        Gauge.builder("cache.bloom.memory", filter, ScalableBloomFilter::memoryBytes)
+                .tag("filter", filter.getName())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cache.bloom.size", filter, ScalableBloomFilter::size)
+                .tag("filter", filter.getName())
+                .register(meterRegistry);
+        rejectedCounters.put(filter.getName(), Counter.builder("cache.bloom.rejected")
+                .tag("filter", filter.getName())
+                .description("被布隆过滤器拦截的请求数")
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,338 @@
+package com.learning.service;
+
+import com.learning.exception.BusinessException;
+import com.learning.metrics.LatencyHistogram;
+import com.learning.metrics.ZipfianGenerator;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 缓存压测服务
+ *
+ * 面试重点知识点：
+ * 1. 并发压测：固定数量的工作线程在限定时长内持续发起请求(闭环模型)
+ * 2. key分布：均匀分布与Zipf分布，后者更接近真实流量的热点特征
+ * 3. 冷热分离：可选先清空缓存，冷启动阶段与稳定阶段分别统计
+ * 4. 长尾延迟：无锁直方图记录每次调用的纳秒耗时，输出p50/p90/p99/p999
+ * 5. 隔离：压测只读写专用的loadTestCache，不影响业务缓存的数据与命中率统计
+ *
+ * 读请求经完整的缓存装饰链读取，未命中时模拟一次数据库查询；写请求模拟一次数据库写入后更新缓存。
+ * 命中率取自压测自身的计数：每次回源加载计为一次未命中，并发等待同一次加载的请求不算未命中。
+ * 压测异步执行，通过任务ID查询结果；同一时间只允许一个压测运行。
+ *
+ * @author 学习笔记
+ */
+@Service
+@Slf4j
+public class CacheLoadTestService {
+
+    public static final String CACHE_NAME = "loadTestCache";
+    private static final int MAX_CONCURRENCY = 256;
+    private static final Duration MAX_DURATION = Duration.ofMinutes(5);
+    private static final int MAX_KEY_COUNT = 1_000_000;
+    private static final int MAX_RETAINED_TASKS = 20;
+    private static final long READ_LATENCY_MILLIS = 100;
+    private static final long WRITE_LATENCY_MILLIS = 50;
+
+    private final CacheManager cacheManager;
+    private final Executor taskExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, LoadTestTask> tasks = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LoadTestTask> eldest) {
+            return size() > MAX_RETAINED_TASKS;
+        }
+    };
+
+    public CacheLoadTestService(CacheManager cacheManager, @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.cacheManager = cacheManager;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * 提交压测任务，立即返回任务对象
+     * 面试重点：长时间运行的操作异步执行，调用方通过任务ID轮询结果
+     */
+    public LoadTestTask start(LoadTestOptions options) {
+        validate(options);
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            throw new BusinessException("缓存不存在：" + CACHE_NAME);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("已有压测正在运行", HttpStatus.CONFLICT);
+        }
+        LoadTestTask task = new LoadTestTask(UUID.randomUUID().toString(), options);
+        synchronized (tasks) {
+            tasks.put(task.getId(), task);
+        }
+        try {
+            CompletableFuture.runAsync(() -> execute(task, cache), taskExecutor);
+        } catch (RejectedExecutionException e) {
+            task.fail("线程池繁忙");
+            running.set(false);
+            throw new BusinessException("线程池繁忙，压测任务被拒绝", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        log.info("提交缓存压测任务：{}，并发：{}，时长：{}s", task.getId(), options.concurrency(),
+                options.duration().toSeconds());
+        return task;
+    }
+
+    public LoadTestTask getTask(String taskId) {
+        synchronized (tasks) {
+            return tasks.get(taskId);
+        }
+    }
+
+    private void execute(LoadTestTask task, Cache cache) {
+        try {
+            task.complete(run(task.getOptions(), cache));
+        } catch (RuntimeException e) {
+            log.warn("缓存压测任务失败：{}，异常：{}", task.getId(), e.getMessage());
+            task.fail(e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 执行压测，阻塞到所有阶段结束
+     */
+    private LoadTestReport run(LoadTestOptions options, Cache cache) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "load-test-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            LongSupplier keys = keySupplier(options);
+            if (options.coldStart()) {
+                cache.clear();
+            }
+            PhaseResult cold = options.warmup().isZero() ? null : runPhase(options, options.warmup(), keys, cache, workers);
+            PhaseResult warm = runPhase(options, options.duration(), keys, cache, workers);
+            log.info("压测完成，并发：{}，稳定阶段吞吐：{}/s，p99：{}μs",
+                    options.concurrency(), (long) warm.throughput(), warm.latency().getValueAtPercentile(99) / 1000);
+            return new LoadTestReport(options, cold, warm);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private PhaseResult runPhase(LoadTestOptions options, Duration duration, LongSupplier keys, Cache cache,
+                                 ExecutorService workers) {
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram readLatency = new LatencyHistogram();
+        LatencyHistogram writeLatency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        LongAdder reads = new LongAdder();
+        LongAdder misses = new LongAdder();
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < options.concurrency(); i++) {
+            tasks.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    long id = keys.getAsLong();
+                    boolean read = random.nextDouble() < options.readRatio();
+                    long begin = System.nanoTime();
+                    try {
+                        if (read) {
+                            cache.get(id, () -> {
+                                Map<String, Object> user = loadUser(id);
+                                misses.increment();
+                                return user;
+                            });
+                            reads.increment();
+                        } else {
+                            cache.put(id, saveUser(id));
+                        }
+                    } catch (RuntimeException e) {
+                        errors.increment();
+                    }
+                    long elapsed = System.nanoTime() - begin;
+                    latency.record(elapsed);
+                    (read ? readLatency : writeLatency).record(elapsed);
+                }
+                return null;
+            });
+        }
+        try {
+            workers.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long missCount = misses.sum();
+        long hits = Math.max(0, reads.sum() - missCount);
+        return new PhaseResult(elapsedNanos, errors.sum(), hits, missCount, latency, readLatency, writeLatency);
+    }
+
+    /**
+     * 模拟回源查询
+     */
+    private static Map<String, Object> loadUser(long id) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(READ_LATENCY_MILLIS);
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", id);
+        user.put("username", "user" + id);
+        user.put("email", "user" + id + "@example.com");
+        return user;
+    }
+
+    /**
+     * 模拟数据库写入
+     */
+    private static Map<String, Object> saveUser(long id) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(WRITE_LATENCY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", id);
+        user.put("username", "user" + id);
+        user.put("updatedAt", LocalDateTime.now());
+        return user;
+    }
+
+    /**
+     * 用户ID从1开始；Zipf分布下ID越小越热
+     */
+    private static LongSupplier keySupplier(LoadTestOptions options) {
+        if (options.distribution() == KeyDistribution.ZIPFIAN) {
+            ZipfianGenerator zipfian = new ZipfianGenerator(options.keyCount(), options.zipfianTheta());
+            return () -> zipfian.next() + 1;
+        }
+        int keyCount = options.keyCount();
+        return () -> ThreadLocalRandom.current().nextInt(keyCount) + 1L;
+    }
+
+    private static void validate(LoadTestOptions options) {
+        if (options.concurrency() < 1 || options.concurrency() > MAX_CONCURRENCY) {
+            throw new BusinessException("并发数必须在1~" + MAX_CONCURRENCY + "之间");
+        }
+        if (options.duration().isNegative() || options.duration().isZero()
+                || options.duration().compareTo(MAX_DURATION) > 0
+                || options.warmup().isNegative() || options.warmup().compareTo(MAX_DURATION) > 0) {
+            throw new BusinessException("压测时长必须大于0且不超过" + MAX_DURATION.toMinutes() + "分钟");
+        }
+        if (options.keyCount() < 2 || options.keyCount() > MAX_KEY_COUNT) {
+            throw new BusinessException("key数量必须在2~" + MAX_KEY_COUNT + "之间");
+        }
+        if (options.readRatio() < 0 || options.readRatio() > 1) {
+            throw new BusinessException("读比例必须在0~1之间");
+        }
+        if (options.distribution() == KeyDistribution.ZIPFIAN
+                && (options.zipfianTheta() <= 0 || options.zipfianTheta() >= 1)) {
+            throw new BusinessException("Zipf指数必须在(0, 1)之间");
+        }
+    }
+
+    public enum KeyDistribution {
+        UNIFORM, ZIPFIAN
+    }
+
+    /**
+     * 压测参数
+     */
+    public record LoadTestOptions(int concurrency, Duration duration, Duration warmup, int keyCount,
+                                  KeyDistribution distribution, double zipfianTheta, double readRatio,
+                                  boolean coldStart) {
+    }
+
+    /**
+     * 单个阶段的结果
+     */
+    public record PhaseResult(long elapsedNanos, long errors, long hits, long misses, LatencyHistogram latency,
+                              LatencyHistogram readLatency, LatencyHistogram writeLatency) {
+
+        public long operations() {
+            return latency.getCount();
+        }
+
+        public double throughput() {
+            return elapsedNanos > 0 ? operations() * 1_000_000_000.0 / elapsedNanos : 0;
+        }
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total > 0 ? (double) hits / total * 100 : 0;
+        }
+    }
+
+    /**
+     * 压测报告：冷启动阶段(可选)与稳定阶段
+     */
+    public record LoadTestReport(LoadTestOptions options, PhaseResult cold, PhaseResult warm) {
+    }
+
+    public enum LoadTestStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * 压测任务，完成后带有压测报告
+     */
+    @Getter
+    public static class LoadTestTask {
+        private final String id;
+        private final LoadTestOptions options;
+        private final long startTime = System.currentTimeMillis();
+        private volatile long endTime;
+        private volatile LoadTestStatus status = LoadTestStatus.RUNNING;
+        private volatile LoadTestReport report;
+        private volatile String error;
+
+        LoadTestTask(String id, LoadTestOptions options) {
+            this.id = id;
+            this.options = options;
+        }
+
+        public long getElapsedMillis() {
+            return (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+        }
+
+        private void complete(LoadTestReport finalReport) {
+            report = finalReport;
+            endTime = System.currentTimeMillis();
+            status = LoadTestStatus.COMPLETED;
+        }
+
+        private void fail(String message) {
+            error = message;
+            endTime = System.currentTimeMillis();
+            status = LoadTestStatus.FAILED;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.learning.service;
 
 import com.learning.annotation.LogExecutionTime;
+import com.learning.cache.CacheLoaderRegistry;
+import com.learning.cache.WriteBehindQueue;
+import com.learning.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
@@ -10,8 +16,8 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 缓存服务类
@@ -26,9 +32,59 @@ import java.util.concurrent.ThreadLocalRandom;
  * @author 学习笔记
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class CacheService {
 
+    private final CacheLoaderRegistry cacheLoaderRegistry;
+    private final AppConfig appConfig;
+    private WriteBehindQueue<Long, Map<String, Object>> writeBehindQueue;
+
+    /**
+     * 注册userCache的回源加载器
+     * 面试重点：批量加载一次查询一批key，预热时不再逐个回源
+     */
+    @PostConstruct
+    public void registerCacheLoaders() {
+        cacheLoaderRegistry.register("userCache", key -> {
+            simulateDatabaseQuery(100);
+            return getFromDatabase((Long) key);
+        });
+        cacheLoaderRegistry.registerBatch("userCache", keys -> {
+            simulateDatabaseQuery(100);
+            Map<Object, Object> users = new LinkedHashMap<>();
+            keys.forEach(key -> users.put(key, getFromDatabase((Long) key)));
+            return users;
+        });
+    }
+
+    /**
+     * 开启异步回写时创建userCache的回写队列
+     */
+    @PostConstruct
+    public void initWriteBehind() {
+        AppConfig.Cache.WriteBehind writeBehind = appConfig.getCache().getWriteBehind();
+        if (writeBehind.isEnabled()) {
+            writeBehindQueue = new WriteBehindQueue<>("userCache", this::persistUsers, writeBehind.getMaxPendingKeys(),
+                    writeBehind.getBatchSize(), writeBehind.getFlushThreshold(), writeBehind.getFlushInterval(),
+                    writeBehind.getOfferTimeout());
+        }
+    }
+
+    /**
+     * 停机时刷完积压的回写
+     */
+    @PreDestroy
+    public void closeWriteBehind() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+        }
+    }
+
+    public WriteBehindQueue<Long, Map<String, Object>> getWriteBehindQueue() {
+        return writeBehindQueue;
+    }
+
     /**
      * 基础缓存操作 - @Cacheable
      * 面试重点：@Cacheable注解的使用
@@ -52,9 +108,11 @@ public class CacheService {
 
     /**
      * 条件缓存 - 根据条件决定是否缓存
-     * 面试重点：condition和unless参数的使用
+     * 面试重点：condition参数的使用
+     * 
+     * condition不满足时不读写缓存；满足条件但数据不存在时由NegativeCachingCache缓存空结果。
      */
-    @Cacheable(value = "userCache", key = "#id", condition = "#id > 0", unless = "#result == null")
+    @Cacheable(value = "userCache", key = "#id", condition = "#id > 0")
     @LogExecutionTime
     public Map<String, Object> getUserByIdWithCondition(Long id) {
         log.info("条件查询用户信息，ID：{}", id);
@@ -76,20 +134,35 @@ public class CacheService {
 
     /**
      * 缓存更新 - @CachePut
-     * 面试重点：@CachePut注解的使用
+     * 面试重点：@CachePut注解的使用、Write-Through与Write-Behind
+     * 
+     * 默认同步写库(Write-Through)；开启异步回写后只把写入放入队列，缓存仍由@CachePut同步更新。
+     * 队列满且等待超时时退化为同步写库。
      */
     @CachePut(value = "userCache", key = "#id")
     @LogExecutionTime
     public Map<String, Object> updateUser(Long id, Map<String, Object> userData) {
         log.info("更新用户信息，ID：{}", id);
         
-        // 模拟数据库更新
-        simulateDatabaseQuery(200);
-        
         Map<String, Object> updatedUser = new HashMap<>(userData);
         updatedUser.put("id", id);
         updatedUser.put("updatedAt", LocalDateTime.now());
         
+        if (writeBehindQueue == null) {
+            persistUsers(Map.of(id, updatedUser));
+            return updatedUser;
+        }
+        boolean queued;
+        try {
+            queued = writeBehindQueue.submit(id, updatedUser);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            log.warn("回写队列已满，同步写入用户，ID：{}", id);
+            writeBehindQueue.writeNow(id, updatedUser);
+        }
         return updatedUser;
     }
 
@@ -142,44 +215,26 @@ public class CacheService {
     /**
      * 多级缓存操作
      * 面试重点：多级缓存的设计
+     * 
+     * userCache由TwoLevelCache承载：先查进程内L1，未命中再查Redis L2，
+     * L2命中后回填L1；两级都未命中才会执行本方法查询数据库，结果同时写入两级缓存。
      */
     @Cacheable(value = "userCache", key = "#id")
     @LogExecutionTime
     public Map<String, Object> getUserWithMultiLevelCache(Long id) {
-        log.info("多级缓存查询，ID：{}", id);
-        
-        // 第一级：本地缓存
-        Map<String, Object> localCache = getFromLocalCache(id);
-        if (localCache != null) {
-            log.info("从本地缓存获取数据");
-            return localCache;
-        }
-        
-        // 第二级：分布式缓存
-        Map<String, Object> distributedCache = getFromDistributedCache(id);
-        if (distributedCache != null) {
-            log.info("从分布式缓存获取数据");
-            // 更新本地缓存
-            putToLocalCache(id, distributedCache);
-            return distributedCache;
-        }
-        
-        // 第三级：数据库
-        log.info("从数据库获取数据");
-        Map<String, Object> user = getFromDatabase(id);
-        
-        // 更新缓存
-        putToLocalCache(id, user);
-        putToDistributedCache(id, user);
-        
-        return user;
+        log.info("多级缓存未命中，从数据库获取数据，ID：{}", id);
+        return getFromDatabase(id);
     }
 
     /**
      * 缓存穿透防护
      * 面试重点：缓存穿透的解决方案
+     * 
+     * 本方法的数据是模拟生成的(ID不超过1000即存在)，与users表无关，不能用按users表初始化的布隆过滤器拦截；
+     * 不存在的ID查询结果null以空结果哨兵的形式短时间缓存，重复查询不会再次回源。
+     * 布隆过滤器拦截见UserService.findById。
      */
-    @Cacheable(value = "userCache", key = "#id", unless = "#result == null")
+    @Cacheable(value = "userCache", key = "#id")
     @LogExecutionTime
     public Map<String, Object> getUserWithPenetrationProtection(Long id) {
         log.info("缓存穿透防护查询，ID：{}", id);
@@ -205,22 +260,22 @@ public class CacheService {
     /**
      * 缓存雪崩防护
      * 面试重点：缓存雪崩的解决方案
+     * 
+     * 过期时间的随机化由CacheConfig完成：每个缓存单独配置TTL(app.cache.time-to-live)，
+     * 每次写入Redis时再叠加随机抖动(app.cache.ttl-jitter)，批量预热的key不会在同一时刻过期。
      */
     @Cacheable(value = "userCache", key = "#id")
     @LogExecutionTime
     public Map<String, Object> getUserWithAvalancheProtection(Long id) {
         log.info("缓存雪崩防护查询，ID：{}", id);
         
-        // 添加随机延迟，避免缓存同时过期
-        int randomDelay = ThreadLocalRandom.current().nextInt(100, 500);
-        simulateDatabaseQuery(randomDelay);
+        simulateDatabaseQuery(100);
         
         Map<String, Object> user = new HashMap<>();
         user.put("id", id);
         user.put("username", "user" + id);
         user.put("email", "user" + id + "@example.com");
         user.put("createdAt", LocalDateTime.now());
-        user.put("expireTime", LocalDateTime.now().plusMinutes(5 + ThreadLocalRandom.current().nextInt(0, 5)));
         
         return user;
     }
@@ -228,8 +283,11 @@ public class CacheService {
     /**
      * 缓存击穿防护
      * 面试重点：缓存击穿的解决方案
+     * 
+     * sync = true时缓存未命中走Cache.get(key, Callable)，由SingleFlightCache按key合并并发请求，
+     * 热点key过期时只有一个请求回源，其余请求等待同一次加载的结果。
      */
-    @Cacheable(value = "userCache", key = "#id")
+    @Cacheable(value = "userCache", key = "#id", sync = true)
     @LogExecutionTime
     public Map<String, Object> getUserWithBreakdownProtection(Long id) {
         log.info("缓存击穿防护查询，ID：{}", id);
@@ -259,19 +317,11 @@ public class CacheService {
     }
 
     /**
-     * 模拟本地缓存
-     */
-    private Map<String, Object> getFromLocalCache(Long id) {
-        // 模拟本地缓存查询
-        return null;
-    }
-
-    /**
-     * 模拟分布式缓存
+     * 模拟批量写库：一批用户一次数据库往返
      */
-    private Map<String, Object> getFromDistributedCache(Long id) {
-        // 模拟分布式缓存查询
-        return null;
+    private void persistUsers(Map<Long, Map<String, Object>> users) {
+        simulateDatabaseQuery(200);
+        log.debug("写入用户{}个：{}", users.size(), users.keySet());
     }
 
     /**
@@ -285,18 +335,4 @@ public class CacheService {
         user.put("createdAt", LocalDateTime.now());
         return user;
     }
-
-    /**
-     * 更新本地缓存
-     */
-    private void putToLocalCache(Long id, Map<String, Object> user) {
-        // 模拟本地缓存更新
-    }
-
-    /**
-     * 更新分布式缓存
-     */
-    private void putToDistributedCache(Long id, Map<String, Object> user) {
-        // 模拟分布式缓存更新
-    }
 }
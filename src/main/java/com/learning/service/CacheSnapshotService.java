@@ -0,0 +1,86 @@
+package com.learning.service;
+
+import com.learning.cache.CacheGenerations;
+import com.learning.cache.CompactRedisSerializer;
+import com.learning.cache.LayeredCacheManager;
+import com.learning.cache.LocalCacheSnapshot;
+import com.learning.cache.TwoLevelCache;
+import com.learning.config.AppConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 本地缓存快照服务
+ *
+ * 面试重点知识点：
+ * 1. 定期写快照：进程异常退出时也只丢失一个周期内的热点变化
+ * 2. 停机时写快照：@PreDestroy在缓存管理器销毁之前执行，保存最新的热点条目
+ * 3. 快照记录写入时的缓存代数，重启时代数不一致(停机期间被清空)则丢弃
+ *
+ * @author 学习笔记
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheSnapshotService {
+
+    private final CacheManager cacheManager;
+    private final AppConfig appConfig;
+    private final CacheGenerations cacheGenerations;
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer();
+
+    @Scheduled(fixedDelayString = "#{@appConfig.cache.snapshot.interval.toMillis()}",
+            initialDelayString = "#{@appConfig.cache.snapshot.interval.toMillis()}")
+    public void scheduledSnapshot() {
+        if (appConfig.getCache().getSnapshot().isEnabled()) {
+            writeSnapshots();
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        if (appConfig.getCache().getSnapshot().isEnabled()) {
+            Map<String, Integer> written = writeSnapshots();
+            log.info("停机前写入本地缓存快照：{}", written);
+        }
+    }
+
+    /**
+     * 为每个带本地缓存的缓存写入快照，单个缓存失败不影响其他缓存
+     *
+     * @return 缓存名称 -> 写入的条目数
+     */
+    public Map<String, Integer> writeSnapshots() {
+        Map<String, Integer> written = new LinkedHashMap<>();
+        if (!(cacheManager instanceof LayeredCacheManager layered)) {
+            return written;
+        }
+        AppConfig.Cache.Snapshot snapshot = appConfig.getCache().getSnapshot();
+        Path directory = Path.of(snapshot.getDirectory());
+        for (String cacheName : appConfig.getCache().getLocal().getCacheNames()) {
+            TwoLevelCache twoLevel = layered.unwrap(cacheName, TwoLevelCache.class);
+            if (twoLevel == null) {
+                continue;
+            }
+            try {
+                int count = LocalCacheSnapshot.write(LocalCacheSnapshot.path(directory, cacheName),
+                        twoLevel.getLocalCache().hottestEntries(snapshot.getMaxEntries()),
+                        LocalCacheSnapshot.SCHEMA_VERSION, cacheGenerations.current(cacheName), serializer);
+                written.put(cacheName, count);
+            } catch (IOException | RuntimeException e) {
+                log.warn("缓存[{}]写入快照失败：{}", cacheName, e.getMessage());
+            }
+        }
+        log.debug("写入本地缓存快照：{}", written);
+        return written;
+    }
+}
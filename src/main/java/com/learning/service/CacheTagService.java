@@ -0,0 +1,85 @@
+package com.learning.service;
+
+import com.learning.cache.CacheTagIndex;
+import com.learning.config.AppConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 缓存标签服务
+ *
+ * 面试重点知识点：
+ * 1. 按标签清除：从索引取出条目后经由缓存管理器逐个evict，本地缓存、堆外缓存与其他节点随之失效
+ * 2. 事务提交后清除：提交前清除时，并发读请求可能把未提交前的旧数据重新写回缓存
+ * 3. 降级：索引不可用时清空全部打标签的缓存，宁可多回源也不返回旧数据
+ *
+ * @author 学习笔记
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheTagService {
+
+    private final CacheTagIndex cacheTagIndex;
+    private final CacheManager cacheManager;
+    private final AppConfig appConfig;
+
+    /**
+     * 按标签清除，处于事务中时推迟到提交之后
+     */
+    public void evictTags(Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        List<String> snapshot = List.copyOf(tags);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNow(snapshot);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictNow(snapshot);
+            }
+        });
+    }
+
+    /**
+     * 立即按标签清除
+     *
+     * @return 清除的条目数
+     */
+    public int evictNow(Collection<String> tags) {
+        int evicted = 0;
+        try {
+            for (String tag : tags) {
+                for (CacheTagIndex.TaggedKey taggedKey : cacheTagIndex.drain(tag)) {
+                    Cache cache = cacheManager.getCache(taggedKey.cacheName());
+                    if (cache != null) {
+                        cache.evict(taggedKey.key());
+                        evicted++;
+                    }
+                }
+            }
+            log.debug("按标签清除缓存，标签：{}，条目数：{}", tags, evicted);
+        } catch (RuntimeException e) {
+            List<String> cacheNames = appConfig.getCache().getTags().getCacheNames();
+            log.warn("按标签清除缓存失败，清空缓存{}，标签：{}，原因：{}", cacheNames, tags, e.getMessage());
+            for (String cacheName : cacheNames) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,250 @@
+package com.learning.service;
+
+import com.learning.cache.BatchCache;
+import com.learning.cache.CacheLoaderRegistry;
+import com.learning.config.AppConfig;
+import com.learning.exception.BusinessException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存预热服务
+ * 
+ * 面试重点知识点：
+ * 1. 批量回源：一批key一次IN查询，替代逐个调用带缓存注解的方法
+ * 2. 批量写入：整批数据经装饰链写入各级缓存，Redis层使用Pipeline
+ * 3. 有界并发：Semaphore限制同时执行的批次数，避免压垮数据库
+ * 4. 限流：按每秒key数匀速提交批次
+ * 5. 异步执行 + 进度查询
+ * 
+ * 线程池拒绝任务时，任务标记为FAILED，提交时被拒绝则以503返回给调用方。
+ * 
+ * @author 学习笔记
+ */
+@Service
+@Slf4j
+public class CacheWarmupService {
+
+    private static final int MAX_RETAINED_TASKS = 20;
+
+    private final CacheManager cacheManager;
+    private final CacheLoaderRegistry cacheLoaderRegistry;
+    private final AppConfig.Cache.Warmup config;
+    private final Executor taskExecutor;
+    private final Map<String, WarmupTask> tasks = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WarmupTask> eldest) {
+            return size() > MAX_RETAINED_TASKS;
+        }
+    };
+
+    public CacheWarmupService(CacheManager cacheManager, CacheLoaderRegistry cacheLoaderRegistry,
+                              AppConfig appConfig, @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.cacheManager = cacheManager;
+        this.cacheLoaderRegistry = cacheLoaderRegistry;
+        this.config = appConfig.getCache().getWarmup();
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * 启动时预热配置的热点key
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmupOnStartup() {
+        if (!config.isStartupEnabled()) {
+            return;
+        }
+        config.getStartupKeys().forEach((cacheName, keys) -> {
+            if (!keys.isEmpty()) {
+                warmup(cacheName, keys.stream().map(CacheWarmupService::parseKey).toList());
+            }
+        });
+    }
+
+    /**
+     * 提交预热任务，立即返回任务进度对象
+     * 面试重点：调用方通过任务ID轮询进度
+     */
+    public WarmupTask warmup(String cacheName, List<Object> keys) {
+        if (!cacheLoaderRegistry.hasLoader(cacheName)) {
+            throw new BusinessException("缓存[" + cacheName + "]没有注册加载器，无法预热");
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            throw new BusinessException("缓存不存在：" + cacheName);
+        }
+        WarmupTask task = new WarmupTask(UUID.randomUUID().toString(), cacheName, keys.size());
+        synchronized (tasks) {
+            tasks.put(task.getId(), task);
+        }
+        try {
+            CompletableFuture.runAsync(() -> run(task, cache, keys), taskExecutor);
+        } catch (RejectedExecutionException e) {
+            task.finish(WarmupStatus.FAILED);
+            throw new BusinessException("线程池繁忙，缓存预热任务被拒绝", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        log.info("提交缓存预热任务：{}，缓存：{}，key数量：{}", task.getId(), cacheName, keys.size());
+        return task;
+    }
+
+    public WarmupTask getTask(String taskId) {
+        synchronized (tasks) {
+            return tasks.get(taskId);
+        }
+    }
+
+    public List<WarmupTask> getTasks() {
+        synchronized (tasks) {
+            return new ArrayList<>(tasks.values());
+        }
+    }
+
+    /**
+     * 协调线程：按限流速率提交批次，等待全部批次完成
+     */
+    private void run(WarmupTask task, Cache cache, List<Object> keys) {
+        int batchSize = Math.max(1, config.getBatchSize());
+        int parallelism = Math.max(1, config.getParallelism());
+        Semaphore permits = new Semaphore(parallelism);
+        long startNanos = System.nanoTime();
+        boolean rejected = false;
+        try {
+            for (int from = 0; from < keys.size() && !rejected; from += batchSize) {
+                List<Object> batch = keys.subList(from, Math.min(from + batchSize, keys.size()));
+                pace(startNanos, from);
+                permits.acquire();
+                try {
+                    CompletableFuture.runAsync(() -> {
+                        try {
+                            loadBatch(task, cache, batch);
+                        } finally {
+                            permits.release();
+                        }
+                    }, taskExecutor);
+                } catch (RejectedExecutionException e) {
+                    // 线程池已满：不再提交剩余批次，等待已提交的批次结束
+                    permits.release();
+                    rejected = true;
+                    log.warn("缓存预热批次被线程池拒绝，任务：{}，已提交key数量：{}", task.getId(), from);
+                }
+            }
+            permits.acquire(parallelism);
+            if (rejected) {
+                task.finish(WarmupStatus.FAILED);
+            } else {
+                task.finish(task.getFailed() == 0 ? WarmupStatus.COMPLETED : WarmupStatus.COMPLETED_WITH_ERRORS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.finish(WarmupStatus.FAILED);
+        }
+        log.info("缓存预热任务结束：{}，状态：{}，写入：{}，不存在：{}，失败：{}，耗时：{}ms", task.getId(),
+                task.getStatus(), task.getWritten(), task.getMissing(), task.getFailed(), task.getElapsedMillis());
+    }
+
+    private void loadBatch(WarmupTask task, Cache cache, List<Object> batch) {
+        try {
+            Map<Object, Object> values = cacheLoaderRegistry.loadAll(cache.getName(), batch);
+            BatchCache.putAll(cache, values);
+            task.written.addAndGet(values.size());
+            task.missing.addAndGet(batch.size() - values.size());
+        } catch (RuntimeException e) {
+            task.failed.addAndGet(batch.size());
+            log.warn("缓存预热批次失败，缓存：{}，批次大小：{}，异常：{}", cache.getName(), batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 匀速限流：第n个key最早在 n / 速率 秒后提交
+     */
+    private void pace(long startNanos, int submittedKeys) throws InterruptedException {
+        if (config.getMaxKeysPerSecond() <= 0) {
+            return;
+        }
+        long dueNanos = startNanos + TimeUnit.SECONDS.toNanos(submittedKeys) / config.getMaxKeysPerSecond();
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 配置中的key统一为字符串，纯数字按Long处理(与缓存注解中的#id一致)
+     */
+    private static Object parseKey(String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            return key;
+        }
+    }
+
+    public enum WarmupStatus {
+        RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, FAILED
+    }
+
+    /**
+     * 预热任务进度
+     */
+    @Getter
+    public static class WarmupTask {
+        private final String id;
+        private final String cacheName;
+        private final int total;
+        private final long startTime = System.currentTimeMillis();
+        private volatile long endTime;
+        private volatile WarmupStatus status = WarmupStatus.RUNNING;
+        @Getter(lombok.AccessLevel.NONE)
+        private final AtomicLong written = new AtomicLong();
+        @Getter(lombok.AccessLevel.NONE)
+        private final AtomicLong missing = new AtomicLong();
+        @Getter(lombok.AccessLevel.NONE)
+        private final AtomicLong failed = new AtomicLong();
+
+        WarmupTask(String id, String cacheName, int total) {
+            this.id = id;
+            this.cacheName = cacheName;
+            this.total = total;
+        }
+
+        public long getWritten() { return written.get(); }
+        public long getMissing() { return missing.get(); }
+        public long getFailed() { return failed.get(); }
+
+        public long getProcessed() {
+            return getWritten() + getMissing() + getFailed();
+        }
+
+        public double getProgress() {
+            return total == 0 ? 1.0 : (double) getProcessed() / total;
+        }
+
+        public long getElapsedMillis() {
+            return (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+        }
+
+        private void finish(WarmupStatus finalStatus) {
+            endTime = System.currentTimeMillis();
+            status = finalStatus;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.learning.service;
+
+import com.learning.cache.HotKeyDetector;
+import com.learning.cache.HotKeyTracker;
+import com.learning.cache.LayeredCacheManager;
+import com.learning.cache.TwoLevelCache;
+import com.learning.config.AppConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 热点key服务
+ * 
+ * 面试重点知识点：
+ * 1. 定期衰减：热点统计反映最近一段时间的访问，而不是历史累计
+ * 2. 热点key常驻本地缓存：避免被容量淘汰后反复访问Redis
+ * 
+ * @author 学习笔记
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HotKeyService {
+
+    private final HotKeyDetector hotKeyDetector;
+    private final CacheManager cacheManager;
+    private final AppConfig appConfig;
+
+    /**
+     * 每个衰减周期：先按本周期的统计固定热点key，再衰减计数
+     */
+    @Scheduled(fixedDelayString = "#{@appConfig.cache.hotKey.decayInterval.toMillis()}")
+    public void decayAndPin() {
+        if (!appConfig.getCache().getHotKey().isEnabled()) {
+            return;
+        }
+        if (appConfig.getCache().getHotKey().isAutoPin()) {
+            pinHotKeys();
+        }
+        hotKeyDetector.decay();
+    }
+
+    /**
+     * 将各缓存的热点key设为本地缓存常驻key
+     */
+    public void pinHotKeys() {
+        if (!(cacheManager instanceof LayeredCacheManager layered)) {
+            return;
+        }
+        hotKeyDetector.getTrackers().forEach((cacheName, tracker) -> {
+            TwoLevelCache twoLevel = layered.unwrap(cacheName, TwoLevelCache.class);
+            if (twoLevel == null) {
+                return;
+            }
+            Set<Object> hotKeys = tracker.topKeys().stream().map(HotKeyTracker.HotKey::key).collect(Collectors.toSet());
+            twoLevel.getLocalCache().setPinnedKeys(hotKeys);
+            if (!hotKeys.isEmpty()) {
+                log.debug("缓存[{}]本地常驻热点key：{}", cacheName, hotKeys);
+            }
+        });
+    }
+
+    public Map<String, HotKeyTracker> getTrackers() {
+        return new LinkedHashMap<>(hotKeyDetector.getTrackers());
+    }
+
+    public Set<Object> getPinnedKeys(String cacheName) {
+        if (cacheManager instanceof LayeredCacheManager layered) {
+            TwoLevelCache twoLevel = layered.unwrap(cacheName, TwoLevelCache.class);
+            if (twoLevel != null) {
+                return twoLevel.getLocalCache().getPinnedKeys();
+            }
+        }
+        return Set.of();
+    }
+}
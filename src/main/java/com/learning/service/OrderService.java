@@ -1,14 +1,20 @@
 package com.learning.service;
 
+import com.learning.annotation.BloomFilterGuarded;
+import com.learning.annotation.CacheEvictTags;
+import com.learning.annotation.CacheTags;
 import com.learning.annotation.LogExecutionTime;
+import com.learning.cache.CacheLoaderRegistry;
 import com.learning.entity.Order;
 import com.learning.entity.OrderItem;
 import com.learning.repository.OrderRepository;
 import com.learning.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.stereotype.Service;
@@ -16,7 +22,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 订单服务类
@@ -27,6 +37,8 @@ import java.util.List;
  * 3. 异常处理和事务回滚
  * 4. 缓存策略的应用
  * 5. 业务逻辑的封装
+ * 6. 缓存标签：统计与分页等派生数据缓存在orderQueries中，登记user:{id}、status:{status}、order:{id}标签，
+ *    写操作按标签精确清除依赖它的条目
  * 
  * @author 学习笔记
  */
@@ -35,15 +47,60 @@ import java.util.List;
 @Slf4j
 public class OrderService {
 
+    /**
+     * 全部订单状态的标签，按状态分组的统计依赖所有状态
+     */
+    public static final List<String> STATUS_TAGS = Arrays.stream(Order.OrderStatus.values())
+            .map(status -> "status:" + status)
+            .toList();
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final BloomFilterService bloomFilterService;
+    private final CacheLoaderRegistry cacheLoaderRegistry;
+    private final CacheTagService cacheTagService;
+
+    /**
+     * 注册orders缓存的回源加载器
+     * 面试重点：orders缓存同时以订单ID和订单号为key，按key类型分别回源
+     */
+    @PostConstruct
+    public void registerCacheLoaders() {
+        cacheLoaderRegistry.register("orders", key -> key instanceof String orderNumber
+                ? orderRepository.findByOrderNumber(orderNumber)
+                : orderRepository.selectById((Long) key));
+        cacheLoaderRegistry.registerBatch("orders", keys -> {
+            Map<Object, Object> orders = new LinkedHashMap<>();
+            List<Long> ids = new ArrayList<>();
+            for (Object key : keys) {
+                if (key instanceof String orderNumber) {
+                    Order order = orderRepository.findByOrderNumber(orderNumber);
+                    if (order != null) {
+                        orders.put(orderNumber, order);
+                    }
+                } else {
+                    ids.add((Long) key);
+                }
+            }
+            if (!ids.isEmpty()) {
+                orderRepository.selectBatchIds(ids).forEach(order -> orders.put(order.getId(), order));
+            }
+            return orders;
+        });
+    }
 
     /**
      * 创建订单
      * 面试重点：复杂业务逻辑的事务管理
+     * 
+     * 订单按ID和订单号两种key缓存，创建后精确清除这两个key上可能存在的空结果哨兵。
      */
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "orders", allEntries = true)
+    @Caching(evict = {
+        @CacheEvict(value = "orders", key = "#result.id"),
+        @CacheEvict(value = "orders", key = "#result.orderNumber")
+    })
+    @CacheEvictTags({"'user:' + #result.userId", "'status:' + #result.status"})
     @LogExecutionTime(logArgs = true, logResult = true)
     public Order createOrder(Order order, List<OrderItem> orderItems) {
         log.info("创建订单，订单号：{}", order.getOrderNumber());
@@ -66,6 +123,7 @@ public class OrderService {
         
         // 4. 保存订单
         orderRepository.insert(order);
+        bloomFilterService.addOrder(order.getOrderNumber());
         Order savedOrder = order;
         
         // 5. 保存订单项
@@ -91,8 +149,9 @@ public class OrderService {
 
     /**
      * 根据订单号查询订单
-     * 面试重点：缓存策略的应用
+     * 面试重点：缓存策略的应用、布隆过滤器防缓存穿透
      */
+    @BloomFilterGuarded(value = BloomFilterService.ORDER_FILTER, key = "#orderNumber")
     @Cacheable(value = "orders", key = "#orderNumber")
     @LogExecutionTime(logArgs = true, logResult = true)
     public Order findByOrderNumber(String orderNumber) {
@@ -103,8 +162,12 @@ public class OrderService {
     /**
      * 查询用户订单列表
      * 面试重点：分页查询
+     * 
+     * 每一页登记所属用户与页内订单的标签：用户新建订单时清除该用户的全部分页，订单状态变化时只清除包含它的分页。
      */
     @Transactional(readOnly = true)
+    @Cacheable(value = "orderQueries", key = "'page:' + #userId + ':' + #page.current + ':' + #page.size")
+    @CacheTags(cacheNames = "orderQueries", tags = {"'user:' + #userId", "#result.records.!['order:' + id]"})
     @LogExecutionTime
     public IPage<Order> findByUserId(Long userId, Page<Order> page) {
         log.info("查询用户订单列表，用户ID：{}", userId);
@@ -128,6 +191,7 @@ public class OrderService {
      */
     @Transactional(rollbackFor = Exception.class)
     @CacheEvict(value = "orders", key = "#id")
+    @CacheEvictTags({"'user:' + #result.userId", "'order:' + #id", "'status:' + #status"})
     @LogExecutionTime(logArgs = true, logResult = true)
     public Order updateOrderStatus(Long id, Order.OrderStatus status) {
         log.info("更新订单状态，ID：{}，状态：{}", id, status);
@@ -153,10 +217,11 @@ public class OrderService {
 
     /**
      * 批量更新订单状态
-     * 面试重点：批量操作
+     * 面试重点：批量操作、allEntries清除由缓存代数递增实现
      */
     @Transactional(rollbackFor = Exception.class)
     @CacheEvict(value = "orders", allEntries = true)
+    @CacheEvictTags({"#ids.!['order:' + #this]", "'status:' + #status"})
     @LogExecutionTime(logArgs = true, logResult = true)
     public int batchUpdateOrderStatus(List<Long> ids, Order.OrderStatus status) {
         log.info("批量更新订单状态，订单数量：{}，状态：{}", ids.size(), status);
@@ -173,6 +238,7 @@ public class OrderService {
      */
     @Transactional(rollbackFor = Exception.class)
     @CacheEvict(value = "orders", key = "#id")
+    @CacheEvictTags({"'user:' + #result.userId", "'order:' + #id", "'status:' + #result.status"})
     @LogExecutionTime(logArgs = true, logResult = true)
     public Order cancelOrder(Long id) {
         log.info("取消订单，ID：{}", id);
@@ -200,6 +266,8 @@ public class OrderService {
     /**
      * 删除订单
      * 面试重点：软删除 vs 硬删除
+     * 
+     * 没有返回值，用户ID与状态在方法内查询得到，因此直接调用CacheTagService按标签清除(事务提交后执行)。
      */
     @Transactional(rollbackFor = Exception.class)
     @CacheEvict(value = "orders", key = "#id")
@@ -219,6 +287,8 @@ public class OrderService {
         }
         
         orderRepository.deleteById(id);
+        bloomFilterService.removeOrder(order.getOrderNumber());
+        cacheTagService.evictTags(List.of("user:" + order.getUserId(), "order:" + id, "status:" + order.getStatus()));
         log.info("订单删除成功，ID：{}", id);
     }
 
@@ -227,6 +297,8 @@ public class OrderService {
      * 面试重点：统计查询
      */
     @Transactional(readOnly = true)
+    @Cacheable(value = "orderQueries", key = "'stats:' + #userId", unless = "#result == null")
+    @CacheTags(cacheNames = "orderQueries", tags = "'user:' + #userId")
     @LogExecutionTime
     public Object[] getOrderStatistics(Long userId) {
         log.info("查询订单统计信息，用户ID：{}", userId);
@@ -238,6 +310,8 @@ public class OrderService {
      * 面试重点：聚合查询
      */
     @Transactional(readOnly = true)
+    @Cacheable(value = "orderQueries", key = "'total:' + #userId", unless = "#result == null")
+    @CacheTags(cacheNames = "orderQueries", tags = "'user:' + #userId")
     @LogExecutionTime
     public BigDecimal getTotalOrderAmount(Long userId) {
         log.info("查询订单总金额，用户ID：{}", userId);
@@ -249,6 +323,8 @@ public class OrderService {
      * 面试重点：分组统计查询
      */
     @Transactional(readOnly = true)
+    @Cacheable(value = "orderQueries", key = "'status-stats'")
+    @CacheTags(cacheNames = "orderQueries", tags = "T(com.learning.service.OrderService).STATUS_TAGS")
     @LogExecutionTime
     public List<Object[]> getOrderStatusStatistics() {
         log.info("查询订单状态统计");
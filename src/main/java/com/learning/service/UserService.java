@@ -3,17 +3,30 @@ package com.learning.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.learning.annotation.BloomFilterGuarded;
 import com.learning.annotation.LogExecutionTime;
+import com.learning.cache.BatchCache;
+import com.learning.cache.CacheLoaderRegistry;
 import com.learning.entity.User;
+import com.learning.exception.BusinessException;
 import com.learning.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * 用户服务类
@@ -32,12 +45,33 @@ import java.util.List;
 @Slf4j
 public class UserService {
 
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final UserRepository userRepository;
+    private final BloomFilterService bloomFilterService;
+    private final CacheLoaderRegistry cacheLoaderRegistry;
+    private final CacheManager cacheManager;
+
+    /**
+     * 注册users缓存的回源加载器
+     * 面试重点：提前刷新(Refresh-Ahead)在后台直接回源，不经过缓存注解
+     */
+    @PostConstruct
+    public void registerCacheLoaders() {
+        cacheLoaderRegistry.register("users", key -> userRepository.selectById((Long) key));
+        cacheLoaderRegistry.registerBatch("users", keys -> {
+            Map<Object, Object> users = new LinkedHashMap<>();
+            List<Long> ids = keys.stream().map(Long.class::cast).toList();
+            userRepository.selectBatchIds(ids).forEach(user -> users.put(user.getId(), user));
+            return users;
+        });
+    }
 
     /**
      * 根据ID查询用户
-     * 面试重点：缓存注解的使用和原理
+     * 面试重点：缓存注解的使用和原理、布隆过滤器防缓存穿透
      */
+    @BloomFilterGuarded(value = BloomFilterService.USER_FILTER, key = "#id")
     @Cacheable(value = "users", key = "#id")
     @LogExecutionTime(logArgs = true, logResult = true)
     public User findById(Long id) {
@@ -45,6 +79,64 @@ public class UserService {
         return userRepository.selectById(id);
     }
 
+    /**
+     * 批量查询用户
+     * 面试重点：MGET批量读缓存 + 一次IN查询回源 + Pipeline批量回写，N次往返变为常数次
+     * 
+     * 结果按传入ID的顺序返回，不存在的ID被忽略；不存在的ID同样回写缓存(空结果哨兵)。
+     * 缓存读写失败时按未命中处理，与CacheErrorHandler的行为一致。
+     */
+    @LogExecutionTime
+    public List<User> findByIds(Collection<Long> ids) {
+        List<Long> requestedIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (requestedIds.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("批量查询用户数量不能超过" + MAX_BATCH_SIZE);
+        }
+        List<Long> distinctIds = requestedIds.stream()
+                .filter(id -> bloomFilterService.mightContain(BloomFilterService.USER_FILTER, id))
+                .toList();
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+
+        Cache cache = cacheManager.getCache("users");
+        Map<Object, Cache.ValueWrapper> cached = Map.of();
+        try {
+            cached = BatchCache.getAll(cache, distinctIds);
+        } catch (RuntimeException e) {
+            log.warn("批量读取用户缓存失败，全部回源：{}", e.getMessage());
+        }
+
+        Map<Long, User> loaded = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            if (!cached.containsKey(id)) {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            userRepository.selectBatchIds(missingIds).forEach(user -> loaded.put(user.getId(), user));
+            Map<Object, Object> writeBack = new LinkedHashMap<>();
+            missingIds.forEach(id -> writeBack.put(id, loaded.get(id)));
+            try {
+                BatchCache.putAll(cache, writeBack);
+            } catch (RuntimeException e) {
+                log.warn("批量回写用户缓存失败：{}", e.getMessage());
+            }
+        }
+        log.info("批量查询用户：{}个，缓存命中{}个，回源{}个", distinctIds.size(), cached.size(), missingIds.size());
+
+        List<User> users = new ArrayList<>(distinctIds.size());
+        for (Long id : distinctIds) {
+            Cache.ValueWrapper wrapper = cached.get(id);
+            User user = wrapper != null ? (User) wrapper.get() : loaded.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
     /**
      * 查询所有用户
      * 面试重点：事务只读优化
@@ -69,14 +161,15 @@ public class UserService {
 
     /**
      * 保存用户
-     * 面试重点：事务回滚规则、缓存清除
+     * 面试重点：事务回滚规则、精确清除新用户ID上可能存在的空结果哨兵
      */
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "users", allEntries = true)
+    @CacheEvict(value = "users", key = "#result.id")
     @LogExecutionTime(logArgs = true, logResult = true)
     public User save(User user) {
         log.info("保存用户: {}", user);
         userRepository.insert(user);
+        bloomFilterService.addUser(user.getId());
         return user;
     }
 
@@ -102,7 +195,9 @@ public class UserService {
     @LogExecutionTime(logArgs = true)
     public void deleteById(Long id) {
         log.info("删除用户: {}", id);
-        userRepository.deleteById(id);
+        if (userRepository.deleteById(id) > 0) {
+            bloomFilterService.removeUser(id);
+        }
     }
 
     /**
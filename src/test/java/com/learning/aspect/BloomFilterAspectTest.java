@@ -0,0 +1,122 @@
+package com.learning.aspect;
+
+import com.learning.annotation.BloomFilterGuarded;
+import com.learning.service.BloomFilterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * 布隆过滤器切面测试
+ *
+ * 面试重点知识点：
+ * 1. 通过Spring代理调用，验证切面与缓存拦截器在同一条拦截链中的顺序
+ * 2. 被拦截的key不执行方法，也不写入缓存
+ *
+ * @author 学习笔记
+ */
+@SpringJUnitConfig(BloomFilterAspectTest.Config.class)
+class BloomFilterAspectTest {
+
+    @Autowired
+    private GuardedService guardedService;
+
+    @Autowired
+    private BloomFilterService bloomFilterService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        reset(bloomFilterService);
+        guardedService.resetCalls();
+        cacheManager.getCache("users").clear();
+    }
+
+    /**
+     * 过滤器判定不存在：返回null，方法不执行，缓存中没有条目
+     */
+    @Test
+    void testRejectedKeySkipsCacheAndMethod() {
+        when(bloomFilterService.mightContain(BloomFilterService.USER_FILTER, 2L)).thenReturn(false);
+
+        assertThat(guardedService.findById(2L)).isNull();
+        assertThat(guardedService.getCalls()).isZero();
+        assertThat(cacheManager.getCache("users").get(2L)).isNull();
+    }
+
+    /**
+     * 过滤器判定可能存在：方法执行一次，结果被缓存
+     */
+    @Test
+    void testAllowedKeyIsLoadedAndCached() {
+        when(bloomFilterService.mightContain(BloomFilterService.USER_FILTER, 1L)).thenReturn(true);
+
+        assertThat(guardedService.findById(1L)).isEqualTo("user1");
+        assertThat(guardedService.findById(1L)).isEqualTo("user1");
+        assertThat(guardedService.getCalls()).isEqualTo(1);
+    }
+
+    @Configuration
+    @EnableCaching
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    static class Config {
+
+        @Bean
+        BloomFilterService bloomFilterService() {
+            return mock(BloomFilterService.class);
+        }
+
+        @Bean
+        BloomFilterAspect bloomFilterAspect(BloomFilterService bloomFilterService) {
+            return new BloomFilterAspect(bloomFilterService);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("users");
+        }
+
+        @Bean
+        GuardedService guardedService() {
+            return new GuardedService();
+        }
+    }
+
+    static class GuardedService {
+
+        // 通过方法访问：CGLIB代理对象上的字段不是目标对象的字段
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @BloomFilterGuarded(value = BloomFilterService.USER_FILTER, key = "#id")
+        @Cacheable(value = "users", key = "#id")
+        public String findById(Long id) {
+            calls.incrementAndGet();
+            return "user" + id;
+        }
+
+        public int getCalls() {
+            return calls.get();
+        }
+
+        public void resetCalls() {
+            calls.set(0);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.learning.aspect;
+
+import com.learning.annotation.CacheEvictTags;
+import com.learning.annotation.CacheTags;
+import com.learning.cache.CacheTagIndex;
+import com.learning.cache.TaggingCache;
+import com.learning.service.CacheTagService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 缓存标签切面测试
+ *
+ * 面试重点知识点：
+ * 1. 通过Spring代理调用，验证标签绑定包住缓存拦截器的写入
+ * 2. 方法返回后绑定被清除，后续写入不再登记标签
+ * 3. 写操作返回后按标签清除，表达式可以引用#result
+ *
+ * @author 学习笔记
+ */
+@SpringJUnitConfig(CacheTagAspectTest.Config.class)
+class CacheTagAspectTest {
+
+    @Autowired
+    private TaggedService taggedService;
+
+    @Autowired
+    private CacheTagIndex cacheTagIndex;
+
+    @Autowired
+    private CacheTagService cacheTagService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        reset(cacheTagIndex, cacheTagService);
+        taggedService.resetCalls();
+        cacheManager.getCache("orderQueries").clear();
+    }
+
+    /**
+     * 缓存写入时登记标签，再次调用命中缓存；调用结束后的写入不再登记
+     */
+    @Test
+    void testCacheablePutRegistersTags() {
+        assertThat(taggedService.countOrders(1L)).isEqualTo(42L);
+        assertThat(taggedService.countOrders(1L)).isEqualTo(42L);
+
+        assertThat(taggedService.getCalls()).isEqualTo(1);
+        verify(cacheTagIndex).register(eq("orderQueries"), eq("count:1"), eq(Set.of("user:1", "order:42")));
+
+        cacheManager.getCache("orderQueries").put("untagged", 1L);
+        verify(cacheTagIndex, never()).register(any(), eq("untagged"), anyCollection());
+    }
+
+    /**
+     * 方法返回后按标签清除
+     */
+    @Test
+    void testEvictTagsAfterReturn() {
+        assertThat(taggedService.updateUser(7L)).isEqualTo(7L);
+
+        verify(cacheTagService).evictTags(Set.of("user:7"));
+    }
+
+    @Configuration
+    @EnableCaching
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    static class Config {
+
+        @Bean
+        CacheTagIndex cacheTagIndex() {
+            return mock(CacheTagIndex.class);
+        }
+
+        @Bean
+        CacheTagService cacheTagService() {
+            return mock(CacheTagService.class);
+        }
+
+        @Bean
+        CacheTagAspect cacheTagAspect(CacheTagService cacheTagService) {
+            return new CacheTagAspect(cacheTagService);
+        }
+
+        @Bean
+        CacheManager cacheManager(CacheTagIndex cacheTagIndex) {
+            SimpleCacheManager cacheManager = new SimpleCacheManager();
+            cacheManager.setCaches(List.of(new TaggingCache(new ConcurrentMapCache("orderQueries"), cacheTagIndex)));
+            return cacheManager;
+        }
+
+        @Bean
+        TaggedService taggedService() {
+            return new TaggedService();
+        }
+    }
+
+    static class TaggedService {
+
+        // 通过方法访问：CGLIB代理对象上的字段不是目标对象的字段
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @CacheTags(cacheNames = "orderQueries", tags = {"'user:' + #userId", "'order:' + #result"})
+        @Cacheable(value = "orderQueries", key = "'count:' + #userId")
+        public Long countOrders(Long userId) {
+            calls.incrementAndGet();
+            return 42L;
+        }
+
+        @CacheEvictTags("'user:' + #result")
+        public Long updateUser(Long userId) {
+            return userId;
+        }
+
+        public int getCalls() {
+            return calls.get();
+        }
+
+        public void resetCalls() {
+            calls.set(0);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.learning.aspect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 请求调用树测试
+ *
+ * 面试重点知识点：
+ * 1. 嵌套调用按先序记录，父节点下标还原树形结构
+ * 2. 自身耗时 = 总耗时 - 子节点总耗时
+ * 3. 重置后同一棵树被下一个请求复用
+ *
+ * @author 学习笔记
+ */
+class CallTreeTest {
+
+    private static final long MS = 1_000_000;
+
+    /**
+     * Controller(100ms) → Service(90ms) → 两次Repository(30ms、50ms)
+     */
+    @Test
+    void testSelfTimeExcludesChildren() {
+        CallTree tree = new CallTree(16);
+        int controller = tree.enter("CONTROLLER", "OrderController.createOrder(..)", 0);
+        int service = tree.enter("SERVICE", "OrderService.createOrder(..)", 5 * MS);
+        int select = tree.enter("REPOSITORY", "UserRepository.selectById(..)", 10 * MS);
+        assertThat(tree.exit(select, 40 * MS, true)).isFalse();
+        int insert = tree.enter("REPOSITORY", "OrderRepository.insert(..)", 40 * MS);
+        assertThat(tree.exit(insert, 90 * MS, false)).isFalse();
+        assertThat(tree.exit(service, 95 * MS, false)).isFalse();
+        assertThat(tree.exit(controller, 100 * MS, false)).isTrue();
+
+        CallTree.Trace trace = tree.toTrace();
+        List<CallTree.Span> spans = trace.spans();
+        assertThat(trace.totalNanos()).isEqualTo(100 * MS);
+        assertThat(spans).extracting(CallTree.Span::parent).containsExactly(-1, 0, 1, 1);
+        assertThat(spans).extracting(CallTree.Span::selfNanos).containsExactly(10 * MS, 10 * MS, 30 * MS, 50 * MS);
+        assertThat(spans.get(3).startOffsetNanos()).isEqualTo(40 * MS);
+        assertThat(spans.get(3).success()).isFalse();
+        assertThat(spans.get(2).success()).isTrue();
+    }
+
+    /**
+     * 超过节点上限的调用只计数，其子调用也不记录；重置后从空树开始
+     */
+    @Test
+    void testSpanLimitAndReuse() {
+        CallTree tree = new CallTree(2);
+        int root = tree.enter("CONTROLLER", "UserController.list(..)", 0);
+        int service = tree.enter("SERVICE", "UserService.list(..)", MS);
+        int dropped = tree.enter("REPOSITORY", "UserRepository.selectList(..)", 2 * MS);
+        int nested = tree.enter("REPOSITORY", "UserRepository.count(..)", 3 * MS);
+        tree.exit(nested, 4 * MS, true);
+        tree.exit(dropped, 5 * MS, true);
+        tree.exit(service, 6 * MS, true);
+        assertThat(tree.exit(root, 7 * MS, true)).isTrue();
+
+        CallTree.Trace trace = tree.toTrace();
+        assertThat(trace.spans()).hasSize(2);
+        assertThat(trace.droppedSpans()).isEqualTo(2);
+        assertThat(trace.spans().get(1).selfNanos()).isEqualTo(5 * MS);
+
+        tree.reset();
+        int next = tree.enter("SERVICE", "UserService.getUserById(..)", 10 * MS);
+        assertThat(tree.exit(next, 11 * MS, true)).isTrue();
+        assertThat(tree.toTrace().spans()).hasSize(1);
+        assertThat(tree.toTrace().droppedSpans()).isZero();
+    }
+}
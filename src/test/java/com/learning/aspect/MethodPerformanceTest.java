@@ -0,0 +1,67 @@
+package com.learning.aspect;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 方法性能统计测试
+ * 
+ * 面试重点知识点：
+ * 1. 纳秒计时下亚毫秒调用的统计
+ * 2. 长尾百分位与平均值的差异
+ * 3. 采样记录按权重还原调用次数与百分位
+ * 
+ * @author 学习笔记
+ */
+class MethodPerformanceTest {
+
+    /**
+     * 990次0.2ms与10次50ms的调用：平均值被拉高不多，p99/p999能看到长尾
+     */
+    @Test
+    void testSubMillisecondCallsAndTailPercentiles() {
+        PerformanceAspect.MethodPerformance performance =
+                new PerformanceAspect.MethodPerformance("UserRepository.selectById(..)", "REPOSITORY");
+        for (int i = 0; i < 990; i++) {
+            performance.recordExecution(200_000, 0, true);
+        }
+        for (int i = 0; i < 10; i++) {
+            performance.recordExecution(50_000_000, 0, false);
+        }
+
+        assertThat(performance.getCallCount()).isEqualTo(1000);
+        assertThat(performance.getFailureCount()).isEqualTo(10);
+        assertThat(performance.getMinExecutionTime()).isEqualTo(0.2);
+        assertThat(performance.getP50ExecutionTime()).isCloseTo(0.2, within(0.2 * 0.02));
+        assertThat(performance.getP99ExecutionTime()).isCloseTo(0.2, within(0.2 * 0.02));
+        assertThat(performance.getP999ExecutionTime()).isCloseTo(50, within(50 * 0.02));
+        assertThat(performance.getMaxExecutionTime()).isEqualTo(50);
+        assertThat(performance.getAverageExecutionTime()).isCloseTo(0.698, within(0.001));
+    }
+
+    /**
+     * 每10次采样一次的快速调用按10次计入，始终记录的慢调用异常按1次计入
+     */
+    @Test
+    void testWeightedRecordsRestoreCounts() {
+        PerformanceAspect.MethodPerformance performance =
+                new PerformanceAspect.MethodPerformance("UserRepository.selectById(..)", "REPOSITORY");
+        for (int i = 0; i < 99; i++) {
+            performance.recordExecution(200_000, 1024, true, 10);
+        }
+        for (int i = 0; i < 10; i++) {
+            performance.recordExecution(50_000_000, PerformanceAspect.MethodPerformance.UNKNOWN_MEMORY, false, 1);
+        }
+
+        assertThat(performance.getCallCount()).isEqualTo(1000);
+        assertThat(performance.getSampledCount()).isEqualTo(109);
+        assertThat(performance.getFailureCount()).isEqualTo(10);
+        assertThat(performance.getSuccessRate()).isEqualTo(99.0);
+        assertThat(performance.getP99ExecutionTime()).isCloseTo(0.2, within(0.2 * 0.02));
+        assertThat(performance.getP999ExecutionTime()).isCloseTo(50, within(50 * 0.02));
+        assertThat(performance.getAverageExecutionTime()).isCloseTo(0.698, within(0.001));
+        assertThat(performance.getAverageMemoryUsed()).isEqualTo(1024);
+    }
+}
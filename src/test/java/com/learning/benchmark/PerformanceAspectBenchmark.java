@@ -0,0 +1,182 @@
+package com.learning.benchmark;
+
+import com.learning.aspect.PerformanceAspect;
+import com.learning.config.AppConfig;
+import com.learning.metrics.LatencyHistogram;
+import com.learning.metrics.RollingMetrics;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
+import org.springframework.aop.framework.ReflectiveMethodInvocation;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 性能监控切面开销基准测试
+ *
+ * 面试重点知识点：
+ * 1. 基线只包含Spring AOP创建连接点与反射调用目标方法的成本
+ * 2. 旧实现每次调用拼接key、两次读取Runtime内存、在共享AtomicLong上CAS
+ * 3. 新实现按Method缓存统计对象，计数分段累加，内存读取当前线程的分配计数
+ * 4. 开启采样后，未采样的调用只计时并判断是否为慢调用
+ *
+ * 多线程运行(@Threads)才能体现共享计数器上的竞争。
+ * 运行方式：mvn test-compile 后执行main方法，切面开销 = 各方法耗时 - baseline
+ *
+ * @author 学习笔记
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class PerformanceAspectBenchmark {
+
+    private final SampleService target = new SampleService();
+    private final PerformanceAspect performanceAspect = new PerformanceAspect(new AppConfig());
+    private final PerformanceAspect sampledAspect = new PerformanceAspect(samplingConfig());
+    private final LegacyPerformanceMonitor legacyMonitor = new LegacyPerformanceMonitor();
+
+    private Method method;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        method = SampleService.class.getMethod("findById", Long.class);
+    }
+
+    @Benchmark
+    public Object baseline() throws Throwable {
+        return joinPoint().proceed();
+    }
+
+    @Benchmark
+    public Object legacyAdvice() throws Throwable {
+        return legacyMonitor.monitorPerformance(joinPoint(), "SERVICE");
+    }
+
+    @Benchmark
+    public Object currentAdvice() throws Throwable {
+        return performanceAspect.monitorServicePerformance(joinPoint());
+    }
+
+    @Benchmark
+    public Object sampledAdvice() throws Throwable {
+        return sampledAspect.monitorServicePerformance(joinPoint());
+    }
+
+    /**
+     * 开启采样：服务层固定10%，高QPS时自适应降低
+     */
+    private static AppConfig samplingConfig() {
+        AppConfig appConfig = new AppConfig();
+        AppConfig.Performance.Sampling sampling = appConfig.getPerformance().getSampling();
+        sampling.setEnabled(true);
+        sampling.getLayerRates().put("service", 0.1);
+        return appConfig;
+    }
+
+    /**
+     * 与Spring代理相同，每次调用创建新的方法调用与连接点对象
+     */
+    private ProceedingJoinPoint joinPoint() {
+        // 构造方法为protected，与代理一样通过子类创建
+        ReflectiveMethodInvocation invocation = new ReflectiveMethodInvocation(
+                target, target, method, new Object[]{42L}, SampleService.class, Collections.emptyList()) {
+        };
+        return new MethodInvocationProceedingJoinPoint(invocation);
+    }
+
+    public static class SampleService {
+        public Long findById(Long id) {
+            return id;
+        }
+    }
+
+    /**
+     * 旧版记录路径的副本(不含日志)，用于对比
+     */
+    static class LegacyPerformanceMonitor {
+
+        private final ConcurrentHashMap<String, LegacyPerformance> performanceMap = new ConcurrentHashMap<>();
+        private final AtomicLong totalCalls = new AtomicLong();
+
+        Object monitorPerformance(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+            String methodName = joinPoint.getSignature().toShortString();
+            String key = layer + ":" + methodName;
+            long startTime = System.nanoTime();
+            long startMemory = usedMemory();
+            try {
+                Object result = joinPoint.proceed();
+                record(key, startTime, startMemory, true);
+                return result;
+            } catch (Throwable throwable) {
+                record(key, startTime, startMemory, false);
+                throw throwable;
+            }
+        }
+
+        private void record(String key, long startTime, long startMemory, boolean success) {
+            long executionNanos = System.nanoTime() - startTime;
+            long memoryUsed = usedMemory() - startMemory;
+            performanceMap.computeIfAbsent(key, k -> new LegacyPerformance())
+                    .record(executionNanos, memoryUsed, success);
+            totalCalls.incrementAndGet();
+        }
+
+        private static long usedMemory() {
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+
+    static class LegacyPerformance {
+
+        private final AtomicLong callCount = new AtomicLong();
+        private final AtomicLong successCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong totalMemoryUsed = new AtomicLong();
+        private final AtomicLong minExecutionNanos = new AtomicLong(Long.MAX_VALUE);
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final RollingMetrics rolling = new RollingMetrics(Duration.ofSeconds(15), 60);
+
+        void record(long executionNanos, long memoryUsed, boolean success) {
+            callCount.incrementAndGet();
+            if (success) {
+                successCount.incrementAndGet();
+            } else {
+                failureCount.incrementAndGet();
+            }
+            latency.record(executionNanos);
+            rolling.record(executionNanos, success);
+            totalMemoryUsed.addAndGet(memoryUsed);
+            long currentMin = minExecutionNanos.get();
+            while (executionNanos < currentMin && !minExecutionNanos.compareAndSet(currentMin, executionNanos)) {
+                currentMin = minExecutionNanos.get();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PerformanceAspectBenchmark.class.getSimpleName()).build()).run();
+    }
+}
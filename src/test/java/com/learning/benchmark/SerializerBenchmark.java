@@ -0,0 +1,175 @@
+package com.learning.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.learning.cache.CompactRedisSerializer;
+import com.learning.entity.Order;
+import com.learning.entity.OrderItem;
+import com.learning.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存值序列化基准测试
+ *
+ * 面试重点知识点：
+ * 1. JDK序列化只能处理Serializable对象，实体需先转成HashMap，体积最大
+ * 2. JSON + 类型信息可读性好，但字段名与类型名重复写入每条数据
+ * 3. 紧凑二进制按固定字段顺序编码，体积与编解码耗时都最小
+ *
+ * 运行方式：mvn test-compile 后执行main方法，启动时打印各格式的编码体积
+ *
+ * @author 学习笔记
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    private final RedisSerializer<Object> jdk = new JdkSerializationRedisSerializer();
+    private final RedisSerializer<Object> jackson = jacksonSerializer();
+    private final RedisSerializer<Object> compact = new CompactRedisSerializer();
+
+    private Map<String, Object> orderAsMap;
+    private Order order;
+    private byte[] jdkBytes;
+    private byte[] jacksonBytes;
+    private byte[] compactBytes;
+
+    @Setup
+    public void setUp() {
+        order = sampleOrder();
+        orderAsMap = toMap(order);
+        jdkBytes = jdk.serialize(orderAsMap);
+        jacksonBytes = jackson.serialize(order);
+        compactBytes = compact.serialize(order);
+    }
+
+    @Benchmark
+    public byte[] jdkSerialize() {
+        return jdk.serialize(orderAsMap);
+    }
+
+    @Benchmark
+    public Object jdkDeserialize() {
+        return jdk.deserialize(jdkBytes);
+    }
+
+    @Benchmark
+    public byte[] jacksonSerialize() {
+        return jackson.serialize(order);
+    }
+
+    @Benchmark
+    public Object jacksonDeserialize() {
+        return jackson.deserialize(jacksonBytes);
+    }
+
+    @Benchmark
+    public byte[] compactSerialize() {
+        return compact.serialize(order);
+    }
+
+    @Benchmark
+    public Object compactDeserialize() {
+        return compact.deserialize(compactBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        SerializerBenchmark sizes = new SerializerBenchmark();
+        sizes.setUp();
+        System.out.printf("payload bytes: jdk(HashMap)=%d, jackson=%d, compact=%d%n",
+                sizes.jdkBytes.length, sizes.jacksonBytes.length, sizes.compactBytes.length);
+        new Runner(new OptionsBuilder().include(SerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static RedisSerializer<Object> jacksonSerializer() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        mapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        return new GenericJackson2JsonRedisSerializer(mapper);
+    }
+
+    private static Order sampleOrder() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<OrderItem> items = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            OrderItem item = new OrderItem();
+            item.setId(i);
+            item.setOrderId(1001L);
+            item.setProductId(5000L + i);
+            item.setProductName("商品-" + i);
+            item.setQuantity((int) i);
+            item.setPrice(new BigDecimal("59.90"));
+            item.setTotalPrice(new BigDecimal("59.90").multiply(BigDecimal.valueOf(i)));
+            item.setCreatedAt(now);
+            item.setUpdatedAt(now);
+            items.add(item);
+        }
+        Order order = new Order();
+        order.setId(1001L);
+        order.setOrderNumber("ORD-20240101-1001");
+        order.setUserId(42L);
+        order.setTotalAmount(new BigDecimal("359.40"));
+        order.setStatus(Order.OrderStatus.CONFIRMED);
+        order.setRemark("请尽快发货");
+        order.setCreatedAt(now);
+        order.setUpdatedAt(now);
+        order.setOrderItems(items);
+        return order;
+    }
+
+    /**
+     * 改造前的做法：实体不可序列化时先转成HashMap再交给JDK序列化
+     */
+    private static Map<String, Object> toMap(Order order) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", order.getId());
+        map.put("orderNumber", order.getOrderNumber());
+        map.put("userId", order.getUserId());
+        map.put("totalAmount", order.getTotalAmount());
+        map.put("status", order.getStatus().name());
+        map.put("remark", order.getRemark());
+        map.put("createdAt", order.getCreatedAt());
+        map.put("updatedAt", order.getUpdatedAt());
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (OrderItem item : order.getOrderItems()) {
+            Map<String, Object> itemMap = new HashMap<>();
+            itemMap.put("id", item.getId());
+            itemMap.put("productId", item.getProductId());
+            itemMap.put("productName", item.getProductName());
+            itemMap.put("quantity", item.getQuantity());
+            itemMap.put("price", item.getPrice());
+            itemMap.put("totalPrice", item.getTotalPrice());
+            itemMap.put("createdAt", item.getCreatedAt());
+            items.add(itemMap);
+        }
+        map.put("orderItems", items);
+        return map;
+    }
+}
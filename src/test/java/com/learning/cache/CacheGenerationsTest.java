@@ -0,0 +1,69 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 缓存代数测试
+ * 
+ * 面试重点知识点：
+ * 1. Mockito模拟Redis操作
+ * 2. 版本化命名空间的本地缓存与刷新间隔
+ * 
+ * @author 学习笔记
+ */
+class CacheGenerationsTest {
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> ops = mock(ValueOperations.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final AtomicLong ticker = new AtomicLong();
+
+    /**
+     * 代数在刷新间隔内只读取一次Redis，清空缓存后立即前进
+     */
+    @Test
+    void testCurrentIsCachedAndClearBumpsGeneration() {
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.get("cache:generation:users")).thenReturn("100");
+        when(ops.increment("cache:generation:users")).thenReturn(101L);
+        CacheGenerations generations = new CacheGenerations(redisTemplate, Duration.ofSeconds(1), ticker::get);
+
+        assertThat(generations.current("users")).isEqualTo(100);
+        assertThat(generations.current("users")).isEqualTo(100);
+        verify(ops, times(1)).get("cache:generation:users");
+
+        GenerationalCache cache = new GenerationalCache(new ConcurrentMapCache("users"), generations);
+        cache.clear();
+        assertThat(cache.getGeneration()).isEqualTo(101);
+
+        ticker.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertThat(generations.current("users")).isEqualTo(101);
+    }
+
+    /**
+     * Redis不可用时继续使用本地代数
+     */
+    @Test
+    void testRedisFailureKeepsLocalGeneration() {
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        CacheGenerations generations = new CacheGenerations(redisTemplate, Duration.ofSeconds(1), ticker::get);
+        generations.advance("orders", 7);
+
+        assertThat(generations.current("orders")).isEqualTo(7);
+    }
+}
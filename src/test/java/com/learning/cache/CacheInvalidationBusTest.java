@@ -0,0 +1,82 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 缓存失效广播测试
+ * 
+ * 面试重点知识点：
+ * 1. 进程内回环通道模拟多节点
+ * 2. 批量合并与去重的验证
+ * 
+ * @author 学习笔记
+ */
+class CacheInvalidationBusTest {
+
+    private static final Duration MANUAL_FLUSH = Duration.ofHours(1);
+
+    /**
+     * 一个节点更新后，另一个节点的本地副本被清除，下次读取回到共享的L2
+     */
+    @Test
+    void testUpdateOnOneNodeEvictsLocalCopyOnOther() {
+        List<InMemoryCacheInvalidationBus> channel = new CopyOnWriteArrayList<>();
+        ConcurrentMapCache shared = new ConcurrentMapCache("users");
+        try (InMemoryCacheInvalidationBus busA = new InMemoryCacheInvalidationBus(MANUAL_FLUSH, channel);
+             InMemoryCacheInvalidationBus busB = new InMemoryCacheInvalidationBus(MANUAL_FLUSH, channel)) {
+            TwoLevelCache localA = new TwoLevelCache(shared, new LocalCache("users", 10, Duration.ofMinutes(1)));
+            TwoLevelCache localB = new TwoLevelCache(shared, new LocalCache("users", 10, Duration.ofMinutes(1)));
+            InvalidationBroadcastingCache nodeA = new InvalidationBroadcastingCache(localA, busA);
+            busB.subscribe(batch -> batch.evicted().getOrDefault("users", Set.of())
+                    .forEach(localB.getLocalCache()::evict));
+
+            nodeA.put(1L, "alice");
+            assertThat(localB.get(1L).get()).isEqualTo("alice");
+
+            nodeA.put(1L, "alice-v2");
+            assertThat(localB.get(1L).get()).isEqualTo("alice");
+
+            busA.flush();
+            assertThat(localB.get(1L).get()).isEqualTo("alice-v2");
+        }
+    }
+
+    /**
+     * 同一周期内的重复失效合并，清空缓存覆盖该缓存的单key失效，自身消息不回调
+     */
+    @Test
+    void testBatchIsDedupedAndSelfMessagesIgnored() {
+        List<InMemoryCacheInvalidationBus> channel = new CopyOnWriteArrayList<>();
+        List<InvalidationBatch> receivedA = new ArrayList<>();
+        List<InvalidationBatch> receivedB = new ArrayList<>();
+        try (InMemoryCacheInvalidationBus busA = new InMemoryCacheInvalidationBus(MANUAL_FLUSH, channel);
+             InMemoryCacheInvalidationBus busB = new InMemoryCacheInvalidationBus(MANUAL_FLUSH, channel)) {
+            busA.subscribe(receivedA::add);
+            busB.subscribe(receivedB::add);
+
+            for (int i = 0; i < 100; i++) {
+                busA.publishEvict("users", 1L);
+                busA.publishEvict("orders", "ORD-" + (i % 3));
+            }
+            busA.publishClear("users", 42L);
+            busA.flush();
+            busA.flush();
+
+            assertThat(receivedA).isEmpty();
+            assertThat(receivedB).hasSize(1);
+            InvalidationBatch batch = receivedB.get(0);
+            assertThat(batch.evicted()).containsOnlyKeys("orders");
+            assertThat(batch.evicted().get("orders")).hasSize(3);
+            assertThat(batch.cleared()).containsEntry("users", 42L);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 缓存熔断降级测试
+ * 
+ * 面试重点知识点：
+ * 1. 熔断器状态流转：CLOSED -> OPEN -> HALF_OPEN -> CLOSED
+ * 2. 熔断期间的降级读写与恢复后的补偿清除
+ * 
+ * @author 学习笔记
+ */
+class CircuitBreakerCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final AtomicBoolean redisDown = new AtomicBoolean();
+    private final AtomicBoolean redisError = new AtomicBoolean();
+    private final AtomicInteger redisCalls = new AtomicInteger();
+
+    private final ConcurrentMapCache redis = new ConcurrentMapCache("users") {
+        @Override
+        public ValueWrapper get(Object key) {
+            check();
+            return super.get(key);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            check();
+            super.put(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            check();
+            super.evict(key);
+        }
+
+        private void check() {
+            redisCalls.incrementAndGet();
+            if (redisError.get()) {
+                throw new OutOfMemoryError("Java heap space");
+            }
+            if (redisDown.get()) {
+                throw new RedisConnectionFailureException("Unable to connect to Redis");
+            }
+        }
+    };
+
+    /**
+     * 失败率达到阈值后熔断，熔断期间不访问Redis；半开试探成功后恢复并补偿清除
+     */
+    @Test
+    void testTripServeLocallyAndRecover() {
+        CacheCircuitBreaker breaker = new CacheCircuitBreaker(10, 4, 0.5, Duration.ofSeconds(1), 1.0,
+                Duration.ofSeconds(10), 2, ticker::get);
+        CircuitBreakerCache cache = new CircuitBreakerCache(redis, breaker,
+                new LocalCache("users", 100, Duration.ofMinutes(1)), 100);
+        cache.put(1L, "alice");
+
+        redisDown.set(true);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> cache.get(1L)).isInstanceOf(RedisConnectionFailureException.class);
+        }
+        // 1次成功 + 3次失败，失败率0.75
+        assertThat(breaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+
+        int callsBeforeOpen = redisCalls.get();
+        assertThat(cache.get(2L)).isNull();
+        cache.put(2L, "bob");
+        assertThat(cache.get(2L).get()).isEqualTo("bob");
+        cache.evict(1L);
+        assertThat(redisCalls.get()).isEqualTo(callsBeforeOpen);
+        assertThat(cache.getPendingEvictionCount()).isEqualTo(2);
+
+        redisDown.set(false);
+        ticker.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(cache.get(3L)).isNull();
+        assertThat(breaker.getState()).isEqualTo(CacheCircuitBreaker.State.HALF_OPEN);
+        assertThat(cache.get(3L)).isNull();
+
+        assertThat(breaker.getState()).isEqualTo(CacheCircuitBreaker.State.CLOSED);
+        assertThat(redis.get(1L)).isNull();
+        assertThat(cache.getPendingEvictionCount()).isZero();
+        assertThat(cache.getFallback().size()).isZero();
+    }
+
+    /**
+     * 半开试探失败则重新打开
+     */
+    @Test
+    void testFailedTrialReopens() {
+        CacheCircuitBreaker breaker = new CacheCircuitBreaker(10, 2, 0.5, Duration.ofSeconds(1), 1.0,
+                Duration.ofSeconds(10), 1, ticker::get);
+        CircuitBreakerCache cache = new CircuitBreakerCache(redis, breaker,
+                new LocalCache("users", 100, Duration.ofMinutes(1)), 100);
+        redisDown.set(true);
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> cache.get(1L)).isInstanceOf(RedisConnectionFailureException.class);
+        }
+
+        ticker.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThatThrownBy(() -> cache.get(1L)).isInstanceOf(RedisConnectionFailureException.class);
+        assertThat(breaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+        assertThat(breaker.getOpenCount()).isEqualTo(2);
+    }
+
+    /**
+     * 半开试探抛出Error也计为失败，熔断器重新打开而不是停留在半开状态
+     */
+    @Test
+    void testErrorDuringTrialReopens() {
+        CacheCircuitBreaker breaker = new CacheCircuitBreaker(10, 2, 0.5, Duration.ofSeconds(1), 1.0,
+                Duration.ofSeconds(10), 1, ticker::get);
+        CircuitBreakerCache cache = new CircuitBreakerCache(redis, breaker,
+                new LocalCache("users", 100, Duration.ofMinutes(1)), 100);
+        redisDown.set(true);
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> cache.get(1L)).isInstanceOf(RedisConnectionFailureException.class);
+        }
+
+        ticker.addAndGet(Duration.ofSeconds(10).toNanos());
+        redisError.set(true);
+        assertThatThrownBy(() -> cache.get(1L)).isInstanceOf(OutOfMemoryError.class);
+        assertThat(breaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+
+        redisDown.set(false);
+        redisError.set(false);
+        ticker.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(cache.get(1L)).isNull();
+        assertThat(breaker.getState()).isEqualTo(CacheCircuitBreaker.State.CLOSED);
+    }
+
+    /**
+     * 熔断期间的更新只写入降级缓存，恢复后补偿清除Redis中的旧值，读取不会回到更新前的数据
+     */
+    @Test
+    void testUpdateDuringOpenDoesNotResurrectOldValue() {
+        CacheCircuitBreaker breaker = new CacheCircuitBreaker(10, 2, 0.5, Duration.ofSeconds(1), 1.0,
+                Duration.ofSeconds(10), 1, ticker::get);
+        CircuitBreakerCache cache = new CircuitBreakerCache(redis, breaker,
+                new LocalCache("users", 100, Duration.ofMinutes(1)), 100);
+        cache.put(1L, "alice");
+        redisDown.set(true);
+        // 1次成功 + 1次失败，失败率0.5
+        assertThatThrownBy(() -> cache.get(2L)).isInstanceOf(RedisConnectionFailureException.class);
+        assertThat(breaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+
+        cache.put(1L, "alice-v2");
+        assertThat(cache.get(1L).get()).isEqualTo("alice-v2");
+
+        redisDown.set(false);
+        ticker.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(cache.get(3L)).isNull();
+        assertThat(breaker.getState()).isEqualTo(CacheCircuitBreaker.State.CLOSED);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(redis.get(1L)).isNull();
+    }
+
+    /**
+     * 熔断器关闭时Redis写入失败，同样补偿清除旧值
+     */
+    @Test
+    void testFailedPutSchedulesEviction() {
+        CacheCircuitBreaker breaker = new CacheCircuitBreaker(10, 10, 0.5, Duration.ofSeconds(1), 1.0,
+                Duration.ofSeconds(10), 1, ticker::get);
+        CircuitBreakerCache cache = new CircuitBreakerCache(redis, breaker,
+                new LocalCache("users", 100, Duration.ofMinutes(1)), 100);
+        cache.put(1L, "alice");
+        redisDown.set(true);
+        assertThatThrownBy(() -> cache.put(1L, "alice-v2")).isInstanceOf(RedisConnectionFailureException.class);
+        assertThat(cache.getPendingEvictionCount()).isEqualTo(1);
+
+        redisDown.set(false);
+        cache.get(2L);
+        assertThat(cache.getPendingEvictionCount()).isZero();
+        assertThat(redis.get(1L)).isNull();
+    }
+}
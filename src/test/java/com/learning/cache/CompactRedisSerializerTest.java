@@ -0,0 +1,97 @@
+package com.learning.cache;
+
+import com.learning.entity.Order;
+import com.learning.entity.OrderItem;
+import com.learning.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 紧凑二进制序列化测试
+ *
+ * 面试重点知识点：
+ * 1. 实体、嵌套集合、缓存包装值的往返一致性
+ * 2. 与JDK序列化的体积对比、旧数据兼容
+ *
+ * @author 学习笔记
+ */
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer();
+
+    /**
+     * 订单及订单项往返后字段一致，空字段保持为null
+     */
+    @Test
+    void testEntityRoundTrip() {
+        OrderItem item = new OrderItem();
+        item.setId(11L);
+        item.setOrderId(1L);
+        item.setProductId(300L);
+        item.setProductName("机械键盘");
+        item.setQuantity(2);
+        item.setPrice(new BigDecimal("199.90"));
+        item.setTotalPrice(new BigDecimal("399.80"));
+
+        Order order = new Order();
+        order.setId(1L);
+        order.setOrderNumber("ORD-20240101-0001");
+        order.setUserId(42L);
+        order.setTotalAmount(new BigDecimal("399.80"));
+        order.setStatus(Order.OrderStatus.SHIPPED);
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 1, 8, 30, 15, 123_000_000));
+        order.setOrderItems(List.of(item));
+
+        Order decoded = (Order) serializer.deserialize(serializer.serialize(order));
+
+        assertThat(decoded).isEqualTo(order);
+        assertThat(decoded.getRemark()).isNull();
+        assertThat(decoded.getUpdatedAt()).isNull();
+        assertThat(decoded.getOrderItems().get(0).getPrice()).isEqualByComparingTo("199.90");
+
+        User user = new User(7L, "alice", "secret", "alice@example.com", "Alice", null,
+                User.UserStatus.LOCKED, LocalDateTime.of(2023, 12, 31, 23, 59), null, 0);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("user", user);
+        stats.put("tags", Set.of("vip"));
+        stats.put("score", -12.5d);
+        stats.put("missing", null);
+
+        assertThat(serializer.deserialize(serializer.serialize(stats))).isEqualTo(stats);
+        assertThat(serializer.deserialize(serializer.serialize(new RefreshAheadCache.Stamped(user, 1000L))))
+                .isEqualTo(new RefreshAheadCache.Stamped(user, 1000L));
+        assertThat(serializer.deserialize(serializer.serialize(NullValue.INSTANCE))).isSameAs(NullValue.INSTANCE);
+        assertThat(serializer.deserialize(serializer.serialize(new NegativeCachingCache.Miss(1000L))))
+                .isEqualTo(new NegativeCachingCache.Miss(1000L));
+    }
+
+    /**
+     * 编码体积明显小于JDK序列化，且能读取切换前写入的JDK数据
+     */
+    @Test
+    void testSmallerThanJdkAndReadsLegacyPayloads() {
+        User user = new User(7L, "alice", "secret", "alice@example.com", "Alice", "Smith",
+                User.UserStatus.ACTIVE, LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 1, 2, 0, 0), 0);
+        Map<String, Object> asMap = new LinkedHashMap<>();
+        asMap.put("id", user.getId());
+        asMap.put("username", user.getUsername());
+        asMap.put("email", user.getEmail());
+        asMap.put("createdAt", user.getCreatedAt());
+
+        JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+        byte[] legacy = jdk.serialize(asMap);
+
+        assertThat(serializer.serialize(user).length).isLessThan(legacy.length / 4);
+        assertThat(serializer.deserialize(legacy)).isEqualTo(asMap);
+    }
+}
@@ -0,0 +1,90 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 热点key统计测试
+ * 
+ * 面试重点知识点：
+ * 1. 偏斜访问分布下Top-K的正确性
+ * 2. 衰减与本地缓存常驻
+ * 
+ * @author 学习笔记
+ */
+class HotKeyTrackerTest {
+
+    /**
+     * 少数key占据大部分访问时，Top-K按频率排序返回这些key
+     */
+    @Test
+    void testTopKeysUnderSkewedTraffic() {
+        HotKeyTracker tracker = new HotKeyTracker(1024, 3, 10);
+        for (long id = 1; id <= 500; id++) {
+            for (int i = 0; i < 3; i++) {
+                tracker.record(id);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            tracker.record(7L);
+            if (i % 2 == 0) {
+                tracker.record("ORD-42");
+            }
+            if (i % 5 == 0) {
+                tracker.record(99L);
+            }
+        }
+
+        assertThat(tracker.topKeys()).extracting(HotKeyTracker.HotKey::key).containsExactly(7L, "ORD-42", 99L);
+        assertThat(tracker.isHot(7L)).isTrue();
+        assertThat(tracker.isHot(123L)).isFalse();
+
+        for (int i = 0; i < 10; i++) {
+            tracker.decay();
+        }
+        assertThat(tracker.topKeys()).isEmpty();
+        assertThat(tracker.isHot(7L)).isFalse();
+    }
+
+    /**
+     * 常驻key不参与容量淘汰
+     */
+    @Test
+    void testPinnedKeysSurviveEviction() {
+        LocalCache localCache = new LocalCache("users", 4, Duration.ofMinutes(1));
+        localCache.put(1L, "hot");
+        localCache.setPinnedKeys(Set.of(1L));
+        for (long id = 2; id <= 10; id++) {
+            localCache.put(id, "user" + id);
+        }
+
+        assertThat(localCache.get(1L)).isEqualTo("hot");
+        assertThat(localCache.size()).isEqualTo(4);
+    }
+
+    /**
+     * 常驻条目总权重超过容量一半时常驻失效，按普通条目淘汰
+     */
+    @Test
+    void testPinnedKeysOverWeightBudgetAreEvictable() {
+        assertThat(pinnedEntrySurvivesGrowth(40)).isTrue();
+        assertThat(pinnedEntrySurvivesGrowth(60)).isFalse();
+    }
+
+    /**
+     * 容量100：固定key 1，key 2随后变大使总权重超出容量，key 1是试用区中最旧的条目
+     */
+    private static boolean pinnedEntrySurvivesGrowth(int pinnedWeight) {
+        LocalCache localCache = new LocalCache("users", 100, 100, Duration.ofMinutes(1),
+                (key, value) -> ((String) value).length(), System::nanoTime);
+        localCache.put(1L, "x".repeat(pinnedWeight));
+        localCache.setPinnedKeys(Set.of(1L));
+        localCache.put(2L, "y".repeat(30));
+        localCache.put(2L, "y".repeat(70));
+        return localCache.get(1L) != null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 带统计的缓存测试
+ *
+ * 面试重点知识点：
+ * 1. 加载失败同样是一次未命中
+ * 2. 条目大小按采样估算，平均值不受采样影响
+ *
+ * @author 学习笔记
+ */
+class InstrumentedCacheTest {
+
+    private final InstrumentedCache cache = new InstrumentedCache(new ConcurrentMapCache("userCache"));
+
+    /**
+     * 加载器抛出异常时计入未命中；随后加载成功再计一次未命中，命中计一次命中
+     */
+    @Test
+    void testMissIsCountedWhenLoaderFails() {
+        assertThatThrownBy(() -> cache.get(1L, () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(Cache.ValueRetrievalException.class);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getPutCount()).isZero();
+
+        assertThat(cache.<String>get(1L, () -> "abc")).isEqualTo("abc");
+        assertThat(cache.<String>get(1L, () -> "other")).isEqualTo("abc");
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getLoadLatency().getCount()).isEqualTo(2);
+    }
+
+    /**
+     * 相同大小的值：无论采样到哪些写入，平均大小都等于单个值的大小
+     */
+    @Test
+    void testEntryBytesAreSampled() {
+        for (long i = 0; i < 1000; i++) {
+            cache.put(i, "abc");
+        }
+        assertThat(cache.getPutCount()).isEqualTo(1000);
+        assertThat(cache.getAverageEntryBytes()).isEqualTo(48.0);
+        assertThat(cache.getMaxEntryBytes()).isEqualTo(48);
+    }
+}
@@ -0,0 +1,59 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 带随机抖动的过期时间测试
+ *
+ * 面试重点知识点：
+ * 1. 抖动后的TTL落在 [ttl × (1 - jitter), ttl × (1 + jitter)] 区间内
+ * 2. 抖动使过期时间分散，不再全部相同
+ * 3. 抖动为0时返回基础TTL
+ *
+ * @author 学习笔记
+ */
+class JitteredTtlFunctionTest {
+
+    private static final Duration BASE = Duration.ofMinutes(30);
+
+    /**
+     * ±10%抖动：所有TTL在27~33分钟之间，且取值分散
+     */
+    @Test
+    void testTtlStaysWithinJitterBand() {
+        JitteredTtlFunction ttlFunction = new JitteredTtlFunction(BASE, 0.1);
+        Set<Duration> distinct = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            Duration ttl = ttlFunction.getTimeToLive("user:" + i, "value");
+            assertThat(ttl).isBetween(Duration.ofMinutes(27), Duration.ofMinutes(33));
+            distinct.add(ttl);
+        }
+        assertThat(distinct).hasSizeGreaterThan(100);
+    }
+
+    /**
+     * 抖动为0或基础TTL不大于0(永不过期)时原样返回
+     */
+    @Test
+    void testZeroJitterReturnsBaseTtl() {
+        JitteredTtlFunction ttlFunction = new JitteredTtlFunction(BASE, 0);
+        for (int i = 0; i < 100; i++) {
+            assertThat(ttlFunction.getTimeToLive("user:" + i, "value")).isEqualTo(BASE);
+        }
+        assertThat(new JitteredTtlFunction(Duration.ZERO, 0.1).getTimeToLive("user:1", "value"))
+                .isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void testJitterMustBeBelowOne() {
+        assertThatThrownBy(() -> new JitteredTtlFunction(BASE, 1.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JitteredTtlFunction(BASE, -0.1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,142 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 本地缓存快照测试
+ *
+ * 面试重点知识点：
+ * 1. 快照写入与按需恢复
+ * 2. 版本与校验和不一致时丢弃快照
+ * 3. 停机期间缓存代数变化时丢弃快照，恢复条目的存活时间有上限
+ *
+ * @author 学习笔记
+ */
+class LocalCacheSnapshotTest {
+
+    private static final long GENERATION = 7L;
+    private static final Duration MAX_RESTORE_TTL = Duration.ofMinutes(5);
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 热点条目写入快照，新的本地缓存未命中时按需恢复；写入过的key不会被快照中的旧值覆盖
+     */
+    @Test
+    void testWriteAndRestoreLazily() throws IOException {
+        LocalCache source = new LocalCache("users", 10, Duration.ofMinutes(5));
+        source.put(1L, Map.of("name", "alice"));
+        source.put(2L, "bob");
+        source.put(3L, "carol");
+        Path file = LocalCacheSnapshot.path(directory, "users");
+
+        assertThat(LocalCacheSnapshot.write(file, source.hottestEntries(10), 42L, GENERATION, serializer)).isEqualTo(3);
+
+        LocalCache restored = new LocalCache("users", 10, Duration.ofMinutes(5));
+        restored.attachSnapshot(LocalCacheSnapshot.open(file, 42L, GENERATION, MAX_RESTORE_TTL, serializer));
+        restored.put(3L, "carol-updated");
+
+        assertThat(restored.size()).isEqualTo(1);
+        assertThat(restored.get(1L)).isEqualTo(Map.of("name", "alice"));
+        assertThat(restored.get(3L)).isEqualTo("carol-updated");
+        assertThat(restored.get(4L)).isNull();
+        assertThat(restored.getRestoredCount()).isEqualTo(1);
+        assertThat(restored.size()).isEqualTo(2);
+    }
+
+    /**
+     * 导出时保护区的条目排在前面，数量受limit限制
+     */
+    @Test
+    void testHottestEntriesPreferProtectedSegment() {
+        LocalCache cache = new LocalCache("users", 100, Duration.ofMinutes(5));
+        for (long id = 0; id < 10; id++) {
+            cache.put(id, "user" + id);
+        }
+        cache.get(5L);
+
+        assertThat(cache.hottestEntries(3)).extracting(LocalCache.HotEntry::key).first().isEqualTo(5L);
+        assertThat(cache.hottestEntries(3)).hasSize(3);
+    }
+
+    /**
+     * 实体结构版本变化或数据被篡改时不加载快照
+     */
+    @Test
+    void testRejectsSchemaMismatchAndCorruption() throws IOException {
+        LocalCache source = new LocalCache("users", 10, Duration.ofMinutes(5));
+        source.put(1L, "alice");
+        Path file = LocalCacheSnapshot.path(directory, "users");
+        LocalCacheSnapshot.write(file, source.hottestEntries(10), 42L, GENERATION, serializer);
+
+        assertThat(LocalCacheSnapshot.open(file, 43L, GENERATION, MAX_RESTORE_TTL, serializer)).isNull();
+        assertThat(LocalCacheSnapshot.open(file, 42L, GENERATION, MAX_RESTORE_TTL, serializer)).isNotNull();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xFF);
+        }
+        assertThat(LocalCacheSnapshot.open(file, 42L, GENERATION, MAX_RESTORE_TTL, serializer)).isNull();
+        assertThat(LocalCacheSnapshot.open(directory.resolve("missing.snapshot"), 42L, GENERATION,
+                MAX_RESTORE_TTL, serializer)).isNull();
+    }
+
+    /**
+     * 写入快照后缓存被清空(代数前进)，重启时不再恢复旧条目
+     */
+    @Test
+    void testRejectsSnapshotAfterGenerationBump() throws IOException {
+        @SuppressWarnings("unchecked")
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.get("cache:generation:users")).thenReturn(String.valueOf(GENERATION));
+        when(ops.increment("cache:generation:users")).thenReturn(GENERATION + 1);
+        CacheGenerations generations = new CacheGenerations(redisTemplate, Duration.ofDays(1));
+        LocalCache source = new LocalCache("users", 10, Duration.ofMinutes(5));
+        source.put(1L, "alice");
+        Path file = LocalCacheSnapshot.path(directory, "users");
+        LocalCacheSnapshot.write(file, source.hottestEntries(10), 42L, generations.current("users"), serializer);
+
+        new GenerationalCache(new ConcurrentMapCache("users"), generations).clear();
+
+        assertThat(LocalCacheSnapshot.open(file, 42L, generations.current("users"), MAX_RESTORE_TTL, serializer))
+                .isNull();
+    }
+
+    /**
+     * 恢复的条目剩余存活时间不超过上限
+     */
+    @Test
+    void testRestoredTtlIsCapped() throws IOException {
+        LocalCache source = new LocalCache("users", 10, Duration.ofMinutes(30));
+        source.put(1L, "alice");
+        Path file = LocalCacheSnapshot.path(directory, "users");
+        LocalCacheSnapshot.write(file, source.hottestEntries(10), 42L, GENERATION, serializer);
+
+        LocalCacheSnapshot snapshot = LocalCacheSnapshot.open(file, 42L, GENERATION, Duration.ofSeconds(30), serializer);
+        LocalCacheSnapshot.Restored restored = snapshot.decode(snapshot.take(1L));
+
+        assertThat(restored.value()).isEqualTo("alice");
+        assertThat(restored.remainingNanos()).isLessThanOrEqualTo(Duration.ofSeconds(30).toNanos());
+    }
+}
@@ -0,0 +1,69 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 空结果缓存测试
+ *
+ * 面试重点知识点：
+ * 1. 哨兵值对Spring Cache表现为命中null，底层缓存不需要允许null
+ * 2. 哨兵按独立的短TTL过期，创建数据后精确清除
+ *
+ * @author 学习笔记
+ */
+class NegativeCachingCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    /**
+     * 不存在的数据只回源一次，短TTL过期后重新回源；清除哨兵后立即读到新数据
+     */
+    @Test
+    void testMissIsCachedUntilTtlOrEvict() {
+        ConcurrentMapCache redis = new ConcurrentMapCache("users", new ConcurrentHashMap<>(), false);
+        NegativeCachingCache cache = new NegativeCachingCache(redis, Duration.ofSeconds(30), now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        Callable<Object> missingUser = () -> {
+            loads.incrementAndGet();
+            return null;
+        };
+        assertThat(cache.get(1L, missingUser)).isNull();
+        assertThat(cache.get(1L, missingUser)).isNull();
+        assertThat(loads).hasValue(1);
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(1L).get()).isNull();
+        assertThat(cache.getNegativeHitCount()).isEqualTo(3);
+
+        now.addAndGet(30_000);
+        assertThat(cache.get(1L)).isNull();
+        assertThat(redis.get(1L)).isNull();
+
+        cache.put(2L, null);
+        cache.evict(2L);
+        assertThat(cache.get(2L, () -> "created")).isEqualTo("created");
+        assertThat(cache.get(2L).get()).isEqualTo("created");
+    }
+
+    /**
+     * Redis中的哨兵使用独立TTL，包括被提前刷新层包装的哨兵
+     */
+    @Test
+    void testTtlFunctionUsesNegativeTtlForSentinel() {
+        NegativeTtlFunction ttl = new NegativeTtlFunction((key, value) -> Duration.ofMinutes(10), Duration.ofSeconds(30));
+        NegativeCachingCache.Miss miss = new NegativeCachingCache.Miss(now.get());
+
+        assertThat(ttl.getTimeToLive(1L, miss)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(ttl.getTimeToLive(1L, new RefreshAheadCache.Stamped(miss, now.get()))).isEqualTo(Duration.ofSeconds(30));
+        assertThat(ttl.getTimeToLive(1L, "user")).isEqualTo(Duration.ofMinutes(10));
+    }
+}
@@ -0,0 +1,52 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对象内存占用估算测试
+ *
+ * 面试重点知识点：
+ * 1. 浅层大小 = 对象头 + 基本类型字段 + 引用，按8字节对齐
+ * 2. 同一对象被多次引用只计算一次
+ *
+ * @author 学习笔记
+ */
+class ObjectSizeEstimatorTest {
+
+    /**
+     * String "abc"：对象头16 + 字段8 + 字节数组align(16 + 3) = 48；
+     * Item：align(16 + long 8 + 引用4) = 32，加上名称共80
+     */
+    @Test
+    void testFieldsAreEstimatedFromCachedShape() {
+        assertThat(ObjectSizeEstimator.estimate("abc")).isEqualTo(48);
+        assertThat(ObjectSizeEstimator.estimate(42L)).isEqualTo(24);
+        assertThat(ObjectSizeEstimator.estimate(null)).isZero();
+        assertThat(ObjectSizeEstimator.estimate(new Item(1, "abc"))).isEqualTo(80);
+        // 第二次走缓存的形状，结果一致
+        assertThat(ObjectSizeEstimator.estimate(new Item(2, "abc"))).isEqualTo(80);
+    }
+
+    /**
+     * 两个Item共享同一个名称：列表64 + 两个Item各32 + 名称48
+     */
+    @Test
+    void testSharedReferencesAreCountedOnce() {
+        String name = "abc";
+        assertThat(ObjectSizeEstimator.estimate(List.of(new Item(1, name), new Item(2, name)))).isEqualTo(176);
+    }
+
+    static class Item {
+        private final long id;
+        private final String name;
+
+        Item(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 堆外缓存测试
+ *
+ * 面试重点知识点：
+ * 1. Slab分配、开放寻址索引的增删与扩容
+ * 2. CLOCK淘汰与过期
+ * 3. 堆外层的读写路径
+ * 4. 分段：各段独立加锁，内存上限均分到各段
+ *
+ * @author 学习笔记
+ */
+class OffHeapCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    /**
+     * 大量key写入、覆盖与删除后，索引中剩余的key仍能全部找到
+     */
+    @Test
+    void testIndexSurvivesResizeAndRemoval() {
+        OffHeapStore store = new OffHeapStore(4 * 1024 * 1024, 64 * 1024, Duration.ofMinutes(1), ticker::get);
+        for (long key = 0; key < 10000; key++) {
+            store.put(key, bytes("v" + key));
+        }
+        for (long key = 0; key < 10000; key += 2) {
+            store.remove(key);
+        }
+        store.put(1L, bytes("updated"));
+
+        assertThat(store.size()).isEqualTo(5000);
+        assertThat(store.get(1L)).isEqualTo(bytes("updated"));
+        for (long key = 3; key < 10000; key += 2) {
+            assertThat(store.get(key)).isEqualTo(bytes("v" + key));
+        }
+        assertThat(store.get(2L)).isNull();
+    }
+
+    /**
+     * 内存用尽后按CLOCK淘汰：被访问过的条目得到第二次机会；超过最大块尺寸的值被拒绝
+     */
+    @Test
+    void testClockEvictionAndRejection() {
+        // 一页，值长度43 + 头部21 = 64字节，恰好是最小块尺寸，一页容纳16个条目
+        OffHeapStore store = new OffHeapStore(1024, 1024, Duration.ofMinutes(1), ticker::get);
+        byte[] value = new byte[43];
+        for (long key = 0; key < 16; key++) {
+            store.put(key, value);
+        }
+        store.get(0L);
+        store.put(16L, value);
+
+        assertThat(store.size()).isEqualTo(16);
+        assertThat(store.get(0L)).isNotNull();
+        assertThat(store.get(1L)).isNull();
+        assertThat(store.getEvictionCount()).isEqualTo(1);
+
+        assertThat(store.put(17L, new byte[2048])).isFalse();
+        assertThat(store.getRejectionCount()).isEqualTo(1);
+    }
+
+    /**
+     * 条目按写入时间过期，过期的块回到空闲链表
+     */
+    @Test
+    void testExpiry() {
+        OffHeapStore store = new OffHeapStore(1024, 1024, Duration.ofSeconds(10), ticker::get);
+        store.put(1L, bytes("alice"));
+        ticker.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        assertThat(store.get(1L)).isNull();
+        assertThat(store.getExpirationCount()).isEqualTo(1);
+        assertThat(store.size()).isZero();
+    }
+
+    /**
+     * 分段存储：多线程并发写入不同key后全部可读，总内存不超过上限；内存过小时默认只用一个段
+     */
+    @Test
+    void testSegmentsAreIndependent() throws Exception {
+        OffHeapStore store = new OffHeapStore(4 * 1024 * 1024, 64 * 1024, Duration.ofMinutes(1), 4, ticker::get);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            long first = thread * 2500L;
+            writers.add(executor.submit(() -> {
+                for (long key = first; key < first + 2500; key++) {
+                    store.put(key, bytes("v" + key));
+                    assertThat(store.get(key)).isEqualTo(bytes("v" + key));
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(store.getSegmentCount()).isEqualTo(4);
+        assertThat(store.size()).isEqualTo(10000);
+        for (long key = 0; key < 10000; key++) {
+            assertThat(store.get(key)).isEqualTo(bytes("v" + key));
+        }
+        assertThat(store.getMaxMemoryBytes()).isEqualTo(4 * 1024 * 1024);
+        assertThat(store.getAllocatedBytes()).isLessThanOrEqualTo(store.getMaxMemoryBytes());
+        store.clear();
+        assertThat(store.size()).isZero();
+
+        assertThat(new OffHeapStore(1024, 1024, Duration.ofMinutes(1)).getSegmentCount()).isEqualTo(1);
+    }
+
+    /**
+     * 下一层命中后回填堆外，null值同样缓存；非数字key直接交给下一层
+     */
+    @Test
+    void testReadThroughAndPassThrough() {
+        ConcurrentMapCache remote = new ConcurrentMapCache("orders");
+        OffHeapStore store = new OffHeapStore(1024 * 1024, 64 * 1024, Duration.ofMinutes(1), ticker::get);
+        OffHeapCache cache = new OffHeapCache(remote, store, new CompactRedisSerializer());
+        remote.put(1L, Map.of("name", "alice"));
+        cache.put(2L, null);
+        cache.put("ORD-1", "order");
+
+        assertThat(cache.get(1L).get()).isEqualTo(Map.of("name", "alice"));
+        remote.evict(1L);
+        assertThat(cache.get(1L).get()).isEqualTo(Map.of("name", "alice"));
+        assertThat(cache.get(2L).get()).isNull();
+        assertThat(store.size()).isEqualTo(2);
+
+        Map<Object, Cache.ValueWrapper> found = cache.getAll(List.of(1L, "ORD-1", 3L));
+        assertThat(found.keySet()).containsExactly(1L, "ORD-1");
+
+        cache.evict(1L);
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
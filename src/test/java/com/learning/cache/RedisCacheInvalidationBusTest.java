@@ -0,0 +1,74 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Redis失效消息编解码测试
+ * 
+ * 面试重点知识点：
+ * 1. key的类型在往返后保持不变，Long与Integer不会混淆
+ * 2. 格式不符的消息(包括JDK序列化的字节)一律拒绝
+ * 
+ * @author 学习笔记
+ */
+class RedisCacheInvalidationBusTest {
+
+    @Test
+    void testRoundTripKeepsKeyTypes() {
+        InvalidationBatch batch = new InvalidationBatch("node-a",
+                Map.of("users", Set.of(1L, 2), "orders", Set.of("ORD-1", "L:not-a-long")),
+                Map.of("products", 42L));
+
+        InvalidationBatch decoded = RedisCacheInvalidationBus.decode(RedisCacheInvalidationBus.encode(batch));
+
+        assertThat(decoded).isEqualTo(batch);
+        assertThat(decoded.evicted().get("users")).containsExactlyInAnyOrder(1L, 2);
+    }
+
+    /**
+     * 无法编码的key降级为清空该缓存的本地副本，代数0不会让接收方的代数前进
+     */
+    @Test
+    void testUnsupportedKeyDowngradesToClear() {
+        InvalidationBatch batch = new InvalidationBatch("node-a",
+                Map.of("reports", Set.of(new Object())), Map.of());
+
+        InvalidationBatch decoded = RedisCacheInvalidationBus.decode(RedisCacheInvalidationBus.encode(batch));
+
+        assertThat(decoded.evicted()).isEmpty();
+        assertThat(decoded.cleared()).containsEntry("reports", 0L);
+    }
+
+    @Test
+    void testMalformedPayloadsAreRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new java.util.HashMap<>(Map.of("users", 1L)));
+        }
+
+        assertThat(RedisCacheInvalidationBus.decode(bytes.toString(StandardCharsets.ISO_8859_1))).isNull();
+        assertThat(RedisCacheInvalidationBus.decode("not json")).isNull();
+        assertThat(RedisCacheInvalidationBus.decode("[]")).isNull();
+        assertThat(RedisCacheInvalidationBus.decode(
+                "{\"nodeId\":1,\"evicted\":{},\"cleared\":{}}")).isNull();
+        assertThat(RedisCacheInvalidationBus.decode(
+                "{\"nodeId\":\"n\",\"evicted\":{\"users\":[\"X:1\"]},\"cleared\":{}}")).isNull();
+        assertThat(RedisCacheInvalidationBus.decode(
+                "{\"nodeId\":\"n\",\"evicted\":{\"users\":[\"L:abc\"]},\"cleared\":{}}")).isNull();
+        assertThat(RedisCacheInvalidationBus.decode(
+                "{\"nodeId\":\"n\",\"evicted\":{\"users\":[1]},\"cleared\":{}}")).isNull();
+        assertThat(RedisCacheInvalidationBus.decode(
+                "{\"nodeId\":\"n\",\"evicted\":{},\"cleared\":{\"users\":\"42\"}}")).isNull();
+        assertThat(RedisCacheInvalidationBus.decode(
+                "{\"nodeId\":\"n\",\"evicted\":{},\"cleared\":{\"users\":1.5}}")).isNull();
+    }
+}
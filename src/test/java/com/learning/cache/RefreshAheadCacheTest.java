@@ -0,0 +1,73 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 提前刷新缓存测试
+ * 
+ * 面试重点知识点：
+ * 1. 可控时钟测试基于时间的缓存行为
+ * 2. 手动执行的Executor验证异步任务的调度
+ * 
+ * @author 学习笔记
+ */
+class RefreshAheadCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private RefreshAheadCache newCache() {
+        return new RefreshAheadCache(new ConcurrentMapCache("users"), Duration.ofSeconds(10), 0.8,
+                name -> key -> "v" + loads.incrementAndGet(), scheduled::add, now::get);
+    }
+
+    /**
+     * 超过刷新阈值后返回旧值并只调度一次刷新
+     */
+    @Test
+    void testStaleReadReturnsOldValueAndSchedulesSingleRefresh() {
+        RefreshAheadCache cache = newCache();
+        cache.put(1L, "v0");
+
+        now.addAndGet(7_000);
+        assertThat(cache.get(1L).get()).isEqualTo("v0");
+        assertThat(scheduled).isEmpty();
+
+        now.addAndGet(1_000);
+        assertThat(cache.get(1L).get()).isEqualTo("v0");
+        assertThat(cache.get(1L).get()).isEqualTo("v0");
+        assertThat(scheduled).hasSize(1);
+
+        scheduled.get(0).run();
+        assertThat(cache.get(1L).get()).isEqualTo("v1");
+        assertThat(cache.getRefreshCount()).isEqualTo(1);
+        assertThat(cache.getRefreshingCount()).isZero();
+    }
+
+    /**
+     * 刷新期间发生清除时放弃写回
+     */
+    @Test
+    void testRefreshDiscardedWhenEvictedConcurrently() {
+        RefreshAheadCache cache = newCache();
+        cache.put(1L, "v0");
+        now.addAndGet(9_000);
+        cache.get(1L);
+
+        cache.evict(1L);
+        scheduled.get(0).run();
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getRefreshCount()).isZero();
+    }
+}
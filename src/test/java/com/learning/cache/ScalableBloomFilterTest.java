@@ -0,0 +1,74 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 可扩容布隆过滤器测试
+ * 
+ * 面试重点知识点：
+ * 1. 布隆过滤器无漏判的特性验证
+ * 2. 扩容后误判率与内存上限的验证
+ * 
+ * @author 学习笔记
+ */
+class ScalableBloomFilterTest {
+
+    /**
+     * 超出初始容量后自动扩容，已添加元素不会漏判，误判率接近目标值
+     */
+    @Test
+    void testGrowthKeepsNoFalseNegatives() {
+        ScalableBloomFilter filter = new ScalableBloomFilter("user", 1000, 0.01, 1024 * 1024);
+        for (long id = 1; id <= 5000; id++) {
+            filter.add(id);
+        }
+
+        assertThat(filter.stageCount()).isGreaterThan(1);
+        for (long id = 1; id <= 5000; id++) {
+            assertThat(filter.mightContain(id)).isTrue();
+        }
+
+        int falsePositives = 0;
+        for (long id = 1_000_000; id < 1_010_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 10000.0).isLessThan(0.03);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.03);
+    }
+
+    /**
+     * 计数器支持删除，且删除不影响其他元素
+     */
+    @Test
+    void testRemove() {
+        ScalableBloomFilter filter = new ScalableBloomFilter("order", 100, 0.01, 1024 * 1024);
+        filter.add("ORD-001");
+        filter.add("ORD-002");
+
+        filter.remove("ORD-001");
+
+        assertThat(filter.mightContain("ORD-001")).isFalse();
+        assertThat(filter.mightContain("ORD-002")).isTrue();
+        assertThat(filter.size()).isEqualTo(1);
+    }
+
+    /**
+     * 达到内存上限后停止扩容
+     */
+    @Test
+    void testMemoryLimit() {
+        long firstStage = CountingBloomFilter.estimateMemoryBytes(100, 0.005);
+        ScalableBloomFilter filter = new ScalableBloomFilter("user", 100, 0.01, firstStage);
+        for (long id = 1; id <= 1000; id++) {
+            filter.add(id);
+        }
+
+        assertThat(filter.stageCount()).isEqualTo(1);
+        assertThat(filter.isMemoryLimitReached()).isTrue();
+        assertThat(filter.memoryBytes()).isLessThanOrEqualTo(firstStage);
+    }
+}
@@ -0,0 +1,95 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 单飞缓存测试
+ * 
+ * 面试重点知识点：
+ * 1. 并发场景下的缓存击穿验证
+ * 2. CountDownLatch协调并发测试
+ * 
+ * @author 学习笔记
+ */
+class SingleFlightCacheTest {
+
+    /**
+     * 同一key的并发未命中只触发一次加载
+     */
+    @Test
+    void testConcurrentMissesAreCoalesced() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("userCache"));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get(1L, () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "hot-user";
+                })));
+            }
+            while (cache.getLoadCount() + cache.getCoalescedCount() < threads) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("hot-user");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getLoadCount()).isEqualTo(1);
+        assertThat(cache.getCoalescedCount()).isEqualTo(threads - 1);
+        assertThat(cache.getInFlightCount()).isZero();
+    }
+
+    /**
+     * 加载失败时抛出ValueRetrievalException，且不会残留进行中的请求
+     */
+    @Test
+    void testLoaderFailureIsPropagated() {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("userCache"));
+
+        assertThatThrownBy(() -> cache.get(1L, () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(Cache.ValueRetrievalException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(cache.getInFlightCount()).isZero();
+        assertThat(cache.<String>get(1L, () -> "recovered")).isEqualTo("recovered");
+    }
+
+    /**
+     * 内层缓存抛出的ValueRetrievalException不再包装一层
+     */
+    @Test
+    void testInnerRetrievalFailureIsNotWrappedAgain() {
+        Cache.ValueRetrievalException inner =
+                new Cache.ValueRetrievalException(1L, () -> null, new IllegalStateException("db down"));
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("userCache"));
+
+        assertThatThrownBy(() -> cache.get(1L, () -> {
+            throw inner;
+        })).isSameAs(inner);
+    }
+}
@@ -0,0 +1,95 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 缓存标签测试
+ *
+ * 面试重点知识点：
+ * 1. Mockito模拟Redis Set操作
+ * 2. 线程绑定的标签在缓存写入时计算并先于写入登记
+ * 3. 登记失败时放弃写入
+ *
+ * @author 学习笔记
+ */
+class TaggingCacheTest {
+
+    @SuppressWarnings("unchecked")
+    private final SetOperations<String, String> setOps = mock(SetOperations.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final CacheTagIndex index = new CacheTagIndex(redisTemplate, Duration.ofHours(1));
+    private final ConcurrentMapCache redis = new ConcurrentMapCache("orderQueries");
+    private final TaggingCache cache = new TaggingCache(redis, index);
+
+    @AfterEach
+    void unbind() {
+        TaggingCache.restore(null);
+    }
+
+    /**
+     * 绑定了标签的写入先登记再写缓存，标签可以引用写入的值；未绑定时直接写入
+     */
+    @Test
+    void testPutRegistersTagsOnlyWhenBound() {
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        cache.put("stats:1", 10L);
+        verify(setOps, never()).add(anyString(), anyString());
+
+        TaggingCache.bind(new TaggingCache.Binding(Set.of("orderQueries"),
+                value -> List.of("user:1", "order:" + value)));
+        cache.put("page:1:1:10", 42L);
+
+        verify(setOps).add("cache:tag:user:1", "orderQueries|S|page:1:1:10");
+        verify(setOps).add("cache:tag:order:42", "orderQueries|S|page:1:1:10");
+        assertThat(redis.get("page:1:1:10").get()).isEqualTo(42L);
+    }
+
+    /**
+     * 其他缓存的写入不受绑定影响；Redis不可用时不写入
+     */
+    @Test
+    void testRegistrationFailureSkipsPut() {
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(setOps.add(anyString(), anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        TaggingCache.bind(new TaggingCache.Binding(Set.of("other"), value -> List.of("user:1")));
+        cache.put(1L, "kept");
+        assertThat(redis.get(1L)).isNotNull();
+
+        TaggingCache.bind(new TaggingCache.Binding(Set.of("orderQueries"), value -> List.of("user:1")));
+        cache.put(2L, "dropped");
+        assertThat(redis.get(2L)).isNull();
+    }
+
+    /**
+     * SPOP分批取出标签下的条目，按原类型还原key
+     */
+    @Test
+    void testDrainDecodesMembers() {
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(setOps.pop("cache:tag:user:1", 500))
+                .thenReturn(List.of("orderQueries|S|stats:1", "orders|L|7", "orders|I|8", "broken"));
+
+        assertThat(index.drain("user:1")).containsExactly(
+                new CacheTagIndex.TaggedKey("orderQueries", "stats:1"),
+                new CacheTagIndex.TaggedKey("orders", 7L),
+                new CacheTagIndex.TaggedKey("orders", 8));
+        assertThat(CacheTagIndex.decode(CacheTagIndex.encode("orders", "a|b")))
+                .isEqualTo(new CacheTagIndex.TaggedKey("orders", "a|b"));
+    }
+}
@@ -0,0 +1,194 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 二级缓存测试
+ * 
+ * 面试重点知识点：
+ * 1. 多级缓存读写路径的验证
+ * 2. 本地缓存容量与过期策略的验证
+ * 3. W-TinyLFU的抗扫描能力与按权重限制容量
+ * 
+ * @author 学习笔记
+ */
+class TwoLevelCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    /**
+     * L2命中后回填L1，后续读取不再访问L2
+     */
+    @Test
+    void testRemoteHitPopulatesLocal() {
+        ConcurrentMapCache remote = new ConcurrentMapCache("users");
+        TwoLevelCache cache = new TwoLevelCache(remote, new LocalCache("users", 10, Duration.ofMinutes(1), ticker::get));
+        remote.put(1L, "alice");
+
+        assertThat(cache.get(1L).get()).isEqualTo("alice");
+        remote.evict(1L);
+        assertThat(cache.get(1L).get()).isEqualTo("alice");
+
+        assertThat(cache.getRemoteHitCount()).isEqualTo(1);
+        assertThat(cache.getLocalHitCount()).isEqualTo(1);
+        assertThat(cache.getLocalMissCount()).isEqualTo(1);
+    }
+
+    /**
+     * 批量读取：L1命中的key不访问L2，其余key批量读取L2并回填L1，结果保持传入顺序
+     */
+    @Test
+    void testGetAllSplitsLocalAndRemote() {
+        ConcurrentMapCache remote = new ConcurrentMapCache("users");
+        TwoLevelCache cache = new TwoLevelCache(remote, new LocalCache("users", 10, Duration.ofMinutes(1), ticker::get));
+        cache.put(2L, "bob");
+        remote.put(1L, "alice");
+        remote.put(3L, "carol");
+
+        Map<Object, Cache.ValueWrapper> found = cache.getAll(List.of(1L, 2L, 3L, 4L));
+
+        assertThat(found.keySet()).containsExactly(1L, 2L, 3L);
+        assertThat(found.get(3L).get()).isEqualTo("carol");
+        assertThat(cache.getLocalHitCount()).isEqualTo(1);
+        assertThat(cache.getRemoteHitCount()).isEqualTo(2);
+        assertThat(cache.getRemoteMissCount()).isEqualTo(1);
+        assertThat(cache.getLocalCache().get(1L)).isEqualTo("alice");
+    }
+
+    /**
+     * 加载器只在两级都未命中时执行，null值同样缓存在L1
+     */
+    @Test
+    void testValueLoaderAndNullValues() {
+        TwoLevelCache cache = new TwoLevelCache(new ConcurrentMapCache("users"),
+                new LocalCache("users", 10, Duration.ofMinutes(1), ticker::get));
+
+        assertThat(cache.<String>get(2L, () -> null)).isNull();
+        assertThat(cache.<String>get(2L, () -> "loaded-again")).isNull();
+        assertThat(cache.getRemoteMissCount()).isEqualTo(1);
+        assertThat(cache.getLocalHitCount()).isEqualTo(1);
+    }
+
+    /**
+     * 本地缓存按容量淘汰最久未访问的条目，并按写入时间过期
+     */
+    @Test
+    void testLocalCacheBoundsAndExpiry() {
+        LocalCache local = new LocalCache("users", 2, Duration.ofSeconds(10), ticker::get);
+        local.put(1L, "a");
+        local.put(2L, "b");
+        local.get(1L);
+        local.put(3L, "c");
+
+        assertThat(local.get(2L)).isNull();
+        assertThat(local.get(1L)).isEqualTo("a");
+        assertThat(local.getEvictionCount()).isEqualTo(1);
+
+        ticker.addAndGet(Duration.ofSeconds(11).toNanos());
+        assertThat(local.get(1L)).isNull();
+        assertThat(local.size()).isEqualTo(1);
+    }
+
+    /**
+     * 顺序扫描的一次性key在窗口区与试用区内被淘汰，已晋升到保护区的热点key不受影响；
+     * 热点key的重用距离远大于容量，纯LRU会把它们全部淘汰
+     */
+    @Test
+    void testScanDoesNotFlushHotEntries() {
+        LocalCache local = new LocalCache("users", 100, Duration.ofMinutes(1), ticker::get);
+        for (long id = 0; id < 50; id++) {
+            local.put(id, "hot" + id);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (long id = 0; id < 50; id++) {
+                local.get(id);
+            }
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            long id = 1000 + i;
+            if (local.get(id) == null) {
+                local.put(id, "user" + id);
+            }
+            if (i % 5 == 0) {
+                local.get((long) (i / 5 % 50));
+            }
+        }
+
+        for (long id = 0; id < 50; id++) {
+            assertThat(local.get(id)).isEqualTo("hot" + id);
+        }
+        assertThat(local.size()).isEqualTo(100);
+        assertThat(local.getEvictionCount()).isGreaterThan(4000);
+    }
+
+    /**
+     * 按权重限制容量：总权重不超过上限，权重超过总容量的条目直接拒绝
+     */
+    @Test
+    void testWeightBoundedCapacity() {
+        LocalCache local = new LocalCache("users", 100, 10, Duration.ofMinutes(1),
+                (key, value) -> ((String) value).length(), ticker::get);
+        local.put(1L, "a".repeat(40));
+        local.put(2L, "b".repeat(40));
+        local.put(3L, "c".repeat(40));
+
+        assertThat(local.size()).isEqualTo(2);
+        assertThat(local.getWeightedSize()).isEqualTo(80);
+
+        local.put(1L, "a".repeat(10));
+        assertThat(local.getWeightedSize()).isEqualTo(50);
+
+        local.put(2L, "b".repeat(200));
+        assertThat(local.get(2L)).isNull();
+        assertThat(local.getRejectionCount()).isEqualTo(1);
+        assertThat(local.getWeightedSize()).isEqualTo(10);
+    }
+
+    /**
+     * 候选需要腾出多个淘汰对象的空间时，只要其中任一对象比候选更热就整体拒绝，不会先删掉较冷的对象
+     */
+    @Test
+    void testWeightedAdmissionComparesAllVictims() {
+        LocalCache local = new LocalCache("users", 100, 100, Duration.ofMinutes(1),
+                (key, value) -> ((String) value).length(), ticker::get);
+        local.put("A", "a".repeat(30));
+        for (int i = 0; i < 10; i++) {
+            local.put("B", "b".repeat(30));
+        }
+        local.put("D", "d".repeat(30));
+
+        for (int i = 0; i < 3; i++) {
+            local.put("X", "x".repeat(50));
+        }
+
+        assertThat(local.get("X")).isNull();
+        assertThat(local.get("A")).isNotNull();
+        assertThat(local.get("B")).isNotNull();
+        assertThat(local.get("D")).isNotNull();
+        assertThat(local.size()).isEqualTo(3);
+    }
+
+    /**
+     * 清除操作同时作用于两级缓存
+     */
+    @Test
+    void testEvictClearsBothTiers() {
+        ConcurrentMapCache remote = new ConcurrentMapCache("users");
+        TwoLevelCache cache = new TwoLevelCache(remote, new LocalCache("users", 10, Duration.ofMinutes(1), ticker::get));
+        cache.put(1L, "alice");
+
+        cache.evict(1L);
+        assertThat(remote.get(1L)).isNull();
+        assertThat(cache.get(1L)).isNull();
+    }
+}
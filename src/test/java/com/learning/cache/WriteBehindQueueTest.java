@@ -0,0 +1,77 @@
+package com.learning.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 异步回写队列测试
+ *
+ * 面试重点知识点：
+ * 1. 按key合并与分批刷新
+ * 2. 有界队列的背压、失败重试与停机刷新
+ *
+ * @author 学习笔记
+ */
+class WriteBehindQueueTest {
+
+    private final List<Map<Long, String>> batches = new ArrayList<>();
+
+    /**
+     * 同一key多次提交只写入最新值；积压按batchSize分批，关闭时全部刷完
+     */
+    @Test
+    void testCoalescesAndFlushesInBatchesOnClose() throws InterruptedException {
+        WriteBehindQueue<Long, String> queue = new WriteBehindQueue<>("users", batch -> batches.add(new LinkedHashMap<>(batch)),
+                100, 2, 100, Duration.ofHours(1), Duration.ZERO);
+
+        queue.submit(1L, "a1");
+        queue.submit(2L, "b1");
+        queue.submit(1L, "a2");
+        queue.submit(3L, "c1");
+        queue.close();
+
+        assertThat(batches).containsExactly(Map.of(1L, "a2", 2L, "b1"), Map.of(3L, "c1"));
+        assertThat(queue.getCoalescedCount()).isEqualTo(1);
+        assertThat(queue.getWrittenCount()).isEqualTo(3);
+        assertThat(queue.submit(4L, "d1")).isFalse();
+    }
+
+    /**
+     * 队列满时新key等待超时后被拒绝，已有key仍可合并；写入失败的条目重新入队且不覆盖新值
+     */
+    @Test
+    void testBackpressureAndRequeueOnFailure() throws InterruptedException {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        WriteBehindQueue<Long, String> queue = new WriteBehindQueue<>("users", batch -> {
+            if (failing.get()) {
+                throw new IllegalStateException("db down");
+            }
+            batches.add(new LinkedHashMap<>(batch));
+        }, 2, 10, 0, Duration.ofHours(1), Duration.ofMillis(20));
+
+        assertThat(queue.submit(1L, "a1")).isTrue();
+        assertThat(queue.submit(2L, "b1")).isTrue();
+        assertThat(queue.submit(3L, "c1")).isFalse();
+        assertThat(queue.submit(2L, "b2")).isTrue();
+        assertThat(queue.getRejectedCount()).isEqualTo(1);
+
+        assertThat(queue.flush()).isZero();
+        assertThat(queue.getFailureCount()).isEqualTo(1);
+        assertThat(queue.getPendingCount()).isEqualTo(2);
+
+        failing.set(false);
+        queue.writeNow(1L, "a3");
+        assertThat(queue.getPendingCount()).isEqualTo(1);
+        assertThat(queue.flush()).isEqualTo(1);
+        assertThat(batches).containsExactly(Map.of(1L, "a3"), Map.of(2L, "b2"));
+        queue.close();
+    }
+}
@@ -0,0 +1,70 @@
+package com.learning.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 自适应采样器测试
+ *
+ * 面试重点知识点：
+ * 1. 采样权重之和是调用次数的无偏估计
+ * 2. QPS升高时采样间隔变大，但不低于固定比例、不超过上限
+ *
+ * @author 学习笔记
+ */
+class AdaptiveSamplerTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    /**
+     * 固定10%采样：约十分之一的调用被采样，权重之和还原调用次数
+     */
+    @Test
+    void testFixedRateWeightsRestoreCallCount() {
+        AdaptiveSampler sampler = new AdaptiveSampler(AdaptiveSampler.intervalOf(0.1), 0, 10, 0);
+        long weights = 0;
+        long samples = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            int weight = sampler.sample(i);
+            weights += weight;
+            samples += weight > 0 ? 1 : 0;
+        }
+        assertThat(samples).isCloseTo(100_000, within(3_000L));
+        assertThat((double) weights).isCloseTo(1_000_000, within(30_000.0));
+    }
+
+    /**
+     * 每秒10000次调用、目标每秒100个采样：下一秒起每100次采样一次；QPS回落后恢复固定比例
+     */
+    @Test
+    void testIntervalFollowsQps() {
+        AdaptiveSampler sampler = new AdaptiveSampler(2, 100, 50, 0);
+        long now = 0;
+        for (int i = 0; i < 10_000; i++) {
+            sampler.sample(now);
+            now += SECOND / 10_000;
+        }
+        sampler.sample(now);
+        assertThat(sampler.getInterval()).isEqualTo(50);
+
+        for (int i = 0; i < 50; i++) {
+            now += SECOND / 50;
+            sampler.sample(now);
+        }
+        assertThat(sampler.getInterval()).isEqualTo(2);
+        assertThat(AdaptiveSampler.always().sample(now)).isEqualTo(1);
+    }
+
+    @Test
+    void testRateMustBeInUnitInterval() {
+        assertThat(AdaptiveSampler.intervalOf(1.0)).isEqualTo(1);
+        assertThat(AdaptiveSampler.intervalOf(0.2)).isEqualTo(5);
+        assertThatThrownBy(() -> AdaptiveSampler.intervalOf(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AdaptiveSampler.intervalOf(1.5)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
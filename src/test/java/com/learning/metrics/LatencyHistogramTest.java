@@ -0,0 +1,67 @@
+package com.learning.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 延迟直方图测试
+ * 
+ * 面试重点知识点：
+ * 1. 百分位计算的正确性
+ * 2. 对数分桶的精度保证
+ * 
+ * @author 学习笔记
+ */
+class LatencyHistogramTest {
+
+    /**
+     * 均匀分布下的百分位值误差在子桶精度以内
+     */
+    @Test
+    void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(50_000_000, within(50_000_000 * 0.02));
+        assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(99_000_000, within(99_000_000 * 0.02));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000_000);
+        assertThat(histogram.getMean()).isCloseTo(50_000_500, within(1.0));
+    }
+
+    /**
+     * 小值精确记录，超出上限的值按上限记录
+     */
+    @Test
+    void testSmallValuesAndClamping() {
+        LatencyHistogram histogram = new LatencyHistogram(6, 1_000_000);
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(5_000_000);
+
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(3);
+        assertThat(histogram.getMax()).isEqualTo(1_000_000);
+        assertThat(histogram.getValueAtPercentile(99.9)).isEqualTo(1_000_000);
+    }
+
+    /**
+     * 合并后计数与最大值正确
+     */
+    @Test
+    void testMerge() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(2_000);
+
+        first.add(second);
+
+        assertThat(first.getCount()).isEqualTo(2);
+        assertThat(first.getMax()).isEqualTo(2_000);
+        assertThat(first.getValueAtPercentile(100)).isEqualTo(2_000);
+    }
+}
@@ -0,0 +1,32 @@
+package com.learning.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 环形缓冲区测试
+ *
+ * 面试重点知识点：
+ * 1. 写满后覆盖最旧的数据
+ * 2. 读取时最新的在前
+ *
+ * @author 学习笔记
+ */
+class RingBufferTest {
+
+    @Test
+    void testKeepsLatestItems() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertThat(buffer.latest(10)).isEmpty();
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i);
+        }
+
+        assertThat(buffer.latest(10)).containsExactly(5, 4, 3);
+        assertThat(buffer.latest(2)).containsExactly(5, 4);
+
+        buffer.clear();
+        assertThat(buffer.latest(10)).isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+package com.learning.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 滚动窗口指标测试
+ *
+ * 面试重点知识点：
+ * 1. 窗口只包含最近的桶，过期的桶被忽略
+ * 2. 吞吐按窗口实际覆盖的时长计算
+ *
+ * @author 学习笔记
+ */
+class RollingMetricsTest {
+
+    private final AtomicLong now = new AtomicLong(Duration.ofHours(1).toNanos());
+
+    /**
+     * 10分钟前的慢调用只出现在15分钟窗口中；错误率与吞吐按窗口计算
+     */
+    @Test
+    void testWindowsSeeOnlyRecentBuckets() {
+        RollingMetrics metrics = new RollingMetrics(Duration.ofSeconds(15), 60, now::get);
+        for (int i = 0; i < 100; i++) {
+            metrics.record(Duration.ofMillis(500).toNanos(), false);
+        }
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+        for (int i = 0; i < 600; i++) {
+            metrics.record(Duration.ofMillis(2).toNanos(), i % 10 != 0);
+            now.addAndGet(Duration.ofMillis(100).toNanos());
+        }
+
+        RollingMetrics.Snapshot oneMinute = metrics.snapshot(Duration.ofMinutes(1));
+        assertThat(oneMinute.count()).isBetween(450L, 600L);
+        assertThat(oneMinute.errorRate()).isCloseTo(10, within(1.0));
+        assertThat(oneMinute.throughput()).isCloseTo(10, within(0.5));
+        assertThat(oneMinute.latency().getMax()).isLessThan(Duration.ofMillis(3).toNanos());
+
+        RollingMetrics.Snapshot fifteenMinutes = metrics.snapshot(Duration.ofMinutes(15));
+        assertThat(fifteenMinutes.count()).isEqualTo(700);
+        assertThat(fifteenMinutes.errors()).isEqualTo(160);
+        assertThat(fifteenMinutes.latency().getValueAtPercentile(99)).isGreaterThan(Duration.ofMillis(400).toNanos());
+    }
+
+    /**
+     * 超过保留时长后旧桶被复用，不需要重置
+     */
+    @Test
+    void testBucketsAreReusedAfterRetention() {
+        RollingMetrics metrics = new RollingMetrics(Duration.ofSeconds(15), 4, now::get);
+        metrics.record(1_000, true);
+        now.addAndGet(Duration.ofSeconds(75).toNanos());
+        metrics.record(2_000, true);
+
+        assertThat(metrics.snapshot(Duration.ofMinutes(1)).count()).isEqualTo(1);
+        assertThat(metrics.snapshot(Duration.ofMinutes(15)).count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.learning.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Zipf分布生成器测试
+ *
+ * 面试重点知识点：
+ * 1. 采样结果的取值范围
+ * 2. 排名越靠前越热，相邻排名的频率比约为2^theta
+ *
+ * @author 学习笔记
+ */
+class ZipfianGeneratorTest {
+
+    /**
+     * 所有样本落在[0, itemCount)，0号最热，0号与1号的频率比接近2^theta
+     */
+    @Test
+    void testDistributionIsSkewed() {
+        ZipfianGenerator generator = new ZipfianGenerator(1000);
+        long[] counts = new long[1000];
+        for (int i = 0; i < 500_000; i++) {
+            long value = generator.next();
+            assertThat(value).isBetween(0L, 999L);
+            counts[(int) value]++;
+        }
+
+        for (int rank = 1; rank < counts.length; rank++) {
+            assertThat(counts[0]).isGreaterThan(counts[rank]);
+        }
+        assertThat((double) counts[0] / counts[1]).isCloseTo(Math.pow(2, ZipfianGenerator.DEFAULT_THETA), within(0.15));
+        long top10 = 0;
+        for (int rank = 0; rank < 10; rank++) {
+            top10 += counts[rank];
+        }
+        assertThat(top10).isGreaterThan(500_000 / 3);
+    }
+
+    @Test
+    void testRejectsInvalidArguments() {
+        assertThatThrownBy(() -> new ZipfianGenerator(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ZipfianGenerator(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ZipfianGenerator(100, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
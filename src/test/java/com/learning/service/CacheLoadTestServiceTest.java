@@ -0,0 +1,76 @@
+package com.learning.service;
+
+import com.learning.exception.BusinessException;
+import com.learning.service.CacheLoadTestService.KeyDistribution;
+import com.learning.service.CacheLoadTestService.LoadTestOptions;
+import com.learning.service.CacheLoadTestService.LoadTestStatus;
+import com.learning.service.CacheLoadTestService.LoadTestTask;
+import com.learning.service.CacheLoadTestService.PhaseResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 缓存压测服务测试
+ *
+ * 面试重点知识点：
+ * 1. 同步Executor让异步任务在测试线程内执行完毕
+ * 2. 命中率来自压测自身的计数，压测只访问专用缓存
+ *
+ * @author 学习笔记
+ */
+class CacheLoadTestServiceTest {
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+    private final AtomicBoolean rejecting = new AtomicBoolean();
+    private final CacheLoadTestService service = new CacheLoadTestService(cacheManager, command -> {
+        if (rejecting.get()) {
+            throw new RejectedExecutionException("queue full");
+        }
+        command.run();
+    });
+
+    /**
+     * 只读压测：每个key回源一次，其余读取都是命中；只创建了压测专用缓存
+     */
+    @Test
+    void testHitRateComesFromLoadGeneratorCounters() {
+        LoadTestTask task = service.start(options(1.0));
+
+        assertThat(task.getStatus()).isEqualTo(LoadTestStatus.COMPLETED);
+        PhaseResult warm = task.getReport().warm();
+        assertThat(warm.errors()).isZero();
+        assertThat(warm.misses()).isEqualTo(2);
+        assertThat(warm.hits()).isPositive();
+        assertThat(warm.hits() + warm.misses()).isEqualTo(warm.readLatency().getCount());
+        assertThat(cacheManager.getCacheNames()).containsExactly(CacheLoadTestService.CACHE_NAME);
+        assertThat(service.getTask(task.getId())).isSameAs(task);
+    }
+
+    /**
+     * 线程池拒绝：任务标记为FAILED，调用方收到503，之后可以再次发起压测
+     */
+    @Test
+    void testRejectedSubmissionReleasesRunningFlag() {
+        rejecting.set(true);
+        assertThatThrownBy(() -> service.start(options(1.0)))
+                .isInstanceOf(BusinessException.class)
+                .extracting(e -> ((BusinessException) e).getStatus())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        rejecting.set(false);
+        assertThat(service.start(options(0.0)).getStatus()).isEqualTo(LoadTestStatus.COMPLETED);
+    }
+
+    private static LoadTestOptions options(double readRatio) {
+        return new LoadTestOptions(2, Duration.ofSeconds(1), Duration.ZERO, 2, KeyDistribution.UNIFORM,
+                0.99, readRatio, false);
+    }
+}
@@ -0,0 +1,125 @@
+package com.learning.service;
+
+import com.learning.cache.CacheLoaderRegistry;
+import com.learning.cache.LayeredCacheManager;
+import com.learning.cache.LocalCache;
+import com.learning.cache.TwoLevelCache;
+import com.learning.config.AppConfig;
+import com.learning.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 缓存预热服务测试
+ * 
+ * 面试重点知识点：
+ * 1. 同步Executor让异步任务在测试线程内执行完毕
+ * 2. 批量加载与批量写入的验证
+ * 
+ * @author 学习笔记
+ */
+class CacheWarmupServiceTest {
+
+    /**
+     * 按批次回源，写入两级缓存，不存在的key计入missing
+     */
+    @Test
+    void testWarmupLoadsInBatchesAndFillsAllTiers() {
+        ConcurrentMapCacheManager redis = new ConcurrentMapCacheManager("users");
+        LayeredCacheManager cacheManager = new LayeredCacheManager(redis, List.of(
+                cache -> new TwoLevelCache(cache, new LocalCache(cache.getName(), 100, Duration.ofMinutes(1)))));
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        CacheLoaderRegistry registry = new CacheLoaderRegistry();
+        registry.registerBatch("users", keys -> {
+            batchSizes.add(keys.size());
+            Map<Object, Object> values = new LinkedHashMap<>();
+            keys.stream().filter(key -> (Long) key <= 20).forEach(key -> values.put(key, "user" + key));
+            return values;
+        });
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCache().getWarmup().setBatchSize(10);
+        appConfig.getCache().getWarmup().setMaxKeysPerSecond(0);
+        CacheWarmupService service = new CacheWarmupService(cacheManager, registry, appConfig, Runnable::run);
+
+        CacheWarmupService.WarmupTask task = service.warmup("users",
+                LongStream.rangeClosed(1, 25).boxed().map(Object.class::cast).toList());
+
+        assertThat(task.getStatus()).isEqualTo(CacheWarmupService.WarmupStatus.COMPLETED);
+        assertThat(batchSizes).containsExactly(10, 10, 5);
+        assertThat(task.getWritten()).isEqualTo(20);
+        assertThat(task.getMissing()).isEqualTo(5);
+        assertThat(task.getProgress()).isEqualTo(1.0);
+        assertThat(redis.getCache("users").get(20L).get()).isEqualTo("user20");
+        TwoLevelCache twoLevel = cacheManager.unwrap("users", TwoLevelCache.class);
+        assertThat(twoLevel.getLocalCache().size()).isEqualTo(20);
+        assertThat(service.getTask(task.getId())).isSameAs(task);
+    }
+
+    /**
+     * 线程池拒绝协调任务：任务标记为FAILED，调用方收到503
+     */
+    @Test
+    void testRejectedSubmissionMarksTaskFailed() {
+        CacheWarmupService service = newService(command -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        assertThatThrownBy(() -> service.warmup("users", List.of(1L, 2L)))
+                .isInstanceOf(BusinessException.class)
+                .extracting(e -> ((BusinessException) e).getStatus())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        assertThat(service.getTasks()).singleElement()
+                .extracting(CacheWarmupService.WarmupTask::getStatus)
+                .isEqualTo(CacheWarmupService.WarmupStatus.FAILED);
+    }
+
+    /**
+     * 批次被拒绝：不再提交剩余批次，已提交的批次照常完成，任务标记为FAILED
+     */
+    @Test
+    void testRejectedBatchStopsSubmittingAndMarksTaskFailed() {
+        AtomicInteger submissions = new AtomicInteger();
+        CacheWarmupService service = newService(command -> {
+            // 第1次提交为协调任务，第2、3次为批次，之后拒绝
+            if (submissions.incrementAndGet() > 3) {
+                throw new RejectedExecutionException("queue full");
+            }
+            command.run();
+        });
+
+        CacheWarmupService.WarmupTask task = service.warmup("users",
+                LongStream.rangeClosed(1, 50).boxed().map(Object.class::cast).toList());
+
+        assertThat(task.getStatus()).isEqualTo(CacheWarmupService.WarmupStatus.FAILED);
+        assertThat(task.getWritten()).isEqualTo(20);
+        assertThat(submissions.get()).isEqualTo(4);
+    }
+
+    private static CacheWarmupService newService(Executor executor) {
+        CacheLoaderRegistry registry = new CacheLoaderRegistry();
+        registry.registerBatch("users", keys -> {
+            Map<Object, Object> values = new LinkedHashMap<>();
+            keys.forEach(key -> values.put(key, "user" + key));
+            return values;
+        });
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCache().getWarmup().setBatchSize(10);
+        appConfig.getCache().getWarmup().setMaxKeysPerSecond(0);
+        return new CacheWarmupService(new ConcurrentMapCacheManager("users"), registry, appConfig, executor);
+    }
+}
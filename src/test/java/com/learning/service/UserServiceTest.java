@@ -0,0 +1,104 @@
+package com.learning.service;
+
+import com.learning.cache.CacheLoaderRegistry;
+import com.learning.entity.User;
+import com.learning.exception.BusinessException;
+import com.learning.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户批量查询测试
+ * 
+ * 面试重点知识点：
+ * 1. 部分命中：命中的ID直接返回，未命中的ID合并为一次IN查询
+ * 2. 不存在的ID回写空结果哨兵，再次查询不再回源
+ * 3. 结果按请求顺序返回，重复ID只返回一次
+ * 
+ * @author 学习笔记
+ */
+class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final BloomFilterService bloomFilterService = mock(BloomFilterService.class);
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("users");
+    private final UserService userService = new UserService(userRepository, bloomFilterService,
+            new CacheLoaderRegistry(), cacheManager);
+
+    @BeforeEach
+    void setUp() {
+        when(bloomFilterService.mightContain(eq(BloomFilterService.USER_FILTER), any())).thenReturn(true);
+    }
+
+    /**
+     * 命中1和3，未命中的2和4合并为一次查询，4不存在被忽略，顺序与请求一致
+     */
+    @Test
+    void testFindByIdsMixesCacheHitsWithSingleBatchLoad() {
+        cacheManager.getCache("users").put(1L, user(1L));
+        cacheManager.getCache("users").put(3L, user(3L));
+        when(userRepository.selectBatchIds(anyCollection())).thenReturn(List.of(user(2L)));
+
+        List<User> users = userService.findByIds(List.of(3L, 2L, 1L, 4L, 2L));
+
+        assertThat(users).extracting(User::getId).containsExactly(3L, 2L, 1L);
+        verify(userRepository, times(1)).selectBatchIds(List.of(2L, 4L));
+        assertThat(cacheManager.getCache("users").get(2L).get()).isEqualTo(user(2L));
+        assertThat(cacheManager.getCache("users").get(4L).get()).isNull();
+    }
+
+    /**
+     * 全部命中(包括不存在ID的空结果哨兵)时不访问数据库
+     */
+    @Test
+    void testFindByIdsServesCachedMissesWithoutLoading() {
+        cacheManager.getCache("users").put(2L, user(2L));
+        cacheManager.getCache("users").put(4L, null);
+
+        List<User> users = userService.findByIds(List.of(4L, 2L));
+
+        assertThat(users).extracting(User::getId).containsExactly(2L);
+        verify(userRepository, never()).selectBatchIds(anyCollection());
+    }
+
+    /**
+     * 布隆过滤器判定不存在的ID不查缓存也不回源
+     */
+    @Test
+    void testFindByIdsSkipsIdsRejectedByBloomFilter() {
+        when(bloomFilterService.mightContain(BloomFilterService.USER_FILTER, 99L)).thenReturn(false);
+
+        assertThat(userService.findByIds(List.of(99L))).isEmpty();
+        verify(userRepository, never()).selectBatchIds(anyCollection());
+    }
+
+    @Test
+    void testFindByIdsRejectsOversizedBatch() {
+        List<Long> ids = LongStream.rangeClosed(1, UserService.MAX_BATCH_SIZE + 1).boxed().toList();
+
+        assertThatThrownBy(() -> userService.findByIds(ids)).isInstanceOf(BusinessException.class);
+        verify(userRepository, never()).selectBatchIds(anyCollection());
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        return user;
+    }
+}